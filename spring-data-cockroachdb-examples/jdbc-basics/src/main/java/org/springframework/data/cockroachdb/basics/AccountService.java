@@ -60,12 +60,12 @@ public class AccountService {
         return accountRepository.findBalanceSnapshotById(id);
     }
 
-    @TransactionBoundary
+    @TransactionBoundary(implicitIfSingleStatement = true)
     public void delete(Long id) {
         accountRepository.deleteById(id);
     }
 
-    @TransactionBoundary
+    @TransactionBoundary(implicitIfSingleStatement = true)
     public void deleteAll() {
         accountRepository.deleteAll();
     }
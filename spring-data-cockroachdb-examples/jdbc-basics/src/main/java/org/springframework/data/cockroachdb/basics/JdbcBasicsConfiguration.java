@@ -11,13 +11,14 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.data.cockroachdb.CockroachTransactionManager;
 import org.springframework.data.cockroachdb.aspect.AdvisorOrder;
 import org.springframework.data.cockroachdb.aspect.TransactionAttributesAspect;
+import org.springframework.data.cockroachdb.aspect.TransactionBoundaryContextAspect;
 import org.springframework.data.cockroachdb.aspect.TransactionRetryAspect;
 import org.springframework.data.jdbc.repository.config.AbstractJdbcConfiguration;
 import org.springframework.data.jdbc.repository.config.EnableJdbcRepositories;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
@@ -40,6 +41,11 @@ public class JdbcBasicsConfiguration extends AbstractJdbcConfiguration {
         return new TransactionRetryAspect();
     }
 
+    @Bean
+    public TransactionBoundaryContextAspect transactionBoundaryContextAspect() {
+        return new TransactionBoundaryContextAspect();
+    }
+
     @Bean
     public TransactionAttributesAspect transactionAttributesAspect(JdbcTemplate jdbcTemplate) {
         return new TransactionAttributesAspect(jdbcTemplate);
@@ -72,8 +78,9 @@ public class JdbcBasicsConfiguration extends AbstractJdbcConfiguration {
 
     @Bean
     public PlatformTransactionManager transactionManager() {
-        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager();
+        CockroachTransactionManager transactionManager = new CockroachTransactionManager();
         transactionManager.setDataSource(dataSource());
+        transactionManager.setDeferredBeginEnabled(true);
         transactionManager.setGlobalRollbackOnParticipationFailure(false);
         transactionManager.setEnforceReadOnly(true);
         transactionManager.setNestedTransactionAllowed(true);
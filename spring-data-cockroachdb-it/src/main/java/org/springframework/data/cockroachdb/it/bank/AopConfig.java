@@ -1,10 +1,17 @@
 package org.springframework.data.cockroachdb.it.bank;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
 import org.springframework.context.annotation.Profile;
+import org.springframework.data.cockroachdb.aspect.AdaptiveConcurrencyLimiter;
+import org.springframework.data.cockroachdb.aspect.ConcurrencyLimiterAspect;
+import org.springframework.data.cockroachdb.aspect.MethodMetadataRegistry;
+import org.springframework.data.cockroachdb.aspect.SerializeOnAspect;
 import org.springframework.data.cockroachdb.aspect.TransactionAttributesAspect;
+import org.springframework.data.cockroachdb.aspect.TransactionBoundaryContextAspect;
 import org.springframework.data.cockroachdb.aspect.TransactionRetryAspect;
 import org.springframework.data.cockroachdb.it.TestProfiles;
 import org.springframework.data.cockroachdb.it.bank.service.OutboxAspect;
@@ -13,16 +20,69 @@ import org.springframework.jdbc.core.JdbcTemplate;
 @Configuration
 @EnableAspectJAutoProxy(proxyTargetClass = true)
 public class AopConfig {
+    /**
+     * Enables in-process serialization of {@code @SerializeOn} methods, off by default so that
+     * the contention tests measure the database rather than the local key locks.
+     */
+    public static final String SERIALIZE_ON_PROPERTY = "bank.serialize-on";
+
+    /**
+     * Enables the adaptive concurrency limiter along with app retries, off by default so that
+     * the baseline tests measure unlimited admission.
+     */
+    public static final String CONCURRENCY_LIMITER_PROPERTY = "bank.concurrency-limiter.enabled";
+
     @Bean
     @Profile(TestProfiles.APP_RETRY)
-    public TransactionRetryAspect transactionRetryAspect() {
-        return new TransactionRetryAspect();
+    public TransactionRetryAspect transactionRetryAspect(
+            ObjectProvider<AdaptiveConcurrencyLimiter> concurrencyLimiter) {
+        TransactionRetryAspect aspect = new TransactionRetryAspect();
+        concurrencyLimiter.ifAvailable(aspect::setConcurrencyLimiter);
+        aspect.setMethodMetadataRegistry(methodMetadataRegistry());
+        return aspect;
+    }
+
+    @Bean
+    public MethodMetadataRegistry methodMetadataRegistry() {
+        return new MethodMetadataRegistry();
+    }
+
+    @Bean
+    public TransactionBoundaryContextAspect transactionBoundaryContextAspect() {
+        TransactionBoundaryContextAspect aspect = new TransactionBoundaryContextAspect();
+        aspect.setMethodMetadataRegistry(methodMetadataRegistry());
+        return aspect;
+    }
+
+    @Bean
+    @Profile(TestProfiles.APP_RETRY)
+    @ConditionalOnProperty(name = CONCURRENCY_LIMITER_PROPERTY, havingValue = "true")
+    public AdaptiveConcurrencyLimiter concurrencyLimiter() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter();
+        limiter.setMaxLimit(Runtime.getRuntime().availableProcessors() * 30);
+        limiter.setMaxWaitMillis(60_000);
+        return limiter;
+    }
+
+    @Bean
+    @Profile(TestProfiles.APP_RETRY)
+    @ConditionalOnProperty(name = CONCURRENCY_LIMITER_PROPERTY, havingValue = "true")
+    public ConcurrencyLimiterAspect concurrencyLimiterAspect(AdaptiveConcurrencyLimiter concurrencyLimiter) {
+        return new ConcurrencyLimiterAspect(concurrencyLimiter);
     }
 
     @Bean
     @Profile(TestProfiles.APP_RETRY)
     public TransactionAttributesAspect transactionAttributesAspect(JdbcTemplate jdbcTemplate) {
-        return new TransactionAttributesAspect(jdbcTemplate);
+        TransactionAttributesAspect aspect = new TransactionAttributesAspect(jdbcTemplate);
+        aspect.setMethodMetadataRegistry(methodMetadataRegistry());
+        return aspect;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = SERIALIZE_ON_PROPERTY, havingValue = "true")
+    public SerializeOnAspect serializeOnAspect() {
+        return new SerializeOnAspect();
     }
 
     @Bean
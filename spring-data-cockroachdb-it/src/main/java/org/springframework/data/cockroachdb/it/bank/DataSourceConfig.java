@@ -1,5 +1,7 @@
 package org.springframework.data.cockroachdb.it.bank;
 
+import java.util.concurrent.TimeUnit;
+
 import javax.sql.DataSource;
 
 import org.postgresql.PGProperty;
@@ -11,6 +13,8 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.Profiles;
+import org.springframework.data.cockroachdb.AdmissionGateDataSource;
+import org.springframework.data.cockroachdb.SamplingQueryTracer;
 import org.springframework.data.cockroachdb.it.TestProfiles;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
@@ -18,13 +22,16 @@ import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import com.zaxxer.hikari.HikariDataSource;
 
 import io.cockroachdb.jdbc.CockroachProperty;
-import net.ttddyy.dsproxy.listener.logging.SLF4JLogLevel;
 import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
 
 @Configuration
 public class DataSourceConfig {
     public static final String SQL_TRACE_LOGGER = "io.cockroachdb.jdbc.SQL_TRACE";
 
+    public static final String VIRTUAL_THREADS_PROPERTY = "bank.virtual-threads";
+
+    public static final String POOL_SIZE_PROPERTY = "bank.pool-size";
+
     @Autowired
     private Environment environment;
 
@@ -32,10 +39,24 @@ public class DataSourceConfig {
     @Primary
     public DataSource dataSource() {
         HikariDataSource hikariDataSource = hikariDataSource();
-        return ProxyDataSourceBuilder.create(hikariDataSource)
-                .name("SQL-Trace").asJson()
-                .logQueryBySlf4j(SLF4JLogLevel.TRACE, SQL_TRACE_LOGGER)
+        DataSource dataSource = ProxyDataSourceBuilder.create(hikariDataSource)
+                .name("SQL-Trace")
+                .listener(sqlTracer())
                 .build();
+        if (environment.getProperty(VIRTUAL_THREADS_PROPERTY, Boolean.class, false)) {
+            return new AdmissionGateDataSource(dataSource,
+                    hikariDataSource.getHikariConfigMXBean()::getMaximumPoolSize);
+        }
+        return dataSource;
+    }
+
+    @Bean(destroyMethod = "close")
+    public SamplingQueryTracer sqlTracer() {
+        SamplingQueryTracer tracer = new SamplingQueryTracer(SQL_TRACE_LOGGER, 8192);
+        tracer.setSampleRate(0.01);
+        tracer.setTailLatencyMillis(250);
+        tracer.start(1, TimeUnit.SECONDS);
+        return tracer;
     }
 
     @Bean
@@ -52,8 +73,10 @@ public class DataSourceConfig {
                 .initializeDataSourceBuilder()
                 .type(HikariDataSource.class)
                 .build();
-        ds.setMaximumPoolSize(Runtime.getRuntime().availableProcessors() * 30);
-        ds.setMinimumIdle(Runtime.getRuntime().availableProcessors() * 15);
+        int poolSize = environment.getProperty(POOL_SIZE_PROPERTY, Integer.class,
+                Runtime.getRuntime().availableProcessors() * 30);
+        ds.setMaximumPoolSize(poolSize);
+        ds.setMinimumIdle(poolSize / 2);
         ds.setConnectionTimeout(5_000); // Max wait to get connection from pool (millis)
         ds.setInitializationFailTimeout(-1); // Max wait to get connection from pool (millis)
         ds.setAutoCommit(true);
@@ -6,8 +6,8 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.annotation.PersistenceExceptionTranslationPostProcessor;
+import org.springframework.data.cockroachdb.CockroachTransactionManager;
 import org.springframework.data.cockroachdb.it.TestProfiles;
-import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.support.TransactionTemplate;
 
@@ -16,7 +16,7 @@ import org.springframework.transaction.support.TransactionTemplate;
 public class JdbcPersistenceConfig {
     @Bean
     public PlatformTransactionManager transactionManager(DataSource dataSource) {
-        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager();
+        CockroachTransactionManager transactionManager = new CockroachTransactionManager();
         transactionManager.setDataSource(dataSource);
         transactionManager.setGlobalRollbackOnParticipationFailure(false);
         transactionManager.setEnforceReadOnly(true);
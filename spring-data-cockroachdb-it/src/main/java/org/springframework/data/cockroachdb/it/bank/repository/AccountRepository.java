@@ -1,6 +1,7 @@
 package org.springframework.data.cockroachdb.it.bank.repository;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.function.Supplier;
 
@@ -25,6 +26,21 @@ public interface AccountRepository {
 
     void updateBalances(List<Account> accounts);
 
+    /**
+     * Add the amounts to the account balances without reading the accounts first,
+     * rejecting any resulting negative balance for accounts not allowing it.
+     *
+     * @param amounts the amounts to add by account id
+     * @return the updated accounts with their new balances
+     * @throws org.springframework.data.cockroachdb.it.bank.service.NegativeBalanceException if a balance
+     * would become negative for an account not allowing it
+     * @throws org.springframework.data.cockroachdb.it.bank.service.BadRequestException if an account
+     * is closed or in another currency
+     * @throws org.springframework.data.cockroachdb.it.bank.service.NoSuchAccountException if an account
+     * doesn't exist
+     */
+    List<Account> addToBalances(Map<Long, Money> amounts);
+
     AccountSummary reportSummary(String region);
 
     void deleteAll();
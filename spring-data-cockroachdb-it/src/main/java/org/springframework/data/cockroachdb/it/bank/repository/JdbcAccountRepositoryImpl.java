@@ -6,10 +6,11 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Currency;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.function.Supplier;
 import java.util.stream.IntStream;
@@ -17,6 +18,8 @@ import java.util.stream.IntStream;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Profile;
 import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.cockroachdb.CockroachBatchUpdate;
+import org.springframework.data.cockroachdb.CockroachParallelLoader;
 import org.springframework.data.cockroachdb.annotations.NotTransactional;
 import org.springframework.data.cockroachdb.it.TestProfiles;
 import org.springframework.data.cockroachdb.it.bank.model.Account;
@@ -24,11 +27,15 @@ import org.springframework.data.cockroachdb.it.bank.model.AccountSummary;
 import org.springframework.data.cockroachdb.it.bank.model.AccountType;
 import org.springframework.data.cockroachdb.it.bank.model.ForeignSystem;
 import org.springframework.data.cockroachdb.it.bank.model.Money;
+import org.springframework.data.cockroachdb.it.bank.service.BadRequestException;
+import org.springframework.data.cockroachdb.it.bank.service.NegativeBalanceException;
+import org.springframework.data.cockroachdb.it.bank.service.NoSuchAccountException;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -45,19 +52,44 @@ public class JdbcAccountRepositoryImpl implements AccountRepository {
             .enable(DeserializationFeature.ACCEPT_EMPTY_STRING_AS_NULL_OBJECT)
             .setSerializationInclusion(JsonInclude.Include.NON_NULL);
 
+    private final CockroachBatchUpdate<Account> balanceUpdate = CockroachBatchUpdate.<Account>builder("account")
+            .withKey("id", "INT8", Account::getId)
+            .withColumn("balance", "NUMERIC", account -> account.getBalance().getAmount())
+            .withValue("currency", "TEXT", account -> account.getBalance().getCurrency().getCurrencyCode())
+            .withSetClause("updated_at = clock_timestamp()")
+            .withWhereClause("account.closed = false")
+            .withWhereClause("account.currency = v.currency")
+            .withWhereClause("v.balance * abs(account.allow_negative - 1) >= 0")
+            .build();
+
+    private final CockroachBatchUpdate<Map.Entry<Long, Money>> balanceDelta
+            = CockroachBatchUpdate.<Map.Entry<Long, Money>>builder("account")
+            .withKey("id", "INT8", Map.Entry::getKey)
+            .withDelta("balance", "NUMERIC", entry -> entry.getValue().getAmount())
+            .withValue("currency", "TEXT", entry -> entry.getValue().getCurrency().getCurrencyCode())
+            .withSetClause("updated_at = clock_timestamp()")
+            .withWhereClause("account.closed = false")
+            .withWhereClause("account.currency = v.currency")
+            .withWhereClause("(account.balance + v.balance) * abs(account.allow_negative - 1) >= 0")
+            .withReturning("account.*")
+            .build();
+
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
     @Autowired
     private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
 
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     @Override
     public Integer nextSequenceNumber() {
         return jdbcTemplate.queryForObject("select nextval('account_name_sequence')", Integer.class);
     }
 
     @Override
-    @NotTransactional // Use implicit
+    @NotTransactional // One transaction per chunk
     public void createAccounts(int numAccounts, int batchSize, Supplier<Account> accountSupplier) {
         final List<Integer> batchSequence = new ArrayList<>();
 
@@ -69,45 +101,43 @@ public class JdbcAccountRepositoryImpl implements AccountRepository {
             return batchSequence.remove(0);
         };
 
-        for (int i = 0; i < numAccounts; i += batchSize) {
-            if (i + batchSize > numAccounts) {
-                batchSize = numAccounts - i;
-            }
-
-            final int currentBatch = batchSize;
-
-            jdbcTemplate.batchUpdate(
-                    "INSERT INTO account "
-                            + "(region, balance, currency, name, description, account_type, closed, allow_negative, metadata) "
-                            + "VALUES(?,?,?,?,?,?,?,?,?)",
-                    new BatchPreparedStatementSetter() {
-                        @Override
-                        public void setValues(PreparedStatement ps, int i) throws SQLException {
-                            Account account = accountSupplier.get();
-
-                            ps.setString(1, account.getRegion());
-                            ps.setBigDecimal(2, account.getBalance().getAmount());
-                            ps.setString(3, account.getBalance().getCurrency().getCurrencyCode());
-                            ps.setString(4, "user:" + sequenceIds.get());
-                            ps.setString(5, account.getDescription());
-                            ps.setString(6, account.getAccountType().getCode());
-                            ps.setBoolean(7, account.isClosed());
-                            ps.setInt(8, account.getAllowNegative());
-
-                            try {
-                                ps.setObject(9, mapper.writer()
-                                        .writeValueAsString(account.getForeignSystem()));
-                            } catch (JsonProcessingException e) {
-                                throw new SQLException(e);
+        new CockroachParallelLoader<Account>(Runtime.getRuntime().availableProcessors())
+                .withTransactionManager(transactionManager)
+                .load(numAccounts, batchSize, () -> {
+                    Account account = accountSupplier.get();
+                    account.setName("user:" + sequenceIds.get());
+                    return account;
+                }, chunk -> jdbcTemplate.batchUpdate(
+                        "INSERT INTO account "
+                                + "(region, balance, currency, name, description, account_type, closed, allow_negative, metadata) "
+                                + "VALUES(?,?,?,?,?,?,?,?,?)",
+                        new BatchPreparedStatementSetter() {
+                            @Override
+                            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                                Account account = chunk.get(i);
+
+                                ps.setString(1, account.getRegion());
+                                ps.setBigDecimal(2, account.getBalance().getAmount());
+                                ps.setString(3, account.getBalance().getCurrency().getCurrencyCode());
+                                ps.setString(4, account.getName());
+                                ps.setString(5, account.getDescription());
+                                ps.setString(6, account.getAccountType().getCode());
+                                ps.setBoolean(7, account.isClosed());
+                                ps.setInt(8, account.getAllowNegative());
+
+                                try {
+                                    ps.setObject(9, mapper.writer()
+                                            .writeValueAsString(account.getForeignSystem()));
+                                } catch (JsonProcessingException e) {
+                                    throw new SQLException(e);
+                                }
                             }
-                        }
 
-                        @Override
-                        public int getBatchSize() {
-                            return currentBatch;
-                        }
-                    });
-        }
+                            @Override
+                            public int getBatchSize() {
+                                return chunk.size();
+                            }
+                        }));
     }
 
     @Override
@@ -147,36 +177,50 @@ public class JdbcAccountRepositoryImpl implements AccountRepository {
 
     @Override
     public void updateBalances(List<Account> accounts) {
-        int[] rowsAffected = jdbcTemplate.batchUpdate(
-                "UPDATE account "
-                        + "SET "
-                        + "   balance = ?,"
-                        + "   updated_at=clock_timestamp() "
-                        + "WHERE id = ? "
-                        + "   AND closed=false "
-                        + "   AND currency=? "
-                        + "   AND (?) * abs(allow_negative-1) >= 0",
-                new BatchPreparedStatementSetter() {
-                    @Override
-                    public void setValues(PreparedStatement ps, int i) throws SQLException {
-                        Account account = accounts.get(i);
-
-                        ps.setBigDecimal(1, account.getBalance().getAmount());
-                        ps.setObject(2, account.getId());
-                        ps.setString(3, account.getBalance().getCurrency().getCurrencyCode());
-                        ps.setBigDecimal(4, account.getBalance().getAmount());
-                    }
-
-                    @Override
-                    public int getBatchSize() {
-                        return accounts.size();
-                    }
-                });
+        // Single round trip, verified by returned ids
+        balanceUpdate.execute(jdbcTemplate, accounts);
+    }
 
-        // Trust but verify
-        Arrays.stream(rowsAffected).filter(i -> i != 1).forEach(i -> {
-            throw new IncorrectResultSizeDataAccessException(1, i);
-        });
+    @Override
+    public List<Account> addToBalances(Map<Long, Money> amounts) {
+        final Set<Long> updated = new HashSet<>();
+        try {
+            // Single round trip without a prior read, returning the new balances
+            return new ArrayList<>(balanceDelta.execute(jdbcTemplate, new ArrayList<>(amounts.entrySet()),
+                    (rs, rowNum) -> {
+                        Account account = readAccount(rs);
+                        updated.add(account.getId());
+                        return account;
+                    }).values());
+        } catch (IncorrectResultSizeDataAccessException e) {
+            // Rejected by a predicate while the other rows were updated, so only the rows
+            // not returned still hold their pre-update balances to report the cause from
+            Map<Long, Account> rejected = new HashMap<>();
+            findByIDs(amounts.keySet()).stream()
+                    .filter(account -> !updated.contains(account.getId()))
+                    .forEach(account -> rejected.put(account.getId(), account));
+
+            amounts.forEach((id, amount) -> {
+                if (updated.contains(id)) {
+                    return;
+                }
+                Account account = rejected.get(id);
+                if (account == null) {
+                    throw new NoSuchAccountException(id.toString());
+                }
+                if (account.isClosed()) {
+                    throw new BadRequestException("Account is closed: " + account.toDisplayString());
+                }
+                if (!account.getBalance().isSameCurrency(amount)) {
+                    throw new BadRequestException("Currency mismatch for " + account.toDisplayString()
+                            + ": " + amount.getCurrency());
+                }
+                if (account.getAllowNegative() == 0 && account.getBalance().plus(amount).isNegative()) {
+                    throw new NegativeBalanceException(account.toDisplayString());
+                }
+            });
+            throw e;
+        }
     }
 
     @Override
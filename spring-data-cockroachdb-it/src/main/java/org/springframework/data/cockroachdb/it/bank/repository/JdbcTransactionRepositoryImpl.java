@@ -5,7 +5,6 @@ import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
@@ -13,7 +12,9 @@ import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
 import org.springframework.dao.support.DataAccessUtils;
 import org.springframework.data.cockroachdb.it.TestProfiles;
 import org.springframework.data.cockroachdb.it.bank.model.Transaction;
@@ -21,18 +22,70 @@ import org.springframework.data.cockroachdb.it.bank.model.TransactionItem;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
-import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ColumnMapRowMapper;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.GeneratedKeyHolder;
-import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.jdbc.core.PreparedStatementCreator;
 import org.springframework.stereotype.Repository;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
 @Profile(TestProfiles.JDBC)
 @Repository
 public class JdbcTransactionRepositoryImpl implements TransactionRepository {
+    /**
+     * Write the transaction created event to the outbox as part of the transaction
+     * insert statement, rather than through {@code OutboxAspect}.
+     */
+    public static final String OUTBOX_INLINE_PROPERTY = "bank.outbox-inline";
+
+    private static final String INSERT_TRANSACTION = "INSERT INTO transaction "
+            + "(token,region,booking_date,transfer_date,transaction_type) "
+            + "VALUES(?, ?, ?, ?, ?) ";
+
+    // Empty result for a duplicate token
+    private static final String ON_CONFLICT = "ON CONFLICT (token) DO NOTHING ";
+
+    private static final String RETURNING_KEYS = "RETURNING id,booking_date,transfer_date";
+
+    // Keys of a transaction already claimed in the same transaction
+    private static final String CLAIMED_KEYS = "SELECT ?::INT8 AS id, ?::DATE AS booking_date, ?::DATE AS transfer_date";
+
+    private static final String INSERT_ITEMS = "i AS ("
+            + "INSERT INTO transaction_item "
+            + "(region, transaction_id, account_id, amount, currency, note, running_balance) "
+            + "SELECT v.region, t.id, v.account_id, v.amount, v.currency, v.note, v.running_balance "
+            + "FROM t, unnest(?::TEXT[], ?::INT8[], ?::NUMERIC[], ?::TEXT[], ?::TEXT[], ?::NUMERIC[]) "
+            + "AS v(region, account_id, amount, currency, note, running_balance) "
+            + "RETURNING NULL) ";
+
+    // Generated values are set in the payload since it's serialized before the insert
+    private static final String INSERT_OUTBOX = ", o AS ("
+            + "INSERT INTO outbox (aggregate_type,aggregate_id,event_type,payload) "
+            + "SELECT 'Transaction', t.id::STRING, 'TransactionCreatedEvent', "
+            + "jsonb_set(jsonb_set(jsonb_set(?::JSONB, "
+            + "'{id}', to_jsonb(t.id)), "
+            + "'{bookingDate}', to_jsonb(t.booking_date::STRING)), "
+            + "'{transferDate}', to_jsonb(t.transfer_date::STRING)) "
+            + "FROM t RETURNING NULL) ";
+
+    private static final String SELECT_KEYS = "SELECT id,booking_date,transfer_date FROM t";
+
+    private final ObjectMapper mapper = new ObjectMapper()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS)
+            .enable(DeserializationFeature.ACCEPT_EMPTY_STRING_AS_NULL_OBJECT)
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Value("${" + OUTBOX_INLINE_PROPERTY + ":false}")
+    private boolean outboxInline;
+
     @Override
     public Optional<Transaction> findTransactionByToken(UUID token) {
         List<Transaction> list = this.jdbcTemplate.query(
@@ -44,58 +97,117 @@ public class JdbcTransactionRepositoryImpl implements TransactionRepository {
 
     @Override
     public Transaction createTransaction(Transaction transaction) {
-        KeyHolder keyHolder = new GeneratedKeyHolder();
-
-        jdbcTemplate.update(connection -> {
-            PreparedStatement ps = connection
-                    .prepareStatement("INSERT INTO transaction "
-                        + "(token,region,booking_date,transfer_date,transaction_type) "
-                        + "VALUES(?, ?, ?, ?, ?) RETURNING id,booking_date,transfer_date", Statement.RETURN_GENERATED_KEYS);
-            ps.setObject(1, transaction.getToken());
-            ps.setString(2, transaction.getRegion());
-            ps.setObject(3, transaction.getBookingDate());
-            ps.setObject(4, transaction.getTransferDate());
-            ps.setString(5, transaction.getTransactionType());
+        // Single round trip for the transaction, its items and optionally the outbox event
+        final String sql = "WITH t AS (" + INSERT_TRANSACTION + RETURNING_KEYS + "), "
+                + INSERT_ITEMS
+                + (outboxInline ? INSERT_OUTBOX : "")
+                + SELECT_KEYS;
+
+        final String payload = outboxPayload(transaction);
+
+        Optional<Map<String, Object>> keys = queryForKeys(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql);
+            int index = setTransaction(ps, transaction);
+            index = setItems(ps, index, transaction.getItems());
+            if (outboxInline) {
+                ps.setString(index, payload);
+            }
             return ps;
-        }, keyHolder);
-
-        Map<String, Object> keys =  keyHolder.getKeys();
-        Long transactionId = (Long) keys.get("id");
-        transaction.setId(transactionId);
-
-        LocalDate bookingDate = ((Date)keys.get("booking_date")).toLocalDate();
-        LocalDate transferDate = ((Date)keys.get("transfer_date")).toLocalDate();
-
-        transaction.setBookingDate(bookingDate);
-        transaction.setTransferDate(transferDate);
-
-        final List<TransactionItem> items = transaction.getItems();
-
-        jdbcTemplate.batchUpdate(
-                "INSERT INTO transaction_item "
-                        + "(region, transaction_id, account_id, amount, currency, note, running_balance) "
-                        + "VALUES(?,?,?,?,?,?,?)", new BatchPreparedStatementSetter() {
-                    @Override
-                    public void setValues(PreparedStatement ps, int i) throws SQLException {
-                        TransactionItem transactionLeg = items.get(i);
-                        ps.setString(1, transactionLeg.getRegion());
-                        ps.setObject(2, transactionId);
-                        ps.setObject(3, transactionLeg.getAccount().getId());
-                        ps.setBigDecimal(4, transactionLeg.getAmount().getAmount());
-                        ps.setString(5, transactionLeg.getAmount().getCurrency().getCurrencyCode());
-                        ps.setString(6, transactionLeg.getNote());
-                        ps.setBigDecimal(7, transactionLeg.getRunningBalance().getAmount());
-                    }
-
-                    @Override
-                    public int getBatchSize() {
-                        return items.size();
-                    }
-                });
+        });
+
+        setKeys(transaction, keys.orElseThrow(() -> new IncorrectResultSizeDataAccessException(1, 0)));
 
         return transaction;
     }
 
+    @Override
+    public boolean claimTransaction(Transaction transaction) {
+        Optional<Map<String, Object>> keys = queryForKeys(connection -> {
+            PreparedStatement ps = connection.prepareStatement(INSERT_TRANSACTION + ON_CONFLICT + RETURNING_KEYS);
+            setTransaction(ps, transaction);
+            return ps;
+        });
+
+        keys.ifPresent(row -> setKeys(transaction, row));
+
+        return keys.isPresent();
+    }
+
+    @Override
+    public void createTransactionItems(Transaction transaction) {
+        // Single round trip for the items and optionally the outbox event
+        final String sql = "WITH t AS (" + CLAIMED_KEYS + "), "
+                + INSERT_ITEMS
+                + (outboxInline ? INSERT_OUTBOX : "")
+                + SELECT_KEYS;
+
+        final String payload = outboxPayload(transaction);
+
+        queryForKeys(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql);
+            ps.setLong(1, transaction.getId());
+            ps.setObject(2, transaction.getBookingDate());
+            ps.setObject(3, transaction.getTransferDate());
+            int index = setItems(ps, 4, transaction.getItems());
+            if (outboxInline) {
+                ps.setString(index, payload);
+            }
+            return ps;
+        });
+    }
+
+    private String outboxPayload(Transaction transaction) {
+        if (!outboxInline) {
+            return null;
+        }
+        try {
+            return mapper.writer().writeValueAsString(transaction);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Error serializing outbox JSON payload", e);
+        }
+    }
+
+    private Optional<Map<String, Object>> queryForKeys(PreparedStatementCreator statementCreator) {
+        return jdbcTemplate.query(statementCreator, new ColumnMapRowMapper()).stream().findFirst();
+    }
+
+    private static int setTransaction(PreparedStatement ps, Transaction transaction) throws SQLException {
+        ps.setObject(1, transaction.getToken());
+        ps.setString(2, transaction.getRegion());
+        ps.setObject(3, transaction.getBookingDate());
+        ps.setObject(4, transaction.getTransferDate());
+        ps.setString(5, transaction.getTransactionType());
+        return 6;
+    }
+
+    private static int setItems(PreparedStatement ps, int index, List<TransactionItem> items) throws SQLException {
+        Connection connection = ps.getConnection();
+        ps.setArray(index++, connection.createArrayOf("TEXT",
+                items.stream().map(TransactionItem::getRegion).toArray()));
+        ps.setArray(index++, connection.createArrayOf("INT8",
+                items.stream().map(item -> item.getAccount().getId()).toArray()));
+        ps.setArray(index++, connection.createArrayOf("NUMERIC",
+                items.stream().map(item -> item.getAmount().getAmount()).toArray()));
+        ps.setArray(index++, connection.createArrayOf("TEXT",
+                items.stream().map(item -> item.getAmount().getCurrency().getCurrencyCode()).toArray()));
+        ps.setArray(index++, connection.createArrayOf("TEXT",
+                items.stream().map(TransactionItem::getNote).toArray()));
+        ps.setArray(index++, connection.createArrayOf("NUMERIC",
+                items.stream().map(item -> item.getRunningBalance().getAmount()).toArray()));
+        return index;
+    }
+
+    private static void setKeys(Transaction transaction, Map<String, Object> row) {
+        transaction.setId((Long) row.get("id"));
+        transaction.setBookingDate(((Date) row.get("booking_date")).toLocalDate());
+        transaction.setTransferDate(((Date) row.get("transfer_date")).toLocalDate());
+    }
+
+    @Override
+    public boolean isOutboxInline() {
+        return outboxInline;
+    }
+
     @Override
     public Page<Transaction> findTransactions(Pageable pageable) {
         int count = countAllTransactions();
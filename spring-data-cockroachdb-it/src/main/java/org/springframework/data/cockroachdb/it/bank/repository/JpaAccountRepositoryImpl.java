@@ -6,6 +6,7 @@ import java.util.Currency;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.function.Supplier;
@@ -16,7 +17,7 @@ import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.Tuple;
 
-import org.springframework.data.cockroachdb.annotations.TransactionBoundary;
+import org.springframework.data.cockroachdb.CockroachParallelLoader;
 import org.springframework.data.cockroachdb.it.TestProfiles;
 import org.springframework.data.cockroachdb.it.bank.model.Account;
 import org.springframework.data.cockroachdb.it.bank.model.AccountSummary;
@@ -26,6 +27,7 @@ import org.hibernate.Session;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
 
 @Profile(TestProfiles.JPA)
 @Repository
@@ -36,6 +38,9 @@ public class JpaAccountRepositoryImpl implements AccountRepository {
     @Autowired
     private ActualJpaAccountRepository accountRepository;
 
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     @Override
     @NotTransactional
     public Integer nextSequenceNumber() {
@@ -55,7 +60,7 @@ public class JpaAccountRepositoryImpl implements AccountRepository {
     }
 
     @Override
-    @TransactionBoundary
+    @NotTransactional
     public void createAccounts(int numAccounts, int batchSize, Supplier<Account> accountSupplier) {
         final List<Integer> batchSequence = new ArrayList<>();
 
@@ -67,18 +72,33 @@ public class JpaAccountRepositoryImpl implements AccountRepository {
             return batchSequence.remove(0);
         };
 
-        List<Account> batch = new ArrayList<>();
-
-        IntStream.rangeClosed(1, numAccounts).forEach(value -> {
-            Account account = accountSupplier.get();
-            account.setName("user:" + sequenceIds.get());
-            batch.add(account);
-        });
-
-        Session session = entityManager.unwrap(Session.class);
-        session.setJdbcBatchSize(batchSize);
+        new CockroachParallelLoader<Account>(Runtime.getRuntime().availableProcessors())
+                .withTransactionManager(transactionManager)
+                .load(numAccounts, batchSize, () -> {
+                    Account account = accountSupplier.get();
+                    account.setName("user:" + sequenceIds.get());
+                    return account;
+                }, chunk -> {
+                    Session session = entityManager.unwrap(Session.class);
+                    session.setJdbcBatchSize(batchSize);
+                    // Accounts are assigned ids by a rolled back attempt, so retry with transient copies
+                    accountRepository.saveAll(chunk.stream()
+                            .map(account -> account.getId() == null ? account : transientCopy(account))
+                            .toList());
+                });
+    }
 
-        accountRepository.saveAll(batch);
+    private static Account transientCopy(Account account) {
+        return Account.builder()
+                .withRegion(account.getRegion())
+                .withName(account.getName())
+                .withDescription(account.getDescription())
+                .withBalance(account.getBalance())
+                .withAccountType(account.getAccountType())
+                .withClosed(account.isClosed())
+                .withAllowNegative(account.getAllowNegative() != 0)
+                .withForeignSystem(account.getForeignSystem())
+                .build();
     }
 
     @Override
@@ -86,6 +106,14 @@ public class JpaAccountRepositoryImpl implements AccountRepository {
         // No-op, expect batch updates via transparent persistence
     }
 
+    @Override
+    public List<Account> addToBalances(Map<Long, Money> amounts) {
+        // Read-modify-write, since a bulk update would bypass the persistence context
+        List<Account> accounts = findByIDs(amounts.keySet());
+        accounts.forEach(account -> account.addAmount(amounts.get(account.getId())));
+        return accounts;
+    }
+
     @Override
     public List<Account> findByIDs(Set<Long> ids) {
         return accountRepository.findAllForUpdate(new HashSet<>(ids));
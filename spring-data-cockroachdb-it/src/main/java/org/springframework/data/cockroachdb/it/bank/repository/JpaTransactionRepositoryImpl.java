@@ -34,6 +34,28 @@ public class JpaTransactionRepositoryImpl implements TransactionRepository {
         return attached;
     }
 
+    @Override
+    public boolean claimTransaction(Transaction transaction) {
+        // Lookup-then-insert, since there's no portable upsert without a native query
+        if (transactionRepository.findByToken(transaction.getToken()).isPresent()) {
+            return false;
+        }
+        transactionRepository.save(transaction);
+        return true;
+    }
+
+    @Override
+    public void createTransactionItems(Transaction transaction) {
+        transaction.getItems().forEach(transactionItem
+                -> transactionItem.setTransaction(transaction));
+        itemRepository.saveAll(transaction.getItems());
+    }
+
+    @Override
+    public boolean isOutboxInline() {
+        return false;
+    }
+
     @Override
     public Page<Transaction> findTransactions(Pageable pageable) {
         return transactionRepository.findAll(pageable);
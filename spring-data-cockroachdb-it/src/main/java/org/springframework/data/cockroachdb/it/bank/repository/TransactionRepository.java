@@ -12,6 +12,24 @@ public interface TransactionRepository {
 
     Transaction createTransaction(Transaction transaction);
 
+    /**
+     * Claim the token by creating the transaction without items, unless one already
+     * exists with the same token.
+     *
+     * @return true if claimed, or false if the token is a duplicate
+     */
+    boolean claimTransaction(Transaction transaction);
+
+    /**
+     * Create the items of a transaction claimed by {@link #claimTransaction}.
+     */
+    void createTransactionItems(Transaction transaction);
+
+    /**
+     * @return true if {@link #createTransaction} also writes the outbox event
+     */
+    boolean isOutboxInline();
+
     Page<Transaction> findTransactions(Pageable pageable);
 
     void deleteAll();
@@ -13,6 +13,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
 import org.springframework.data.cockroachdb.it.bank.model.Transaction;
+import org.springframework.data.cockroachdb.it.bank.repository.TransactionRepository;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.Assert;
@@ -37,6 +38,9 @@ public class OutboxAspect {
     @Autowired
     private DataSource dataSource;
 
+    @Autowired
+    private TransactionRepository transactionRepository;
+
     private JdbcTemplate jdbcTemplate;
 
     @PostConstruct
@@ -50,6 +54,10 @@ public class OutboxAspect {
         Assert.isTrue(TransactionSynchronizationManager.isActualTransactionActive(),
                 "Expecting active transaction - check advice @Order");
 
+        if (transactionRepository.isOutboxInline()) {
+            return; // Written by the repository in the same statement
+        }
+
         try {
             String payload;
             if (logger.isTraceEnabled()) {
@@ -1,13 +1,19 @@
 package org.springframework.data.cockroachdb.it.bank.service;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.Currency;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.cockroachdb.RotatingBloomFilter;
 import org.springframework.data.cockroachdb.it.bank.model.Account;
 import org.springframework.data.cockroachdb.it.bank.model.Money;
 import org.springframework.data.cockroachdb.it.bank.model.Transaction;
@@ -16,10 +22,12 @@ import org.springframework.data.cockroachdb.it.bank.repository.AccountRepository
 import org.springframework.data.cockroachdb.it.bank.repository.TransactionRepository;
 import org.springframework.data.cockroachdb.annotations.NotTransactional;
 import org.springframework.data.cockroachdb.annotations.Retryable;
+import org.springframework.data.cockroachdb.annotations.SerializeOn;
 import org.springframework.data.cockroachdb.annotations.SetVariable;
 import org.springframework.data.cockroachdb.annotations.TransactionBoundary;
 import org.springframework.data.cockroachdb.annotations.Variable;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.util.Pair;
@@ -30,28 +38,68 @@ import org.springframework.transaction.support.TransactionSynchronizationManager
 
 @Service
 public class TransactionServiceImpl implements TransactionService {
+    /**
+     * Apply transfer amounts as balance deltas in one round trip rather than
+     * reading the accounts for update and writing back absolute balances.
+     */
+    public static final String DELTA_UPDATES_PROPERTY = "bank.delta-updates";
+
+    /**
+     * Expected idempotency tokens per window for the in-memory token filter, or 0 to disable.
+     * Tokens not seen by the filter skip the duplicate check and rely on the unique constraint.
+     */
+    public static final String TOKEN_FILTER_PROPERTY = "bank.token-filter.expected-insertions";
+
+    protected final Logger logger = LoggerFactory.getLogger(getClass());
+
     @Autowired
     private AccountRepository accountRepository;
 
     @Autowired
     private TransactionRepository transactionRepository;
 
+    @Value("${" + DELTA_UPDATES_PROPERTY + ":false}")
+    private boolean deltaUpdates;
+
+    @Value("${" + TOKEN_FILTER_PROPERTY + ":0}")
+    private long tokenFilterInsertions;
+
+    @Value("${bank.token-filter.false-positive-rate:0.01}")
+    private double tokenFilterFalsePositiveRate;
+
+    @Value("${bank.token-filter.window:5m}")
+    private Duration tokenFilterWindow;
+
+    private RotatingBloomFilter tokenFilter;
+
+    @PostConstruct
+    public void init() {
+        if (tokenFilterInsertions > 0) {
+            this.tokenFilter = new RotatingBloomFilter(
+                    tokenFilterInsertions, tokenFilterFalsePositiveRate, tokenFilterWindow);
+            logger.info("Using idempotency token filter: {}", tokenFilter);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (tokenFilter != null) {
+            logger.info("Idempotency token filter: {}", tokenFilter);
+        }
+    }
+
     @Override
     @TransactionBoundary(variables = {
             @SetVariable(variable = Variable.idle_in_transaction_session_timeout, value = "0"),
             @SetVariable(variable = Variable.enable_implicit_select_for_update, value = "on"),
     })
     @Retryable(retryAttempts = 50)
+    @SerializeOn(key = "#request.accountLegs.![id]")
     public Transaction submitTransferRequest(TransferRequest request) {
         if (!TransactionSynchronizationManager.isActualTransactionActive()) {
             throw new IllegalStateException("No transaction context - check Spring profile settings");
         }
 
-        Optional<Transaction> existingTransaction = transactionRepository.findTransactionByToken(request.getIdempotencyKey());
-        if (existingTransaction.isPresent()) {
-            return existingTransaction.get();
-        }
-
         if (request.getAccountLegs().size() < 2) {
             throw new BadRequestException("Must have at least two legs");
         }
@@ -59,40 +107,91 @@ public class TransactionServiceImpl implements TransactionService {
         // Coalesce multi-legged transactions
         final Map<Long, Pair<Money, String>> legs = coalesce(request);
 
-        // Lookup accounts with authoritative reads
-        final List<Account> accounts = accountRepository.findByIDs(legs.keySet());
+        // Tokens definitely not seen by this instance skip the duplicate check
+        final boolean possibleDuplicate = tokenFilter == null
+                || tokenFilter.put(request.getIdempotencyKey());
+
+        if (!possibleDuplicate) {
+            Transaction transaction = applyLegs(request, transactionBuilder(request), legs);
+            // Unique constraint on token is the final guard
+            transactionRepository.createTransaction(transaction);
+            return transaction;
+        }
+
+        // Claim the token before touching any balances, so that a duplicate is a read-only no-op
+        final Transaction claimed = transactionBuilder(request).build();
+        if (!transactionRepository.claimTransaction(claimed)) {
+            return transactionRepository.findTransactionByToken(request.getIdempotencyKey())
+                    .orElseThrow(() -> new IllegalStateException(
+                            "Duplicate transaction not found: " + request.getIdempotencyKey()));
+        }
 
-        final Transaction.Builder transactionBuilder = Transaction.builder()
+        final Transaction transaction = applyLegs(request, transactionBuilder(request)
+                .withId(claimed.getId())
+                .withBookingDate(claimed.getBookingDate())
+                .withTransferDate(claimed.getTransferDate()), legs);
+        transactionRepository.createTransactionItems(transaction);
+
+        return transaction;
+    }
+
+    private static Transaction.Builder transactionBuilder(TransferRequest request) {
+        return Transaction.builder()
                 .withToken(request.getIdempotencyKey())
                 .withRegion(request.getRegion())
                 .withTransactionType(request.getTransactionType())
                 .withBookingDate(request.getBookingDate())
                 .withTransferDate(request.getTransferDate());
+    }
+
+    private Transaction applyLegs(TransferRequest request, Transaction.Builder transactionBuilder,
+                                  Map<Long, Pair<Money, String>> legs) {
+        // Either add amounts in place, or lookup accounts with authoritative reads
+        final List<Account> accounts = deltaUpdates
+                ? addToBalances(legs)
+                : accountRepository.findByIDs(legs.keySet());
 
         legs.forEach((accountId, value) -> {
             final Money amount = value.getFirst();
 
-            Account account = accounts.stream().filter(a -> Objects.equals(a.getId(), accountId))
-                    .findFirst().orElseThrow(() -> new NoSuchAccountException(accountId.toString()));
+            Account account = findAccount(accounts, accountId);
+
+            final Money runningBalance;
+            if (deltaUpdates) {
+                // Derived from the returned balance
+                runningBalance = account.getBalance().minus(amount);
+            } else {
+                runningBalance = account.getBalance();
+                account.addAmount(amount);
+            }
 
             transactionBuilder
                     .andItem()
                     .withRegion(request.getRegion())
                     .withAccount(account)
-                    .withRunningBalance(account.getBalance())
+                    .withRunningBalance(runningBalance)
                     .withAmount(amount)
                     .withNote(value.getSecond())
                     .then();
-
-            account.addAmount(amount);
         });
 
-        accountRepository.updateBalances(accounts);
+        if (!deltaUpdates) {
+            accountRepository.updateBalances(accounts);
+        }
 
-        Transaction transaction = transactionBuilder.build();
-        transactionRepository.createTransaction(transaction);
+        return transactionBuilder.build();
+    }
 
-        return transaction;
+    private List<Account> addToBalances(Map<Long, Pair<Money, String>> legs) {
+        final Map<Long, Money> amounts = new HashMap<>();
+        legs.forEach((accountId, value) -> amounts.put(accountId, value.getFirst()));
+
+        return accountRepository.addToBalances(amounts);
+    }
+
+    private static Account findAccount(List<Account> accounts, Long accountId) {
+        return accounts.stream().filter(a -> Objects.equals(a.getId(), accountId))
+                .findFirst().orElseThrow(() -> new NoSuchAccountException(accountId.toString()));
     }
 
     private Map<Long, Pair<Money, String>> coalesce(TransferRequest request) {
@@ -8,15 +8,19 @@ import org.slf4j.LoggerFactory;
 public class BoundedThreadPool {
     protected final Logger logger = LoggerFactory.getLogger(getClass());
 
-    private final ThreadPoolExecutor threadPool;
+    private final ExecutorService threadPool;
 
     public BoundedThreadPool(int corePoolSize) {
-        this.threadPool = new ThreadPoolExecutor(
+        this(new ThreadPoolExecutor(
                 corePoolSize, corePoolSize,
                 60, TimeUnit.SECONDS,
                 new LinkedBlockingQueue<>(Integer.MAX_VALUE),
                 Executors.defaultThreadFactory(),
-                new ThreadPoolExecutor.AbortPolicy());
+                new ThreadPoolExecutor.AbortPolicy()));
+    }
+
+    public BoundedThreadPool(ExecutorService threadPool) {
+        this.threadPool = threadPool;
     }
 
     public void shutdownAndDrain() {
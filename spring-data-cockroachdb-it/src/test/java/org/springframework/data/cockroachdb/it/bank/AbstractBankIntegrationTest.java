@@ -26,6 +26,12 @@ import com.zaxxer.hikari.HikariPoolMXBean;
 //@ActiveProfiles({"jpa","dev"})
 //@ActiveProfiles({"jdbc","dev"})
 public abstract class AbstractBankIntegrationTest {
+    /**
+     * Pool size of the contexts started by test variants with their own properties,
+     * which are closed after the test class to release the connections.
+     */
+    protected static final String VARIANT_POOL_SIZE = "50";
+
     protected final Logger logger = LoggerFactory.getLogger(getClass());
 
     @Autowired
@@ -40,6 +46,10 @@ public abstract class AbstractBankIntegrationTest {
     @Autowired
     private HikariDataSource hikariDataSource;
 
+    protected int getMaximumPoolSize() {
+        return hikariDataSource.getMaximumPoolSize();
+    }
+
     protected void logPoolStats() {
         HikariConfigMXBean config = hikariDataSource.getHikariConfigMXBean();
         logger.info("Hikari pool config:\n"
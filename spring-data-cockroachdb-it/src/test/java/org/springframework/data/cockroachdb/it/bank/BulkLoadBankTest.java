@@ -0,0 +1,74 @@
+package org.springframework.data.cockroachdb.it.bank;
+
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.cockroachdb.CockroachCopyLoader;
+import org.springframework.data.cockroachdb.it.bank.model.Money;
+
+/**
+ * Compares account ingestion throughput of batched inserts with the COPY loader.
+ */
+@Tag("benchmark-test")
+public class BulkLoadBankTest extends AbstractBankIntegrationTest {
+    @Autowired
+    private DataSource dataSource;
+
+    private final int numAccounts = 50_000;
+
+    private final Money initialBalance = Money.of("50000.00", Money.EUR);
+
+    @BeforeAll
+    public void setupTestFixture() {
+        transactionService.deleteAll();
+        accountService.deleteAll();
+    }
+
+    private void logThroughput(String prefix, long rows, long startTime) {
+        long millis = Math.max(1, System.currentTimeMillis() - startTime);
+        logger.info("{}: {} rows in {} ms ({} rows/s)", prefix, rows, millis, rows * 1000 / millis);
+    }
+
+    @Test
+    @Order(1)
+    public void whenBatchInsertingAccounts_expectThroughput() {
+        long startTime = System.currentTimeMillis();
+        accountService.createAccounts("eu", initialBalance, numAccounts, 128, n -> {
+        });
+        logThroughput("Batch insert", numAccounts, startTime);
+    }
+
+    @Test
+    @Order(2)
+    public void whenCopyingAccounts_expectThroughput() {
+        final String metadata = "{\"label\":\"System X\",\"owner\":\"Chuck Norris\"}";
+
+        long startTime = System.currentTimeMillis();
+        long rows = new CockroachCopyLoader<Integer>(dataSource)
+                .withTable("account")
+                .withColumns("region", "balance", "currency", "name", "account_type", "closed",
+                        "allow_negative", "metadata")
+                .withChunkSize(10_000)
+                .load(IntStream.range(0, numAccounts).boxed(), i -> new Object[] {
+                        "eu",
+                        initialBalance.getAmount(),
+                        initialBalance.getCurrency().getCurrencyCode(),
+                        "copy:" + UUID.randomUUID(),
+                        "A",
+                        false,
+                        0,
+                        metadata
+                });
+        logThroughput("Copy", rows, startTime);
+
+        Assertions.assertEquals(numAccounts, rows);
+    }
+}
@@ -11,6 +11,7 @@ import java.util.concurrent.Future;
 import java.util.stream.IntStream;
 
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
 import org.springframework.data.cockroachdb.it.bank.model.Account;
@@ -24,8 +25,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 
 public class ConcurrentBankTest extends AbstractBankIntegrationTest {
-    private final BoundedThreadPool boundedThreadPool = new BoundedThreadPool(
-            Runtime.getRuntime().availableProcessors() * 30); // Mostly I/O waits, so set aggressive thread count
+    private BoundedThreadPool boundedThreadPool;
 
     final int numAccounts = 50_000;
 
@@ -35,6 +35,16 @@ public class ConcurrentBankTest extends AbstractBankIntegrationTest {
 
     final Money initialBalance = Money.of("50000.00", Money.EUR);
 
+    @BeforeAll
+    public void setupThreadPool() {
+        boundedThreadPool = createThreadPool();
+    }
+
+    protected BoundedThreadPool createThreadPool() {
+        // Mostly I/O waits, so use one thread per pooled connection
+        return new BoundedThreadPool(getMaximumPoolSize());
+    }
+
     @Test
     @Order(1)
     public void whenStartingTest_setupTestFixture() {
@@ -72,6 +82,8 @@ public class ConcurrentBankTest extends AbstractBankIntegrationTest {
 
         logger.info("Queuing {} tasks..", numTasks);
 
+        final long startTime = System.nanoTime();
+
         IntStream.rangeClosed(1, numTasks).forEach(value -> {
             Future<Transaction> future = boundedThreadPool.submit(() -> {
                 UUID idempotencyKey = UUID.randomUUID();
@@ -133,6 +145,10 @@ public class ConcurrentBankTest extends AbstractBankIntegrationTest {
 
         boundedThreadPool.shutdownAndDrain();
 
+        final double elapsedSeconds = Math.max(1, System.nanoTime() - startTime) / 1_000_000_000.0;
+        logger.info("Completed {} transfers in {} s ({} tx/s)", successCount,
+                String.format("%.2f", elapsedSeconds), String.format("%.1f", successCount / elapsedSeconds));
+
         logger.info(formatSuccessRate("Operations", successCount, failureCount));
         logger.info(formatSuccessRate("Retries", MetricsRetryListener.getNumRetriesSuccessful(),
                 MetricsRetryListener.getNumRetriesFailed()));
@@ -0,0 +1,16 @@
+package org.springframework.data.cockroachdb.it.bank;
+
+import org.springframework.data.cockroachdb.it.bank.service.TransactionServiceImpl;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Runs the concurrent bank test with balance deltas applied in place, for comparing
+ * the reported throughput against the read-for-update path of {@link ConcurrentBankTest}.
+ */
+@DirtiesContext
+@TestPropertySource(properties = {
+        TransactionServiceImpl.DELTA_UPDATES_PROPERTY + "=true",
+        DataSourceConfig.POOL_SIZE_PROPERTY + "=" + AbstractBankIntegrationTest.VARIANT_POOL_SIZE})
+public class DeltaUpdateBankTest extends ConcurrentBankTest {
+}
@@ -106,12 +106,18 @@ public class FunctionalBankTest extends AbstractBankIntegrationTest {
                         .filter(money -> money.getCurrencyCode().equals("EUR"))
                         .findFirst().orElseThrow(() -> new IllegalStateException("No total found?"));
 
-        Transaction t1 = transactionService.submitTransferRequest(builder.build());
+        TransferRequest request = builder.build();
+        TransferRequest.AccountLeg leg = request.getAccountLegs().get(0);
+        Money legBalanceBefore = accountService.getBalance(leg.getId());
+
+        Transaction t1 = transactionService.submitTransferRequest(request);
         Assertions.assertNotNull(t1.getId());
         Assertions.assertEquals(4, t1.getItems().size());
 
+        // Duplicate is detected by the token claim before any balance update
         Transaction t2 = transactionService.submitTransferRequest(builder.build());
         Assertions.assertEquals(t1, t2);
+        Assertions.assertEquals(legBalanceBefore.plus(leg.getAmount()), accountService.getBalance(leg.getId()));
 
         totals = accountService.getTotalBalance();
 
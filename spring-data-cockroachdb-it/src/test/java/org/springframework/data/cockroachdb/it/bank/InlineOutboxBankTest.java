@@ -0,0 +1,16 @@
+package org.springframework.data.cockroachdb.it.bank;
+
+import org.springframework.data.cockroachdb.it.bank.repository.JdbcTransactionRepositoryImpl;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Runs the functional bank test with the outbox event written as part of the
+ * single transaction insert statement (JDBC profile only).
+ */
+@DirtiesContext
+@TestPropertySource(properties = {
+        JdbcTransactionRepositoryImpl.OUTBOX_INLINE_PROPERTY + "=true",
+        DataSourceConfig.POOL_SIZE_PROPERTY + "=" + AbstractBankIntegrationTest.VARIANT_POOL_SIZE})
+public class InlineOutboxBankTest extends FunctionalBankTest {
+}
@@ -0,0 +1,40 @@
+package org.springframework.data.cockroachdb.it.bank;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.springframework.data.cockroachdb.it.util.BoundedThreadPool;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Runs the concurrent bank test on one virtual thread per task, with the connection
+ * admission gate enabled. Requires JDK 21 at runtime and is skipped on earlier versions,
+ * since the project targets JDK 17.
+ */
+@DirtiesContext
+@TestPropertySource(properties = {
+        DataSourceConfig.VIRTUAL_THREADS_PROPERTY + "=true",
+        DataSourceConfig.POOL_SIZE_PROPERTY + "=" + AbstractBankIntegrationTest.VARIANT_POOL_SIZE})
+public class VirtualThreadBankTest extends ConcurrentBankTest {
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    @BeforeAll
+    public void assumeVirtualThreads() {
+        Assumptions.assumeTrue(Runtime.version().feature() >= 21, "Virtual threads require JDK 21");
+    }
+
+    @Override
+    protected BoundedThreadPool createThreadPool() {
+        ExecutorService executorService = newVirtualThreadPerTaskExecutor();
+        return executorService != null ? new BoundedThreadPool(executorService) : super.createThreadPool();
+    }
+}
@@ -0,0 +1,183 @@
+package org.springframework.data.cockroachdb;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.util.Assert;
+
+/**
+ * Data source that admits a bounded number of concurrent connection checkouts through
+ * a fair semaphore, typically sized to the connection pool.
+ * <p>
+ * This is intended for virtual threads, where a very large number of threads would
+ * otherwise queue up on the connection pool. Waiting on the semaphore parks the virtual
+ * thread without pinning its carrier thread, and excess threads fail fast with a
+ * {@link SQLTransientConnectionException} after the admission timeout rather than
+ * piling onto the pool wait queue. A permit is held until the connection is closed.
+ * <p>
+ * The number of permits can track a resizable pool through a supplier, which is read on
+ * each checkout. Note that pgjdbc prior to 42.6.0 guards socket I/O with {@code synchronized}
+ * and pins the carrier thread for the duration of each query.
+ * <p>
+ * Closing this data source closes the target data source if it's closeable, such as the pool.
+ */
+public class AdmissionGateDataSource extends DelegatingDataSource implements Closeable {
+    private static final class ResizableSemaphore extends Semaphore {
+        ResizableSemaphore(int permits) {
+            super(permits, true);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+
+    private final ResizableSemaphore permits;
+
+    private final IntSupplier maxPermitsSupplier;
+
+    private final AtomicInteger maxPermits;
+
+    private long admissionTimeoutMillis = 30_000;
+
+    public AdmissionGateDataSource(DataSource targetDataSource, int maxPermits) {
+        this(targetDataSource, () -> maxPermits);
+    }
+
+    /**
+     * @param targetDataSource the target data source
+     * @param maxPermitsSupplier supplier of the max number of permits, typically the current max pool size
+     */
+    public AdmissionGateDataSource(DataSource targetDataSource, IntSupplier maxPermitsSupplier) {
+        super(targetDataSource);
+        int initialPermits = maxPermitsSupplier.getAsInt();
+        Assert.isTrue(initialPermits > 0, "maxPermits must be > 0");
+        this.maxPermitsSupplier = maxPermitsSupplier;
+        this.maxPermits = new AtomicInteger(initialPermits);
+        this.permits = new ResizableSemaphore(initialPermits);
+    }
+
+    /**
+     * @param admissionTimeoutMillis max time to wait for admission
+     */
+    public void setAdmissionTimeoutMillis(long admissionTimeoutMillis) {
+        Assert.isTrue(admissionTimeoutMillis >= 0, "admissionTimeoutMillis must be >= 0");
+        this.admissionTimeoutMillis = admissionTimeoutMillis;
+    }
+
+    public int getMaxPermits() {
+        return maxPermits.get();
+    }
+
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    /**
+     * @return estimated number of threads waiting for admission
+     */
+    public int getQueueLength() {
+        return permits.getQueueLength();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return admit(obtainTargetDataSource().getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return admit(obtainTargetDataSource().getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (getTargetDataSource() instanceof Closeable) {
+            ((Closeable) getTargetDataSource()).close();
+        }
+    }
+
+    private void resize() {
+        int target = maxPermitsSupplier.getAsInt();
+        int current = maxPermits.get();
+        // Permits held beyond a reduced limit drain as connections are closed
+        if (target > 0 && target != current && maxPermits.compareAndSet(current, target)) {
+            if (target > current) {
+                permits.release(target - current);
+            } else {
+                permits.reducePermits(current - target);
+            }
+        }
+    }
+
+    private void acquire() throws SQLException {
+        resize();
+        try {
+            if (!permits.tryAcquire(admissionTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException("Connection admission timed out after "
+                        + admissionTimeoutMillis + " ms with " + permits.getQueueLength() + " waiting");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while awaiting connection admission", e);
+        }
+    }
+
+    private Connection admit(Connection target) {
+        final AtomicBoolean closed = new AtomicBoolean();
+
+        return (Connection) Proxy.newProxyInstance(AdmissionGateDataSource.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                            if (closed.compareAndSet(false, true)) {
+                                try {
+                                    target.close();
+                                } finally {
+                                    permits.release();
+                                }
+                            }
+                            return null;
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return "Admitted proxy for target Connection [" + target + "]";
+                        default:
+                            break;
+                    }
+                    try {
+                        return method.invoke(target, args);
+                    } catch (InvocationTargetException ex) {
+                        throw ex.getTargetException();
+                    }
+                });
+    }
+}
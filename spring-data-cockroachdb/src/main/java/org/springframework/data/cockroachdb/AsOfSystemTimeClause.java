@@ -0,0 +1,229 @@
+package org.springframework.data.cockroachdb;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Inserts an {@code AS OF SYSTEM TIME} clause after the top-level FROM list of a
+ * SELECT statement. Intended for simple single statement reads, statements that
+ * already declare the clause or have no FROM list are left unchanged.
+ * <p>
+ * The statement is tokenized only as far as needed to find the FROM list: string
+ * literals (including escape and dollar-quoted strings), quoted identifiers and
+ * comments are skipped, and parenthesized expressions such as subqueries are not
+ * inspected for the FROM list. Statements not starting with SELECT (such as common
+ * table expressions), multiple statements and malformed statements are left unchanged.
+ */
+abstract class AsOfSystemTimeClause {
+    private static final Set<String> FROM_LIST_TERMINATORS = Set.of(
+            "WHERE", "GROUP", "HAVING", "WINDOW", "ORDER", "LIMIT", "OFFSET", "FETCH", "FOR",
+            "UNION", "INTERSECT", "EXCEPT");
+
+    private static final String[] CLAUSE_KEYWORDS = {"AS", "OF", "SYSTEM", "TIME"};
+
+    private AsOfSystemTimeClause() {
+    }
+
+    /**
+     * @param sql the SQL statement
+     * @param expression the AS OF SYSTEM TIME expression
+     * @return the statement with the clause or the statement as-is if not applicable
+     */
+    static String apply(String sql, String expression) {
+        final int length = sql.length();
+
+        boolean first = true;
+        boolean qualified = false;
+        int depth = 0;
+        int fromEnd = -1;
+        int insertAt = -1;
+        int statementEnd = 0;
+        int clauseMatches = 0;
+
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            char next = i + 1 < length ? sql.charAt(i + 1) : 0;
+
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            if (c == '-' && next == '-') {
+                int eol = sql.indexOf('\n', i);
+                i = eol < 0 ? length : eol + 1;
+                continue;
+            }
+            if (c == '/' && next == '*') {
+                i = skipBlockComment(sql, i);
+                if (i < 0) {
+                    return sql;
+                }
+                continue;
+            }
+            if (c == ';' && depth == 0) {
+                // Only trailing whitespace and comments may follow
+                return isBlank(sql, i + 1) && fromEnd >= 0 ? insert(sql, expression, insertAt, statementEnd) : sql;
+            }
+
+            final int start = i;
+            String keyword = null;
+
+            if (c == '\'') {
+                i = skipQuoted(sql, i, '\'', false);
+            } else if ((c == 'E' || c == 'e') && next == '\'') {
+                i = skipQuoted(sql, i + 1, '\'', true);
+            } else if (c == '"') {
+                i = skipQuoted(sql, i, '"', false);
+            } else if (c == '$' && isDollarQuote(sql, i)) {
+                i = skipDollarQuoted(sql, i);
+            } else if (Character.isLetter(c) || c == '_') {
+                while (i < length && isIdentifierPart(sql.charAt(i))) {
+                    i++;
+                }
+                // Column names qualified by a table name are never keywords
+                if (!qualified) {
+                    keyword = sql.substring(start, i).toUpperCase(Locale.ROOT);
+                }
+            } else {
+                if (c == '(') {
+                    depth++;
+                } else if (c == ')') {
+                    depth--;
+                }
+                i++;
+            }
+
+            if (i < 0) {
+                return sql;
+            }
+
+            statementEnd = i;
+            qualified = c == '.';
+
+            if (first) {
+                if (!"SELECT".equals(keyword)) {
+                    return sql;
+                }
+                first = false;
+                continue;
+            }
+
+            // An existing clause anywhere in the statement, including subqueries
+            if (CLAUSE_KEYWORDS[clauseMatches].equals(keyword)) {
+                if (++clauseMatches == CLAUSE_KEYWORDS.length) {
+                    return sql;
+                }
+            } else {
+                clauseMatches = CLAUSE_KEYWORDS[0].equals(keyword) ? 1 : 0;
+            }
+
+            if (depth == 0 && keyword != null && insertAt < 0) {
+                if (fromEnd < 0 && "FROM".equals(keyword)) {
+                    fromEnd = i;
+                } else if (fromEnd >= 0 && FROM_LIST_TERMINATORS.contains(keyword)) {
+                    insertAt = start;
+                }
+            }
+        }
+
+        return fromEnd >= 0 ? insert(sql, expression, insertAt, statementEnd) : sql;
+    }
+
+    private static String insert(String sql, String expression, int insertAt, int statementEnd) {
+        if (insertAt >= 0) {
+            return sql.substring(0, insertAt) + "AS OF SYSTEM TIME " + expression + " " + sql.substring(insertAt);
+        }
+        return sql.substring(0, statementEnd) + " AS OF SYSTEM TIME " + expression;
+    }
+
+    private static boolean isBlank(String sql, int from) {
+        int i = from;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            char next = i + 1 < sql.length() ? sql.charAt(i + 1) : 0;
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '-' && next == '-') {
+                int eol = sql.indexOf('\n', i);
+                i = eol < 0 ? sql.length() : eol + 1;
+            } else if (c == '/' && next == '*') {
+                i = skipBlockComment(sql, i);
+                if (i < 0) {
+                    return false;
+                }
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the index after the possibly nested block comment, or -1 if unterminated
+     */
+    private static int skipBlockComment(String sql, int start) {
+        int nesting = 0;
+        int i = start;
+        while (i + 1 < sql.length()) {
+            if (sql.charAt(i) == '/' && sql.charAt(i + 1) == '*') {
+                nesting++;
+                i += 2;
+            } else if (sql.charAt(i) == '*' && sql.charAt(i + 1) == '/') {
+                i += 2;
+                if (--nesting == 0) {
+                    return i;
+                }
+            } else {
+                i++;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the index after the closing quote, or -1 if unterminated
+     */
+    private static int skipQuoted(String sql, int start, char quote, boolean backslashEscapes) {
+        int i = start + 1;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (backslashEscapes && c == '\\') {
+                i += 2;
+            } else if (c == quote) {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == quote) {
+                    i += 2;
+                } else {
+                    return i + 1;
+                }
+            } else {
+                i++;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isDollarQuote(String sql, int start) {
+        int i = start + 1;
+        if (i < sql.length() && Character.isDigit(sql.charAt(i))) {
+            return false; // Positional parameter
+        }
+        while (i < sql.length() && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '_')) {
+            i++;
+        }
+        return i < sql.length() && sql.charAt(i) == '$';
+    }
+
+    /**
+     * @return the index after the closing tag, or -1 if unterminated
+     */
+    private static int skipDollarQuoted(String sql, int start) {
+        String tag = sql.substring(start, sql.indexOf('$', start + 1) + 1);
+        int end = sql.indexOf(tag, start + tag.length());
+        return end < 0 ? -1 : end + tag.length();
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+}
@@ -0,0 +1,286 @@
+package org.springframework.data.cockroachdb;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.util.Assert;
+
+/**
+ * Set-based batch update that compiles a list of entities into a single statement:
+ * <pre>
+ * UPDATE account SET balance = v.balance, ...
+ * FROM unnest(?::INT8[], ?::NUMERIC[], ...) AS v(id, balance, ...)
+ * WHERE account.id = v.id AND ...
+ * RETURNING account.id
+ * </pre>
+ * The values are bound as one array parameter per column rather than a {@code VALUES} list,
+ * so the statement text is the same for any number of rows and all rows are updated in one
+ * round trip. Instead of relying on update counts, the returned keys are verified against
+ * the keys of the entities, where any entity not updated, for example due to a failed
+ * predicate, results in an {@link IncorrectResultSizeDataAccessException}.
+ * <p>
+ * Columns declared with {@link Builder#withDelta} are applied relative to the stored value
+ * ({@code balance = account.balance + v.balance}), which avoids reading the rows before the
+ * update. The resulting values can be read back through {@link Builder#withReturning} and
+ * {@link #execute(JdbcOperations, List, RowMapper)}.
+ * <p>
+ * Example usage:
+ * <pre>
+ * CockroachBatchUpdate&lt;Account&gt; update = CockroachBatchUpdate.&lt;Account&gt;builder("account")
+ *         .withKey("id", "INT8", Account::getId)
+ *         .withColumn("balance", "NUMERIC", a -&gt; a.getBalance().getAmount())
+ *         .withValue("currency", "TEXT", a -&gt; a.getBalance().getCurrency().getCurrencyCode())
+ *         .withSetClause("updated_at = clock_timestamp()")
+ *         .withWhereClause("account.currency = v.currency")
+ *         .build();
+ * update.execute(jdbcTemplate, accounts);
+ * </pre>
+ *
+ * @param <T> the entity type
+ */
+public final class CockroachBatchUpdate<T> {
+    public static <T> Builder<T> builder(String table) {
+        return new Builder<>(table);
+    }
+
+    private static final class Column<T> {
+        private final String name;
+
+        private final String type;
+
+        private final Function<T, Object> extractor;
+
+        private final boolean assigned;
+
+        private final boolean delta;
+
+        Column(String name, String type, Function<T, Object> extractor, boolean assigned, boolean delta) {
+            this.name = name;
+            this.type = type;
+            this.extractor = extractor;
+            this.assigned = assigned;
+            this.delta = delta;
+        }
+    }
+
+    public static final class Builder<T> {
+        private final String table;
+
+        private final List<Column<T>> columns = new ArrayList<>();
+
+        private final List<String> setClauses = new ArrayList<>();
+
+        private final List<String> whereClauses = new ArrayList<>();
+
+        private final List<String> returning = new ArrayList<>();
+
+        private Builder(String table) {
+            Assert.hasLength(table, "table is empty");
+            this.table = table;
+        }
+
+        /**
+         * @param name the key column name
+         * @param type the SQL element type of the array parameter, such as INT8 or UUID
+         * @param extractor the key extractor
+         */
+        public Builder<T> withKey(String name, String type, Function<T, Object> extractor) {
+            Assert.isTrue(columns.isEmpty(), "Key must be declared first");
+            this.columns.add(new Column<>(name, type, extractor, false, false));
+            return this;
+        }
+
+        /**
+         * Add a column that is assigned from the entity value.
+         */
+        public Builder<T> withColumn(String name, String type, Function<T, Object> extractor) {
+            Assert.isTrue(!columns.isEmpty(), "Key must be declared first");
+            this.columns.add(new Column<>(name, type, extractor, true, false));
+            return this;
+        }
+
+        /**
+         * Add a column that is incremented by the entity value, for example
+         * {@code balance = account.balance + v.balance}. Predicates referring to
+         * the table column see the value before the increment.
+         */
+        public Builder<T> withDelta(String name, String type, Function<T, Object> extractor) {
+            Assert.isTrue(!columns.isEmpty(), "Key must be declared first");
+            this.columns.add(new Column<>(name, type, extractor, true, true));
+            return this;
+        }
+
+        /**
+         * Add an entity value that is not assigned, but available to the where and set
+         * clauses as {@code v.name}.
+         */
+        public Builder<T> withValue(String name, String type, Function<T, Object> extractor) {
+            Assert.isTrue(!columns.isEmpty(), "Key must be declared first");
+            this.columns.add(new Column<>(name, type, extractor, false, false));
+            return this;
+        }
+
+        /**
+         * @param setClause additional assignment, for example {@code updated_at = clock_timestamp()}
+         */
+        public Builder<T> withSetClause(String setClause) {
+            this.setClauses.add(setClause);
+            return this;
+        }
+
+        /**
+         * @param whereClause additional predicate, referring to the table and values ({@code v})
+         */
+        public Builder<T> withWhereClause(String whereClause) {
+            this.whereClauses.add(whereClause);
+            return this;
+        }
+
+        /**
+         * @param expression additional returned column following the key, for example
+         * {@code account.balance} or {@code account.*}
+         */
+        public Builder<T> withReturning(String expression) {
+            this.returning.add(expression);
+            return this;
+        }
+
+        public CockroachBatchUpdate<T> build() {
+            Assert.isTrue(!columns.isEmpty(), "No key declared");
+            return new CockroachBatchUpdate<>(this);
+        }
+    }
+
+    private final List<Column<T>> columns;
+
+    private final String sql;
+
+    private CockroachBatchUpdate(Builder<T> builder) {
+        this.columns = List.copyOf(builder.columns);
+
+        Column<T> key = columns.get(0);
+
+        List<String> assignments = new ArrayList<>();
+        List<String> arrays = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+
+        for (Column<T> column : columns) {
+            if (column.delta) {
+                assignments.add(column.name + " = " + builder.table + "." + column.name + " + v." + column.name);
+            } else if (column.assigned) {
+                assignments.add(column.name + " = v." + column.name);
+            }
+            arrays.add("?::" + column.type + "[]");
+            names.add(column.name);
+        }
+        assignments.addAll(builder.setClauses);
+
+        Assert.isTrue(!assignments.isEmpty(), "No columns or set clauses declared");
+
+        StringBuilder sb = new StringBuilder()
+                .append("UPDATE ").append(builder.table)
+                .append(" SET ").append(String.join(", ", assignments))
+                .append(" FROM unnest(").append(String.join(", ", arrays)).append(")")
+                .append(" AS v(").append(String.join(", ", names)).append(")")
+                .append(" WHERE ").append(builder.table).append(".").append(key.name)
+                .append(" = v.").append(key.name);
+        builder.whereClauses.forEach(clause -> sb.append(" AND ").append(clause));
+        sb.append(" RETURNING ").append(builder.table).append(".").append(key.name);
+        builder.returning.forEach(expression -> sb.append(", ").append(expression));
+
+        this.sql = sb.toString();
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Update all entities in one round trip.
+     *
+     * @param jdbcOperations the JDBC template
+     * @param entities the entities to update, with unique keys
+     * @throws IncorrectResultSizeDataAccessException if not all entities were updated
+     */
+    public void execute(JdbcOperations jdbcOperations, List<T> entities) {
+        execute(jdbcOperations, entities, (rs, rowNum) -> null);
+    }
+
+    /**
+     * Update all entities in one round trip and map the returned rows, where the key is
+     * the first column followed by any {@link Builder#withReturning returning} expressions.
+     *
+     * @param jdbcOperations the JDBC template
+     * @param entities the entities to update, with unique keys
+     * @param rowMapper the mapper for each returned row
+     * @param <R> the mapped type
+     * @return the mapped rows by key in order of the entities
+     * @throws IncorrectResultSizeDataAccessException if not all entities were updated
+     */
+    public <R> Map<Object, R> execute(JdbcOperations jdbcOperations, List<T> entities, RowMapper<R> rowMapper) {
+        if (entities.isEmpty()) {
+            return Map.of();
+        }
+
+        final Set<Object> expectedKeys = new LinkedHashSet<>();
+        entities.forEach(entity -> {
+            if (!expectedKeys.add(columns.get(0).extractor.apply(entity))) {
+                throw new InvalidDataAccessApiUsageException("Duplicate key in batch update: "
+                        + columns.get(0).extractor.apply(entity));
+            }
+        });
+
+        Map<Object, R> returned = jdbcOperations.execute((ConnectionCallback<Map<Object, R>>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                int index = 1;
+                for (Column<T> column : columns) {
+                    Object[] values = new Object[entities.size()];
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = column.extractor.apply(entities.get(i));
+                    }
+                    Array array = connection.createArrayOf(column.type, values);
+                    ps.setArray(index++, array);
+                }
+
+                Map<Object, R> rows = new HashMap<>();
+                try (ResultSet rs = ps.executeQuery()) {
+                    int rowNum = 0;
+                    while (rs != null && rs.next()) {
+                        rows.put(rs.getObject(1), rowMapper.mapRow(rs, rowNum++));
+                    }
+                }
+                return rows;
+            }
+        });
+
+        verify(expectedKeys, returned.keySet());
+
+        Map<Object, R> result = new LinkedHashMap<>();
+        expectedKeys.forEach(key -> result.put(key, returned.get(key)));
+        return result;
+    }
+
+    static void verify(Collection<Object> expectedKeys, Set<Object> returnedKeys) {
+        if (returnedKeys.size() != expectedKeys.size() || !returnedKeys.containsAll(expectedKeys)) {
+            List<Object> missing = new ArrayList<>(expectedKeys);
+            missing.removeAll(returnedKeys);
+            throw new IncorrectResultSizeDataAccessException("Batch update did not update keys " + missing,
+                    expectedKeys.size(), returnedKeys.size());
+        }
+    }
+}
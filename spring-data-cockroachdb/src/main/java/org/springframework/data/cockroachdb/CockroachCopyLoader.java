@@ -0,0 +1,281 @@
+package org.springframework.data.cockroachdb;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.support.SQLStateSQLExceptionTranslator;
+import org.springframework.util.Assert;
+
+/**
+ * Streaming bulk loader using {@code COPY FROM STDIN} through the pgJDBC {@link org.postgresql.copy.CopyManager}.
+ * <p>
+ * Rows are pulled from a {@link Stream}, encoded into CSV or text format through a bounded
+ * buffer and written to the copy stream without materializing batches. The load is split
+ * into chunks of a fixed number of rows, where each chunk is a separate {@code COPY}
+ * statement that is committed before the next chunk starts. This keeps transactions within
+ * CockroachDB size limits and makes it possible to report progress per chunk. The loader
+ * uses a dedicated connection and does not participate in Spring managed transactions.
+ * <p>
+ * Example usage:
+ * <pre>
+ * long rows = new CockroachCopyLoader&lt;Account&gt;(dataSource)
+ *         .withTable("account")
+ *         .withColumns("name", "balance", "currency")
+ *         .withChunkSize(10_000)
+ *         .load(accounts.stream(), a -&gt; new Object[] {a.getName(), a.getBalance(), a.getCurrency()});
+ * </pre>
+ *
+ * @param <T> the row type
+ */
+public class CockroachCopyLoader<T> {
+    /**
+     * Copy data formats.
+     */
+    public enum Format {
+        CSV,
+        TEXT
+    }
+
+    /**
+     * Callback invoked after each committed chunk.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        /**
+         * @param chunks number of chunks committed so far
+         * @param rows number of rows committed so far
+         */
+        void afterChunk(int chunks, long rows);
+    }
+
+    protected final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final DataSource dataSource;
+
+    private String table;
+
+    private String[] columns = {};
+
+    private Format format = Format.CSV;
+
+    private int chunkSize = 10_000;
+
+    private int bufferSize = 64 * 1024;
+
+    private ProgressListener progressListener = (chunks, rows) -> {
+    };
+
+    public CockroachCopyLoader(DataSource dataSource) {
+        Assert.notNull(dataSource, "dataSource is null");
+        this.dataSource = dataSource;
+    }
+
+    public CockroachCopyLoader<T> withTable(String table) {
+        this.table = table;
+        return this;
+    }
+
+    public CockroachCopyLoader<T> withColumns(String... columns) {
+        this.columns = columns;
+        return this;
+    }
+
+    public CockroachCopyLoader<T> withFormat(Format format) {
+        Assert.notNull(format, "format is null");
+        this.format = format;
+        return this;
+    }
+
+    /**
+     * @param chunkSize number of rows per committed {@code COPY} statement
+     */
+    public CockroachCopyLoader<T> withChunkSize(int chunkSize) {
+        Assert.isTrue(chunkSize > 0, "chunkSize must be > 0");
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * @param bufferSize max number of encoded bytes buffered before written to the copy stream
+     */
+    public CockroachCopyLoader<T> withBufferSize(int bufferSize) {
+        Assert.isTrue(bufferSize > 0, "bufferSize must be > 0");
+        this.bufferSize = bufferSize;
+        return this;
+    }
+
+    public CockroachCopyLoader<T> withProgressListener(ProgressListener progressListener) {
+        Assert.notNull(progressListener, "progressListener is null");
+        this.progressListener = progressListener;
+        return this;
+    }
+
+    /**
+     * @return the {@code COPY} statement
+     */
+    public String getCopySql() {
+        Assert.hasLength(table, "table is empty");
+        StringBuilder sb = new StringBuilder("COPY ").append(table);
+        if (columns.length > 0) {
+            sb.append(" (").append(String.join(", ", columns)).append(")");
+        }
+        sb.append(" FROM STDIN");
+        if (format == Format.CSV) {
+            sb.append(" WITH CSV");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Load all rows of a stream. The stream is consumed but not closed.
+     *
+     * @param rows the rows to load
+     * @param encoder encoder of a row into column values, in column order
+     * @return the number of rows loaded
+     * @throws DataAccessException on load failure, in which case all previous chunks remain committed
+     */
+    public long load(Stream<T> rows, Function<T, Object[]> encoder) {
+        final String sql = getCopySql();
+        final Iterator<T> iterator = rows.iterator();
+        final long startTime = System.nanoTime();
+
+        try (Connection connection = dataSource.getConnection()) {
+            long total = 0;
+            int chunks = 0;
+
+            while (iterator.hasNext()) {
+                total += copyChunk(connection, sql, iterator, encoder);
+                if (!connection.getAutoCommit()) {
+                    connection.commit();
+                }
+                progressListener.afterChunk(++chunks, total);
+            }
+
+            if (logger.isDebugEnabled()) {
+                long millis = Math.max(1, (System.nanoTime() - startTime) / 1_000_000);
+                logger.debug("Copied {} rows in {} chunks in {} ms ({} rows/s)",
+                        total, chunks, millis, total * 1000 / millis);
+            }
+
+            return total;
+        } catch (SQLException e) {
+            DataAccessException ex = new SQLStateSQLExceptionTranslator().translate("COPY", sql, e);
+            throw ex != null ? ex : new UncategorizedSQLException("COPY", sql, e);
+        }
+    }
+
+    private long copyChunk(Connection connection, String sql, Iterator<T> iterator,
+                           Function<T, Object[]> encoder) throws SQLException {
+        final CopyIn copyIn = copyIn(connection, sql);
+        final StringBuilder buffer = new StringBuilder(Math.min(bufferSize, 1024 * 1024) + 256);
+
+        try {
+            for (int n = 0; n < chunkSize && iterator.hasNext(); n++) {
+                encodeRow(encoder.apply(iterator.next()), buffer);
+                if (buffer.length() >= bufferSize) {
+                    write(copyIn, buffer);
+                }
+            }
+            write(copyIn, buffer);
+            return copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    private static void write(CopyIn copyIn, StringBuilder buffer) throws SQLException {
+        if (buffer.length() > 0) {
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            buffer.setLength(0);
+        }
+    }
+
+    /**
+     * Start a {@code COPY} on the given connection.
+     *
+     * @param connection the connection
+     * @param sql the copy statement
+     * @return the copy operation
+     * @throws SQLException if the copy cannot be started
+     */
+    protected CopyIn copyIn(Connection connection, String sql) throws SQLException {
+        return connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql);
+    }
+
+    void encodeRow(Object[] values, StringBuilder sb) {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                sb.append(format == Format.CSV ? ',' : '\t');
+            }
+            Object value = values[i];
+            if (value == null) {
+                if (format == Format.TEXT) {
+                    sb.append("\\N");
+                }
+            } else if (format == Format.CSV) {
+                encodeCsv(value.toString(), sb);
+            } else {
+                encodeText(value.toString(), sb);
+            }
+        }
+        sb.append('\n');
+    }
+
+    private static void encodeCsv(String value, StringBuilder sb) {
+        boolean quote = value.isEmpty();
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r' || c == '\\';
+        }
+        if (!quote) {
+            sb.append(value);
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                sb.append('"');
+            }
+            sb.append(c);
+        }
+        sb.append('"');
+    }
+
+    private static void encodeText(String value, StringBuilder sb) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                default:
+                    sb.append(c);
+            }
+        }
+    }
+}
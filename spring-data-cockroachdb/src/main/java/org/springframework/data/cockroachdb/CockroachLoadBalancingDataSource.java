@@ -0,0 +1,442 @@
+package org.springframework.data.cockroachdb;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.util.Assert;
+
+/**
+ * Client-side load balancing data source over one connection pool per gateway node.
+ * <p>
+ * Each connection request is served by the healthy endpoint with the lowest score, which
+ * is either the number of outstanding (checked out) connections or the outstanding count
+ * weighted by an exponentially weighted moving average of connection hold times, see
+ * {@link Selection}. Endpoints are probed in the background and ejected after consecutive
+ * probe or connection failures, and reinstated once a probe succeeds. New or reinstated
+ * endpoints are ramped up linearly during a slow-start period to avoid a thundering herd
+ * against a cold node.
+ * <p>
+ * If all endpoints are ejected, the request is served by any endpoint rather than failing.
+ * A failed connection attempt fails over to the next best endpoint, trying each endpoint
+ * at most once per request.
+ */
+public class CockroachLoadBalancingDataSource extends AbstractDataSource implements Closeable {
+    /**
+     * Endpoint selection strategies.
+     */
+    public enum Selection {
+        /**
+         * Least outstanding connections.
+         */
+        LEAST_OUTSTANDING,
+        /**
+         * Least outstanding connections weighted by the average connection hold time.
+         */
+        EWMA_LATENCY
+    }
+
+    /**
+     * Health probe for an endpoint.
+     */
+    @FunctionalInterface
+    public interface HealthProbe {
+        /**
+         * @param endpoint the endpoint to probe
+         * @throws Exception if the endpoint is unhealthy
+         */
+        void probe(Endpoint endpoint) throws Exception;
+
+        /**
+         * @param timeoutMillis the connect timeout
+         * @return a probe that opens a TCP connection to the endpoint address
+         */
+        static HealthProbe socket(int timeoutMillis) {
+            return endpoint -> {
+                try (Socket socket = new Socket()) {
+                    socket.connect(new InetSocketAddress(endpoint.getHost(), endpoint.getPort()), timeoutMillis);
+                }
+            };
+        }
+    }
+
+    protected final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final List<Endpoint> endpoints = new CopyOnWriteArrayList<>();
+
+    private Selection selection = Selection.LEAST_OUTSTANDING;
+
+    private HealthProbe healthProbe = HealthProbe.socket(1000);
+
+    private int maxFailures = 3;
+
+    private long slowStartMillis = 30_000;
+
+    private double ewmaAlpha = 0.2;
+
+    private ScheduledExecutorService probeScheduler;
+
+    public void setSelection(Selection selection) {
+        Assert.notNull(selection, "selection is null");
+        this.selection = selection;
+    }
+
+    public void setHealthProbe(HealthProbe healthProbe) {
+        Assert.notNull(healthProbe, "healthProbe is null");
+        this.healthProbe = healthProbe;
+    }
+
+    /**
+     * @param maxFailures number of consecutive failures before an endpoint is ejected
+     */
+    public void setMaxFailures(int maxFailures) {
+        Assert.isTrue(maxFailures > 0, "maxFailures must be > 0");
+        this.maxFailures = maxFailures;
+    }
+
+    /**
+     * @param slowStartMillis ramp-up period for new or reinstated endpoints, 0 to disable
+     */
+    public void setSlowStartMillis(long slowStartMillis) {
+        Assert.isTrue(slowStartMillis >= 0, "slowStartMillis must be >= 0");
+        this.slowStartMillis = slowStartMillis;
+    }
+
+    /**
+     * @param ewmaAlpha the smoothing factor for connection hold times (0-1]
+     */
+    public void setEwmaAlpha(double ewmaAlpha) {
+        Assert.isTrue(ewmaAlpha > 0 && ewmaAlpha <= 1, "ewmaAlpha must be in range (0-1]");
+        this.ewmaAlpha = ewmaAlpha;
+    }
+
+    /**
+     * Add an endpoint at full weight.
+     *
+     * @param host the gateway host used for probes
+     * @param port the gateway port used for probes
+     * @param dataSource the connection pool for the gateway
+     * @return the endpoint
+     */
+    public Endpoint addEndpoint(String host, int port, DataSource dataSource) {
+        return addEndpoint(host, port, dataSource, false);
+    }
+
+    /**
+     * Add an endpoint, optionally subject to slow-start which is typically
+     * used when a node joins a pool that is already serving traffic.
+     *
+     * @param host the gateway host used for probes
+     * @param port the gateway port used for probes
+     * @param dataSource the connection pool for the gateway
+     * @param slowStart ramp up the endpoint weight
+     * @return the endpoint
+     */
+    public Endpoint addEndpoint(String host, int port, DataSource dataSource, boolean slowStart) {
+        Endpoint endpoint = new Endpoint(host, port, dataSource);
+        if (slowStart) {
+            endpoint.startTime = System.currentTimeMillis();
+        }
+        endpoints.add(endpoint);
+        logger.info("Added endpoint {}", endpoint);
+        return endpoint;
+    }
+
+    /**
+     * Remove an endpoint. Outstanding connections are not affected.
+     *
+     * @param endpoint the endpoint
+     */
+    public void removeEndpoint(Endpoint endpoint) {
+        if (endpoints.remove(endpoint)) {
+            logger.info("Removed endpoint {}", endpoint);
+        }
+    }
+
+    public List<Endpoint> getEndpoints() {
+        return List.copyOf(endpoints);
+    }
+
+    /**
+     * Start background health probes.
+     *
+     * @param interval the probe interval
+     * @param unit the interval unit
+     */
+    public synchronized void startHealthProbes(long interval, TimeUnit unit) {
+        if (probeScheduler == null) {
+            probeScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "cockroach-health-probe");
+                thread.setDaemon(true);
+                return thread;
+            });
+            probeScheduler.scheduleWithFixedDelay(this::probe, interval, interval, unit);
+        }
+    }
+
+    /**
+     * Probe all endpoints once, ejecting or reinstating endpoints as needed.
+     */
+    public void probe() {
+        for (Endpoint endpoint : endpoints) {
+            try {
+                healthProbe.probe(endpoint);
+                endpoint.onSuccess();
+            } catch (Exception e) {
+                endpoint.onFailure(e);
+            }
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return getConnection(null, null);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        // Consistent snapshot, since endpoints may be removed concurrently
+        Endpoint[] snapshot = endpoints.toArray(new Endpoint[0]);
+        boolean[] tried = new boolean[snapshot.length];
+
+        SQLException lastException = null;
+
+        for (int attempt = 0; attempt < snapshot.length; attempt++) {
+            int index = selectEndpoint(snapshot, tried);
+            Endpoint endpoint = snapshot[index];
+            tried[index] = true;
+
+            endpoint.outstanding.incrementAndGet();
+            try {
+                Connection connection = username != null
+                        ? endpoint.dataSource.getConnection(username, password)
+                        : endpoint.dataSource.getConnection();
+                endpoint.consecutiveFailures.set(0);
+                return endpoint.wrap(connection);
+            } catch (SQLException e) {
+                endpoint.outstanding.decrementAndGet();
+                endpoint.onFailure(e);
+                lastException = e;
+            }
+        }
+
+        if (lastException != null) {
+            throw lastException;
+        }
+        throw new SQLException("No endpoints available");
+    }
+
+    /**
+     * Select the best endpoint not tried yet, at least one must remain.
+     */
+    private int selectEndpoint(Endpoint[] snapshot, boolean[] tried) {
+        int n = snapshot.length;
+
+        long now = System.currentTimeMillis();
+        int offset = ThreadLocalRandom.current().nextInt(n);
+
+        int best = -1;
+        int fallback = -1;
+        double bestScore = Double.MAX_VALUE;
+
+        // Random start offset to break ties evenly
+        for (int i = 0; i < n; i++) {
+            int index = (i + offset) % n;
+            if (tried[index]) {
+                continue;
+            }
+            Endpoint endpoint = snapshot[index];
+            if (endpoint.healthy) {
+                double score = endpoint.score(now);
+                if (score < bestScore) {
+                    best = index;
+                    bestScore = score;
+                }
+            } else if (fallback < 0) {
+                fallback = index;
+            }
+        }
+
+        if (best < 0) {
+            best = fallback;
+            logger.warn("No healthy endpoints - falling back to {}", snapshot[best]);
+        }
+
+        return best;
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (probeScheduler != null) {
+                probeScheduler.shutdownNow();
+                probeScheduler = null;
+            }
+        }
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint.dataSource instanceof Closeable) {
+                try {
+                    ((Closeable) endpoint.dataSource).close();
+                } catch (IOException e) {
+                    logger.warn("Error closing endpoint " + endpoint, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * A gateway node endpoint and its connection pool.
+     */
+    public class Endpoint {
+        private final String host;
+
+        private final int port;
+
+        private final DataSource dataSource;
+
+        private final AtomicInteger outstanding = new AtomicInteger();
+
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+        private final AtomicLong ewmaHoldNanos = new AtomicLong(Double.doubleToLongBits(0));
+
+        private volatile boolean healthy = true;
+
+        private volatile long startTime;
+
+        Endpoint(String host, int port, DataSource dataSource) {
+            this.host = host;
+            this.port = port;
+            this.dataSource = dataSource;
+        }
+
+        public String getHost() {
+            return host;
+        }
+
+        public int getPort() {
+            return port;
+        }
+
+        public DataSource getDataSource() {
+            return dataSource;
+        }
+
+        public int getOutstanding() {
+            return outstanding.get();
+        }
+
+        public boolean isHealthy() {
+            return healthy;
+        }
+
+        public double getEwmaHoldMillis() {
+            return Double.longBitsToDouble(ewmaHoldNanos.get()) / 1_000_000.0;
+        }
+
+        /**
+         * @return the slow-start weight in range (0-1]
+         */
+        public double getWeight() {
+            return weight(System.currentTimeMillis());
+        }
+
+        private double weight(long now) {
+            if (slowStartMillis == 0) {
+                return 1;
+            }
+            long elapsed = now - startTime;
+            return elapsed >= slowStartMillis ? 1 : Math.max(0.1, (double) elapsed / slowStartMillis);
+        }
+
+        private double score(long now) {
+            double load = outstanding.get() + 1;
+            if (selection == Selection.EWMA_LATENCY) {
+                load *= 1 + Double.longBitsToDouble(ewmaHoldNanos.get()) / 1_000_000.0;
+            }
+            return load / weight(now);
+        }
+
+        private void onSuccess() {
+            consecutiveFailures.set(0);
+            if (!healthy) {
+                startTime = System.currentTimeMillis();
+                healthy = true;
+                logger.info("Reinstated endpoint {}", this);
+            }
+        }
+
+        private void onFailure(Exception e) {
+            if (consecutiveFailures.incrementAndGet() >= maxFailures && healthy) {
+                healthy = false;
+                logger.warn("Ejected endpoint {} after {} consecutive failures: {}",
+                        this, consecutiveFailures.get(), e.toString());
+            }
+        }
+
+        private void release(long holdNanos) {
+            outstanding.decrementAndGet();
+
+            long prev;
+            long next;
+            do {
+                prev = ewmaHoldNanos.get();
+                double avg = Double.longBitsToDouble(prev);
+                next = Double.doubleToLongBits(avg + ewmaAlpha * (holdNanos - avg));
+            } while (!ewmaHoldNanos.compareAndSet(prev, next));
+        }
+
+        private Connection wrap(Connection target) {
+            final long checkoutTime = System.nanoTime();
+            final AtomicBoolean closed = new AtomicBoolean();
+
+            return (Connection) Proxy.newProxyInstance(CockroachLoadBalancingDataSource.class.getClassLoader(),
+                    new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "close":
+                                if (closed.compareAndSet(false, true)) {
+                                    release(System.nanoTime() - checkoutTime);
+                                }
+                                break;
+                            case "equals":
+                                return proxy == args[0];
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            case "toString":
+                                return "LoadBalanced proxy for target Connection [" + target + "] on " + this;
+                            default:
+                                break;
+                        }
+                        try {
+                            return method.invoke(target, args);
+                        } catch (InvocationTargetException ex) {
+                            throw ex.getTargetException();
+                        }
+                    });
+        }
+
+        @Override
+        public String toString() {
+            return host + ":" + port + " (outstanding=" + outstanding.get() + ", healthy=" + healthy + ")";
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package org.springframework.data.cockroachdb;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+
+import org.postgresql.util.PSQLState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.data.cockroachdb.aspect.BackoffMode;
+import org.springframework.data.cockroachdb.aspect.BackoffPolicy;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+
+/**
+ * Parallel bulk loader that splits rows from a supplier into chunks and writes the chunks
+ * concurrently over a fixed number of workers, each using its own connection.
+ * <p>
+ * Rows are pulled from the supplier on the calling thread only, so the supplier need not be
+ * thread safe, and any keys assigned by the supplier end up in disjoint ranges per chunk.
+ * The calling thread blocks while all workers are busy, which applies backpressure from the
+ * database and connection pool to the supplier.
+ * <p>
+ * Each chunk is written in a separate transaction when a transaction manager is set, which
+ * makes chunks atomic and therefore safe to retry. Chunks are retried with backoff on
+ * serialization failures (40001) and on connection pool timeouts. On a non-retryable
+ * failure no further chunks are submitted and the failure is rethrown once in-flight
+ * chunks have completed.
+ *
+ * @param <T> the row type
+ */
+public class CockroachParallelLoader<T> {
+    /**
+     * Writer of a chunk of rows.
+     *
+     * @param <T> the row type
+     */
+    @FunctionalInterface
+    public interface ChunkWriter<T> {
+        void write(List<T> chunk);
+    }
+
+    /**
+     * Load statistics.
+     */
+    public static final class Result {
+        private final long rows;
+
+        private final int chunks;
+
+        private final int retries;
+
+        private final long elapsedMillis;
+
+        Result(long rows, int chunks, int retries, long elapsedMillis) {
+            this.rows = rows;
+            this.chunks = chunks;
+            this.retries = retries;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public int getChunks() {
+            return chunks;
+        }
+
+        public int getRetries() {
+            return retries;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        public double getRowsPerSecond() {
+            return rows * 1000.0 / Math.max(1, elapsedMillis);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d rows in %d chunks with %d retries in %d ms (%.0f rows/s)",
+                    rows, chunks, retries, elapsedMillis, getRowsPerSecond());
+        }
+    }
+
+    protected final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final int workers;
+
+    private TransactionTemplate transactionTemplate;
+
+    private int maxRetries = 10;
+
+    private BackoffPolicy backoffPolicy = BackoffMode.FULL_JITTER.createPolicy(50, 2.0, 5000);
+
+    private LongConsumer progressListener = rows -> {
+    };
+
+    /**
+     * @param workers number of concurrent workers, which should not exceed the connection pool size
+     */
+    public CockroachParallelLoader(int workers) {
+        Assert.isTrue(workers > 0, "workers must be > 0");
+        this.workers = workers;
+    }
+
+    /**
+     * @param transactionManager transaction manager for writing each chunk in a separate transaction
+     */
+    public CockroachParallelLoader<T> withTransactionManager(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return this;
+    }
+
+    public CockroachParallelLoader<T> withMaxRetries(int maxRetries) {
+        Assert.isTrue(maxRetries >= 0, "maxRetries must be >= 0");
+        this.maxRetries = maxRetries;
+        return this;
+    }
+
+    public CockroachParallelLoader<T> withBackoffPolicy(BackoffPolicy backoffPolicy) {
+        Assert.notNull(backoffPolicy, "backoffPolicy is null");
+        this.backoffPolicy = backoffPolicy;
+        return this;
+    }
+
+    /**
+     * @param progressListener callback with the total number of rows written, after each chunk
+     */
+    public CockroachParallelLoader<T> withProgressListener(LongConsumer progressListener) {
+        Assert.notNull(progressListener, "progressListener is null");
+        this.progressListener = progressListener;
+        return this;
+    }
+
+    /**
+     * Load rows in parallel chunks.
+     *
+     * @param numRows number of rows to pull from the supplier
+     * @param chunkSize max number of rows per chunk
+     * @param supplier the row supplier, only invoked by the calling thread
+     * @param writer the chunk writer, invoked concurrently
+     * @return the load statistics
+     */
+    public Result load(int numRows, int chunkSize, Supplier<T> supplier, ChunkWriter<T> writer) {
+        Assert.isTrue(chunkSize > 0, "chunkSize must be > 0");
+
+        final long startTime = System.currentTimeMillis();
+        final Semaphore inFlight = new Semaphore(workers);
+        final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        final AtomicLong rowsWritten = new AtomicLong();
+        final AtomicInteger chunksWritten = new AtomicInteger();
+        final AtomicInteger retries = new AtomicInteger();
+
+        final AtomicInteger threadCount = new AtomicInteger();
+        final ExecutorService executorService = Executors.newFixedThreadPool(workers, r -> {
+            Thread thread = new Thread(r, "cockroach-loader-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            for (int offset = 0; offset < numRows && failure.get() == null; offset += chunkSize) {
+                final List<T> chunk = new ArrayList<>(Math.min(chunkSize, numRows - offset));
+                for (int i = 0; i < chunkSize && offset + i < numRows; i++) {
+                    chunk.add(supplier.get());
+                }
+
+                // Backpressure: block while all workers are busy
+                inFlight.acquireUninterruptibly();
+
+                executorService.execute(() -> {
+                    try {
+                        retries.addAndGet(writeChunk(chunk, writer));
+                        chunksWritten.incrementAndGet();
+                        progressListener.accept(rowsWritten.addAndGet(chunk.size()));
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+
+            // Await in-flight chunks
+            inFlight.acquireUninterruptibly(workers);
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+
+        Result result = new Result(rowsWritten.get(), chunksWritten.get(), retries.get(),
+                System.currentTimeMillis() - startTime);
+        logger.info("Loaded {} using {} workers", result, workers);
+        return result;
+    }
+
+    private int writeChunk(List<T> chunk, ChunkWriter<T> writer) {
+        long backoffMillis = 0;
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                if (transactionTemplate != null) {
+                    transactionTemplate.executeWithoutResult(status -> writer.write(chunk));
+                } else {
+                    writer.write(chunk);
+                }
+                return attempt - 1;
+            } catch (RuntimeException e) {
+                if (attempt > maxRetries || !isRetryable(e)) {
+                    throw e;
+                }
+
+                backoffMillis = backoffPolicy.backoffMillis(attempt, backoffMillis);
+                logger.debug("Transient error writing chunk of {} rows (attempt {}) - backing off {} ms: {}",
+                        chunk.size(), attempt, backoffMillis, e.toString());
+
+                try {
+                    Thread.sleep(backoffMillis);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    protected boolean isRetryable(RuntimeException e) {
+        if (e instanceof ConcurrencyFailureException) {
+            return true;
+        }
+        Throwable cause = NestedExceptionUtils.getMostSpecificCause(e);
+        if (cause instanceof SQLTransientConnectionException) {
+            return true;
+        }
+        return cause instanceof SQLException
+                && PSQLState.SERIALIZATION_FAILURE.getState().equals(((SQLException) cause).getSQLState());
+    }
+}
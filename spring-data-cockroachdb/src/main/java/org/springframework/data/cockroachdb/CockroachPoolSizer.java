@@ -0,0 +1,224 @@
+package org.springframework.data.cockroachdb;
+
+import java.io.Closeable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.Assert;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+
+/**
+ * Cluster-aware connection pool sizer that derives the pool size from the cluster capacity,
+ * following the guidance of roughly 4 active connections per vCPU across the cluster,
+ * divided among the application instances:
+ * <pre>
+ * poolSize = connectionsPerVcpu * clusterVcpus / instances
+ * </pre>
+ * The pool size is clamped to a floor and ceiling, and applied at runtime through the
+ * {@link HikariConfigMXBean}. The capacity is queried once on {@link #resize()} and
+ * optionally periodically, to follow cluster scaling.
+ * <p>
+ * The vCPU count is not exposed through SQL in a stable way, so by default it is estimated
+ * from the number of live nodes times the configured vCPUs per node. A query returning the
+ * total number of vCPUs can be provided instead.
+ */
+public class CockroachPoolSizer implements Closeable {
+    /**
+     * Snapshot of the cluster capacity.
+     */
+    public static final class Capacity {
+        private final int nodes;
+
+        private final int vcpus;
+
+        public Capacity(int nodes, int vcpus) {
+            this.nodes = nodes;
+            this.vcpus = vcpus;
+        }
+
+        public int getNodes() {
+            return nodes;
+        }
+
+        public int getVcpus() {
+            return vcpus;
+        }
+
+        @Override
+        public String toString() {
+            return "Capacity{nodes=" + nodes + ", vcpus=" + vcpus + '}';
+        }
+    }
+
+    public static final String DEFAULT_NODE_QUERY = "SELECT count(1) FROM crdb_internal.gossip_nodes WHERE is_live";
+
+    protected final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final DataSource dataSource;
+
+    private final HikariConfigMXBean poolConfig;
+
+    private int instances = 1;
+
+    private int connectionsPerVcpu = 4;
+
+    private int vcpusPerNode = 4;
+
+    private int minPoolSize = 1;
+
+    private int maxPoolSize = 500;
+
+    private String nodeQuery = DEFAULT_NODE_QUERY;
+
+    private String vcpuQuery;
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param dataSource the data source to query cluster capacity, typically the pool itself
+     * @param poolConfig the pool to resize
+     */
+    public CockroachPoolSizer(DataSource dataSource, HikariConfigMXBean poolConfig) {
+        Assert.notNull(dataSource, "dataSource is null");
+        Assert.notNull(poolConfig, "poolConfig is null");
+        this.dataSource = dataSource;
+        this.poolConfig = poolConfig;
+    }
+
+    /**
+     * @param instances expected number of application instances sharing the cluster
+     */
+    public void setInstances(int instances) {
+        Assert.isTrue(instances > 0, "instances must be > 0");
+        this.instances = instances;
+    }
+
+    public void setConnectionsPerVcpu(int connectionsPerVcpu) {
+        Assert.isTrue(connectionsPerVcpu > 0, "connectionsPerVcpu must be > 0");
+        this.connectionsPerVcpu = connectionsPerVcpu;
+    }
+
+    public void setVcpusPerNode(int vcpusPerNode) {
+        Assert.isTrue(vcpusPerNode > 0, "vcpusPerNode must be > 0");
+        this.vcpusPerNode = vcpusPerNode;
+    }
+
+    /**
+     * @param minPoolSize the pool size floor
+     * @param maxPoolSize the pool size ceiling
+     */
+    public void setPoolSizeLimits(int minPoolSize, int maxPoolSize) {
+        Assert.isTrue(minPoolSize > 0, "minPoolSize must be > 0");
+        Assert.isTrue(maxPoolSize >= minPoolSize, "maxPoolSize must be >= minPoolSize");
+        this.minPoolSize = minPoolSize;
+        this.maxPoolSize = maxPoolSize;
+    }
+
+    /**
+     * @param nodeQuery query returning the number of live nodes
+     */
+    public void setNodeQuery(String nodeQuery) {
+        Assert.hasLength(nodeQuery, "nodeQuery is empty");
+        this.nodeQuery = nodeQuery;
+    }
+
+    /**
+     * @param vcpuQuery query returning the total number of vCPUs, or null to estimate from node count
+     */
+    public void setVcpuQuery(String vcpuQuery) {
+        this.vcpuQuery = vcpuQuery;
+    }
+
+    /**
+     * @return the current cluster capacity
+     */
+    protected Capacity queryCapacity() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        Integer nodes = jdbcTemplate.queryForObject(nodeQuery, Integer.class);
+        Integer vcpus = vcpuQuery != null
+                ? jdbcTemplate.queryForObject(vcpuQuery, Integer.class)
+                : null;
+
+        int n = nodes != null ? nodes : 1;
+        return new Capacity(n, vcpus != null ? vcpus : n * vcpusPerNode);
+    }
+
+    /**
+     * @param capacity the cluster capacity
+     * @return the pool size for this instance, within the configured limits
+     */
+    public int computePoolSize(Capacity capacity) {
+        int poolSize = (int) Math.ceil((double) connectionsPerVcpu * capacity.getVcpus() / instances);
+        return Math.max(minPoolSize, Math.min(maxPoolSize, poolSize));
+    }
+
+    /**
+     * Query the cluster capacity and resize the pool if needed.
+     *
+     * @return the resulting maximum pool size
+     */
+    public synchronized int resize() {
+        Capacity capacity = queryCapacity();
+
+        int currentSize = poolConfig.getMaximumPoolSize();
+        int currentIdle = poolConfig.getMinimumIdle();
+        int poolSize = computePoolSize(capacity);
+
+        if (poolSize != currentSize) {
+            // Fixed size pools stay fixed, otherwise idle connections are capped
+            int minimumIdle = currentIdle == currentSize ? poolSize : Math.min(currentIdle, poolSize);
+
+            if (poolSize > currentSize) {
+                poolConfig.setMaximumPoolSize(poolSize);
+                poolConfig.setMinimumIdle(minimumIdle);
+            } else {
+                poolConfig.setMinimumIdle(minimumIdle);
+                poolConfig.setMaximumPoolSize(poolSize);
+            }
+
+            logger.info("Resized pool from {} to {} (minimum idle {}) for {} and {} instance(s)",
+                    currentSize, poolSize, minimumIdle, capacity, instances);
+        }
+
+        return poolSize;
+    }
+
+    /**
+     * Start periodic resizing.
+     *
+     * @param interval the resize interval
+     * @param unit the interval unit
+     */
+    public synchronized void start(long interval, TimeUnit unit) {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "cockroach-pool-sizer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(() -> {
+                try {
+                    resize();
+                } catch (RuntimeException e) {
+                    logger.warn("Unable to resize pool: {}", e.toString());
+                }
+            }, interval, interval, unit);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+}
@@ -1,12 +1,24 @@
 package org.springframework.data.cockroachdb;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Driver;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 import javax.sql.DataSource;
 
 import org.postgresql.PGProperty;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.util.ClassUtils;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
@@ -37,6 +49,8 @@ public abstract class CockroachPooledDataSource {
 
         private boolean traceSQL;
 
+        private boolean sessionStateCache;
+
         private int maxPoolSize = 50;
 
         private int minimumIdle = 25;
@@ -65,9 +79,67 @@ public abstract class CockroachPooledDataSource {
 
         private Consumer<HikariConfig> hikariConfigurer;
 
+        private Consumer<Builder> readPoolConfigurer;
+
+        private final Map<String, Consumer<Builder>> regionPoolConfigurers = new LinkedHashMap<>();
+
+        private final List<String> gatewayUrls = new ArrayList<>();
+
+        private CockroachLoadBalancingDataSource.Selection selection
+                = CockroachLoadBalancingDataSource.Selection.LEAST_OUTSTANDING;
+
+        private long healthProbeIntervalMillis = 5000;
+
+        private int autoSizeInstances;
+
+        private int autoSizeMinPoolSize;
+
+        private int autoSizeMaxPoolSize;
+
+        private long autoSizeIntervalMillis = 300_000;
+
+        private CockroachWarmUp warmUp;
+
+        private SamplingQueryTracer sqlTracer;
+
+        private boolean virtualThreads;
+
         private Builder() {
         }
 
+        private Builder copy() {
+            Builder copy = new Builder();
+            copy.autoCommit = autoCommit;
+            copy.url = url;
+            copy.username = username;
+            copy.password = password;
+            copy.traceMethods = traceMethods;
+            copy.traceSQL = traceSQL;
+            copy.sessionStateCache = sessionStateCache;
+            copy.maxPoolSize = maxPoolSize;
+            copy.minimumIdle = minimumIdle;
+            copy.slf4jLoggerName = slf4jLoggerName;
+            copy.rewriteBatchedInserts = rewriteBatchedInserts;
+            copy.retryTransientErrors = retryTransientErrors;
+            copy.implicitSelectForUpdate = implicitSelectForUpdate;
+            copy.retryMaxAttempts = retryMaxAttempts;
+            copy.retryMaxBackoffTime = retryMaxBackoffTime;
+            copy.retryStrategyClassName = retryStrategyClassName;
+            copy.properties.putAll(properties);
+            copy.hikariConfigurer = hikariConfigurer;
+            copy.gatewayUrls.addAll(gatewayUrls);
+            copy.selection = selection;
+            copy.healthProbeIntervalMillis = healthProbeIntervalMillis;
+            copy.autoSizeInstances = autoSizeInstances;
+            copy.autoSizeMinPoolSize = autoSizeMinPoolSize;
+            copy.autoSizeMaxPoolSize = autoSizeMaxPoolSize;
+            copy.autoSizeIntervalMillis = autoSizeIntervalMillis;
+            copy.warmUp = warmUp;
+            copy.sqlTracer = sqlTracer;
+            copy.virtualThreads = virtualThreads;
+            return copy;
+        }
+
         public Builder withAutoCommit(boolean autoCommit) {
             this.autoCommit = autoCommit;
             return this;
@@ -98,6 +170,15 @@ public abstract class CockroachPooledDataSource {
             return this;
         }
 
+        /**
+         * Enables tracking of session variables per physical connection, see {@link SessionState}.
+         * Disabled by default.
+         */
+        public Builder withSessionStateCache(boolean sessionStateCache) {
+            this.sessionStateCache = sessionStateCache;
+            return this;
+        }
+
         public Builder setMaxPoolSize(int maxPoolSize) {
             this.maxPoolSize = maxPoolSize;
             return this;
@@ -108,6 +189,45 @@ public abstract class CockroachPooledDataSource {
             return this;
         }
 
+        /**
+         * Enables cluster-aware pool sizing, see {@link CockroachPoolSizer}. The pool is
+         * resized at startup and periodically, overriding the configured pool size.
+         *
+         * @param instances expected number of application instances sharing the cluster
+         * @param minPoolSize the pool size floor
+         * @param maxPoolSize the pool size ceiling
+         */
+        public Builder withPoolAutoSizing(int instances, int minPoolSize, int maxPoolSize) {
+            this.autoSizeInstances = instances;
+            this.autoSizeMinPoolSize = minPoolSize;
+            this.autoSizeMaxPoolSize = maxPoolSize;
+            return this;
+        }
+
+        public Builder withPoolAutoSizingInterval(long autoSizeIntervalMillis) {
+            this.autoSizeIntervalMillis = autoSizeIntervalMillis;
+            return this;
+        }
+
+        /**
+         * Warms up the pool before it is returned from {@link #build()}, and prepares the hot
+         * statements on every new physical connection, see {@link CockroachWarmUp}.
+         */
+        public Builder withWarmUp(CockroachWarmUp warmUp) {
+            this.warmUp = warmUp;
+            return this;
+        }
+
+        /**
+         * Enables virtual thread mode, which puts an {@link AdmissionGateDataSource} sized to
+         * the current max pool size in front of each pool. Requires pgjdbc 42.6.0 or later
+         * to avoid pinning carrier threads during queries.
+         */
+        public Builder withVirtualThreads(boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+            return this;
+        }
+
         public Builder withRetryTransientErrors(boolean retryTransientErrors) {
             this.retryTransientErrors = retryTransientErrors;
             return this;
@@ -138,6 +258,16 @@ public abstract class CockroachPooledDataSource {
             return this;
         }
 
+        /**
+         * Traces SQL statements with a sampling tracer instead of logging every statement
+         * when {@link #withTraceSQL(boolean)} is enabled, and has no effect otherwise.
+         * The tracer is started with the pool.
+         */
+        public Builder withSqlTracer(SamplingQueryTracer sqlTracer) {
+            this.sqlTracer = sqlTracer;
+            return this;
+        }
+
         public Builder withSlf4jLoggerName(String slf4jLoggerName) {
             this.slf4jLoggerName = slf4jLoggerName;
             return this;
@@ -153,7 +283,81 @@ public abstract class CockroachPooledDataSource {
             return this;
         }
 
+        /**
+         * Adds a separate pool for read-only and time travel transaction boundaries and
+         * builds a {@link CockroachRoutingDataSource} instead. The read pool inherits all settings
+         * of this builder, which can be overridden by the configurer, for example to point
+         * at the local region gateway nodes or to size the pool independently.
+         */
+        public Builder withReadPool(Consumer<Builder> readPoolConfigurer) {
+            this.readPoolConfigurer = readPoolConfigurer;
+            return this;
+        }
+
+        /**
+         * Builds one pool per gateway node URL behind a {@link CockroachLoadBalancingDataSource}
+         * instead of a single pool for {@link #withUrl(String)}. The pool size and minimum idle
+         * settings are divided evenly across the nodes.
+         */
+        public Builder withGatewayUrls(List<String> gatewayUrls) {
+            this.gatewayUrls.clear();
+            this.gatewayUrls.addAll(gatewayUrls);
+            return this;
+        }
+
+        public Builder withGatewaySelection(CockroachLoadBalancingDataSource.Selection selection) {
+            this.selection = selection;
+            return this;
+        }
+
+        public Builder withHealthProbeInterval(long healthProbeIntervalMillis) {
+            this.healthProbeIntervalMillis = healthProbeIntervalMillis;
+            return this;
+        }
+
+        /**
+         * Adds a separate pool for {@link org.springframework.data.cockroachdb.annotations.RegionAffinity}
+         * operations in the given region and builds a {@link CockroachRegionRoutingDataSource}
+         * instead. The region pool inherits all settings of this builder, which can be overridden
+         * by the configurer, typically to point at the gateway nodes in that region. Unknown regions
+         * fall back to the pool of this builder.
+         */
+        public Builder withRegionPool(String region, Consumer<Builder> regionPoolConfigurer) {
+            this.regionPoolConfigurers.put(region, regionPoolConfigurer);
+            return this;
+        }
+
         public DataSource build() {
+            DataSource dataSource = buildRegionPools();
+            if (readPoolConfigurer != null) {
+                Builder readPoolBuilder = copy();
+                readPoolConfigurer.accept(readPoolBuilder);
+                dataSource = new CockroachRoutingDataSource(dataSource, readPoolBuilder.buildPool());
+            }
+            if (warmUp != null) {
+                warmUp.setReady(true);
+            }
+            return dataSource;
+        }
+
+        private DataSource buildRegionPools() {
+            if (regionPoolConfigurers.isEmpty()) {
+                return buildPool();
+            }
+            Map<String, DataSource> regionDataSources = new LinkedHashMap<>();
+            regionPoolConfigurers.forEach((region, configurer) -> {
+                Builder regionPoolBuilder = copy();
+                configurer.accept(regionPoolBuilder);
+                regionDataSources.put(region, regionPoolBuilder.buildPool());
+            });
+            return new CockroachRegionRoutingDataSource(regionDataSources, buildPool());
+        }
+
+        private DataSource buildPool() {
+            if (!gatewayUrls.isEmpty()) {
+                return buildLoadBalancedPool();
+            }
+
             HikariConfig config = new HikariConfig();
             config.setJdbcUrl(url);
             config.setUsername(username);
@@ -188,19 +392,142 @@ public abstract class CockroachPooledDataSource {
                 hikariConfigurer.accept(config);
             }
 
+            // Prepare hot statements on each new physical connection, below the session state
+            final boolean prepareOnConnect = warmUp != null && config.getDataSource() == null;
+
+            if ((sessionStateCache || prepareOnConnect) && config.getDataSource() == null) {
+                DataSource physicalDataSource = buildPhysicalDataSource(config);
+                if (prepareOnConnect) {
+                    physicalDataSource = warmUp.preparing(physicalDataSource);
+                }
+                if (sessionStateCache) {
+                    physicalDataSource = new SessionStateDataSource(physicalDataSource);
+                }
+                config.setDataSource(physicalDataSource);
+            }
+
+            CockroachHikariDataSource hikariDataSource = new CockroachHikariDataSource(config);
+
+            if (autoSizeInstances > 0) {
+                CockroachPoolSizer poolSizer = new CockroachPoolSizer(hikariDataSource,
+                        hikariDataSource.getHikariConfigMXBean());
+                poolSizer.setInstances(autoSizeInstances);
+                poolSizer.setPoolSizeLimits(autoSizeMinPoolSize, autoSizeMaxPoolSize);
+                try {
+                    poolSizer.resize();
+                } catch (RuntimeException e) {
+                    LoggerFactory.getLogger(CockroachPoolSizer.class)
+                            .warn("Unable to size pool at startup: {}", e.toString());
+                }
+                poolSizer.start(autoSizeIntervalMillis, TimeUnit.MILLISECONDS);
+                hikariDataSource.closeWith(poolSizer);
+            }
+
+            if (warmUp != null) {
+                warmUp.warmUp(hikariDataSource, hikariDataSource.getMinimumIdle(), !prepareOnConnect);
+            }
+
+            DataSource dataSource = buildTracedPool(hikariDataSource);
+
+            if (virtualThreads) {
+                // Follows the pool through auto-sizing and JMX resizes
+                return new AdmissionGateDataSource(dataSource,
+                        hikariDataSource.getHikariConfigMXBean()::getMaximumPoolSize);
+            }
+
+            return dataSource;
+        }
+
+        private DataSource buildPhysicalDataSource(HikariConfig config) {
+            Class<?> driverClass = ClassUtils.resolveClassName(config.getDriverClassName(),
+                    ClassUtils.getDefaultClassLoader());
+
+            Properties connectionProperties = new Properties();
+            connectionProperties.putAll(config.getDataSourceProperties());
+
+            SimpleDriverDataSource physicalDataSource = new SimpleDriverDataSource(
+                    (Driver) BeanUtils.instantiateClass(driverClass),
+                    config.getJdbcUrl(), config.getUsername(), config.getPassword());
+            physicalDataSource.setConnectionProperties(connectionProperties);
+            return physicalDataSource;
+        }
+
+        private DataSource buildTracedPool(HikariDataSource hikariDataSource) {
             if (traceMethods || traceSQL) {
                 ProxyDataSourceBuilder builder = ProxyDataSourceBuilder
-                        .create(new HikariDataSource(config))
+                        .create(hikariDataSource)
                         .traceMethodsWhen(() -> traceMethods);
                 if (traceSQL) {
-                    builder.logQueryBySlf4j(SLF4JLogLevel.TRACE, slf4jLoggerName)
-                            .asJson()
-                            .multiline();
+                    if (sqlTracer != null) {
+                        sqlTracer.start(1, TimeUnit.SECONDS);
+                        builder.listener(sqlTracer);
+                    } else {
+                        builder.logQueryBySlf4j(SLF4JLogLevel.TRACE, slf4jLoggerName)
+                                .asJson()
+                                .multiline();
+                    }
                 }
                 return builder.build();
             }
 
-            return new HikariDataSource(config);
+            return hikariDataSource;
+        }
+
+        private DataSource buildLoadBalancedPool() {
+            CockroachLoadBalancingDataSource loadBalancingDataSource = new CockroachLoadBalancingDataSource();
+            loadBalancingDataSource.setSelection(selection);
+
+            int nodes = gatewayUrls.size();
+
+            for (String gatewayUrl : gatewayUrls) {
+                Builder nodeBuilder = copy();
+                nodeBuilder.gatewayUrls.clear();
+                nodeBuilder.url = gatewayUrl;
+                nodeBuilder.maxPoolSize = Math.max(1, (maxPoolSize + nodes - 1) / nodes);
+                nodeBuilder.minimumIdle = Math.min(nodeBuilder.maxPoolSize, (minimumIdle + nodes - 1) / nodes);
+                // Each node pool takes a share of this instance
+                nodeBuilder.autoSizeInstances = autoSizeInstances * nodes;
+
+                String authority = gatewayUrl.replaceFirst("^[^/]*//", "").replaceFirst("[/?].*$", "");
+                int colon = authority.lastIndexOf(':');
+                String host = colon > 0 ? authority.substring(0, colon) : authority;
+                int port = colon > 0 ? Integer.parseInt(authority.substring(colon + 1)) : 26257;
+
+                loadBalancingDataSource.addEndpoint(host, port, nodeBuilder.buildPool());
+            }
+
+            loadBalancingDataSource.startHealthProbes(healthProbeIntervalMillis, TimeUnit.MILLISECONDS);
+
+            return loadBalancingDataSource;
+        }
+    }
+
+    /**
+     * Pool that closes the resources tied to its lifecycle, such as the pool sizer, when closed.
+     */
+    private static class CockroachHikariDataSource extends HikariDataSource {
+        private final List<Closeable> closeables = new CopyOnWriteArrayList<>();
+
+        CockroachHikariDataSource(HikariConfig config) {
+            super(config);
+        }
+
+        void closeWith(Closeable closeable) {
+            closeables.add(closeable);
+        }
+
+        @Override
+        public void close() {
+            for (Closeable closeable : closeables) {
+                try {
+                    closeable.close();
+                } catch (IOException e) {
+                    LoggerFactory.getLogger(CockroachPooledDataSource.class)
+                            .warn("Error closing " + closeable, e);
+                }
+            }
+            closeables.clear();
+            super.close();
         }
     }
 
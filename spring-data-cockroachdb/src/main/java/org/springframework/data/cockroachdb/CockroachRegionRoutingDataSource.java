@@ -0,0 +1,72 @@
+package org.springframework.data.cockroachdb;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.springframework.data.cockroachdb.aspect.RegionContext;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Region-affinity data source that routes connections to a pool with gateway nodes in
+ * the region bound by the {@link org.springframework.data.cockroachdb.aspect.RegionAffinityAspect}.
+ * Connections outside of region affinity operations, or for regions without a
+ * dedicated pool, are routed to the default data source.
+ * <p>
+ * Region names are matched case-insensitively.
+ */
+public class CockroachRegionRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+    public CockroachRegionRoutingDataSource(Map<String, DataSource> regionDataSources,
+                                            DataSource defaultDataSource) {
+        Map<Object, Object> targetDataSources = new HashMap<>();
+        regionDataSources.forEach((region, dataSource) -> targetDataSources.put(normalize(region), dataSource));
+        setTargetDataSources(targetDataSources);
+        setDefaultTargetDataSource(defaultDataSource);
+        setLenientFallback(true);
+        afterPropertiesSet();
+    }
+
+    private static String normalize(String region) {
+        return region.trim().toLowerCase();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String region = RegionContext.getCurrentRegion();
+        return region != null ? normalize(region) : null;
+    }
+
+    /**
+     * @param region the region
+     * @return the target data source of the given region or the default data source
+     */
+    public DataSource getDataSource(String region) {
+        DataSource dataSource = getResolvedDataSources().get(normalize(region));
+        return dataSource != null ? dataSource : getResolvedDefaultDataSource();
+    }
+
+    /**
+     * Close all target data sources that are closeable, such as connection pools.
+     */
+    @Override
+    public void close() {
+        Set<DataSource> dataSources = new LinkedHashSet<>(getResolvedDataSources().values());
+        if (getResolvedDefaultDataSource() != null) {
+            dataSources.add(getResolvedDefaultDataSource());
+        }
+        for (DataSource dataSource : dataSources) {
+            if (dataSource instanceof Closeable) {
+                try {
+                    ((Closeable) dataSource).close();
+                } catch (IOException e) {
+                    logger.warn("Error closing " + dataSource, e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.springframework.data.cockroachdb;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.springframework.data.cockroachdb.aspect.TransactionBoundaryContext;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Read/write splitting data source that routes connections for read-only and time
+ * travel transaction boundaries to a separate read data source, typically a pool
+ * pointing at the local region gateway nodes. All other connections are routed
+ * to the read-write data source.
+ * <p>
+ * The routing decision is taken from the {@link TransactionBoundaryContext} which requires
+ * the {@link org.springframework.data.cockroachdb.aspect.TransactionBoundaryContextAspect}
+ * to bind it before the transaction manager obtains a connection.
+ */
+public class CockroachRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+    /**
+     * Connection routes.
+     */
+    public enum Route {
+        READ_WRITE,
+        READ_ONLY
+    }
+
+    public CockroachRoutingDataSource(DataSource readWriteDataSource, DataSource readOnlyDataSource) {
+        setTargetDataSources(Map.of(Route.READ_WRITE, readWriteDataSource, Route.READ_ONLY, readOnlyDataSource));
+        setDefaultTargetDataSource(readWriteDataSource);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        TransactionBoundaryContext context = TransactionBoundaryContext.getCurrent();
+        return context != null && context.getMethodMetadata().isReadOnly() ? Route.READ_ONLY : Route.READ_WRITE;
+    }
+
+    /**
+     * @param route the route
+     * @return the target data source of the given route
+     */
+    public DataSource getDataSource(Route route) {
+        return getResolvedDataSources().get(route);
+    }
+
+    /**
+     * Close all target data sources that are closeable, such as connection pools.
+     */
+    @Override
+    public void close() {
+        Set<DataSource> dataSources = new LinkedHashSet<>(getResolvedDataSources().values());
+        if (getResolvedDefaultDataSource() != null) {
+            dataSources.add(getResolvedDefaultDataSource());
+        }
+        for (DataSource dataSource : dataSources) {
+            if (dataSource instanceof Closeable) {
+                try {
+                    ((Closeable) dataSource).close();
+                } catch (IOException e) {
+                    logger.warn("Error closing " + dataSource, e);
+                }
+            }
+        }
+    }
+}
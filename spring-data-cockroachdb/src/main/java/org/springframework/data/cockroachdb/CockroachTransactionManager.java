@@ -0,0 +1,145 @@
+package org.springframework.data.cockroachdb;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.springframework.data.cockroachdb.aspect.MethodMetadata;
+import org.springframework.data.cockroachdb.aspect.TransactionBoundaryContext;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.DelegatingTransactionDefinition;
+
+/**
+ * CockroachDB specific {@link DataSourceTransactionManager} that applies all transaction
+ * attributes in the first round trip of a transaction.
+ * <p>
+ * The JDBC read-only and isolation level settings are never applied to the connection, since
+ * CockroachDB runs all transactions at serializable isolation and the pool would otherwise
+ * have to reset them. Instead, the transaction modes (priority, read-only and time travel)
+ * are folded into a single {@code SET TRANSACTION} statement and sent along with the
+ * remaining attributes of the current {@link TransactionBoundaryContext}. The driver sends
+ * the implicit {@code BEGIN} in the same round trip.
+ * <p>
+ * Requires the {@link org.springframework.data.cockroachdb.aspect.TransactionBoundaryContextAspect}
+ * to apply {@link org.springframework.data.cockroachdb.annotations.TransactionBoundary} attributes,
+ * in which case the {@link org.springframework.data.cockroachdb.aspect.TransactionAttributesAspect}
+ * skips them. Otherwise, only the read-only flag of the transaction definition is applied,
+ * and only if {@link #setEnforceReadOnly(boolean) enforceReadOnly} is enabled.
+ * <p>
+ * When {@link #setDeferredBeginEnabled(boolean) deferred BEGIN} is enabled, the BEGIN is
+ * skipped for boundaries marked as {@code implicitIfSingleStatement} so that a lone
+ * statement runs as an implicit transaction, and a second statement is rejected.
+ */
+public class CockroachTransactionManager extends DataSourceTransactionManager {
+    private boolean deferredBeginEnabled;
+
+    public CockroachTransactionManager() {
+    }
+
+    public CockroachTransactionManager(DataSource dataSource) {
+        super(dataSource);
+    }
+
+    /**
+     * Set the JDBC DataSource that this instance should manage transactions for. If
+     * deferred BEGIN is enabled, the data source is wrapped to support single statement
+     * transactions, while the target data source remains the transaction synchronization key.
+     */
+    @Override
+    public void setDataSource(DataSource dataSource) {
+        if (dataSource instanceof DeferredBeginDataSource) {
+            dataSource = ((DeferredBeginDataSource) dataSource).getTargetDataSource();
+        }
+        super.setDataSource(dataSource != null && deferredBeginEnabled
+                ? new DeferredBeginDataSource(dataSource) : dataSource);
+    }
+
+    /**
+     * Enables deferred BEGIN for {@link org.springframework.data.cockroachdb.annotations.TransactionBoundary}
+     * methods marked as {@code implicitIfSingleStatement}. Disabled by default, in which case
+     * connections are not wrapped and such methods run in explicit transactions.
+     */
+    public void setDeferredBeginEnabled(boolean deferredBeginEnabled) {
+        this.deferredBeginEnabled = deferredBeginEnabled;
+        setDataSource(getDataSource());
+    }
+
+    public boolean isDeferredBeginEnabled() {
+        return deferredBeginEnabled;
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        super.doBegin(transaction, new CockroachTransactionDefinition(definition));
+    }
+
+    @Override
+    protected void prepareTransactionalConnection(Connection con, TransactionDefinition definition)
+            throws SQLException {
+        TransactionDefinition targetDefinition = definition instanceof CockroachTransactionDefinition
+                ? ((CockroachTransactionDefinition) definition).getTargetDefinition() : definition;
+
+        TransactionBoundaryContext context = TransactionBoundaryContext.getCurrent();
+
+        if (context != null && !context.isTransactionAttributesApplied()) {
+            MethodMetadata metadata = context.getMethodMetadata();
+
+            context.setTransactionAttributesApplied(true);
+
+            if (metadata.isImplicitIfSingleStatement()
+                    && con instanceof DeferredBeginDataSource.DeferredBeginConnection) {
+                ((DeferredBeginDataSource.DeferredBeginConnection) con).deferBegin(metadata);
+                return;
+            }
+
+            SessionState sessionState = metadata.getSessionVariables().isEmpty() ? null : SessionState.of(con);
+
+            String sql = metadata.getTransactionAttributeSql(sessionState);
+            if (sql != null) {
+                executeStatement(con, sql);
+                metadata.updateSessionState(sessionState);
+            }
+        } else if (isEnforceReadOnly() && targetDefinition.isReadOnly()) {
+            executeStatement(con, "SET TRANSACTION READ ONLY");
+        }
+    }
+
+    private void executeStatement(Connection con, String sql) throws SQLException {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Applying transaction attributes: " + sql);
+        }
+        try (Statement stmt = con.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    /**
+     * Transaction definition hiding the read-only flag and isolation level from the
+     * JDBC connection preparation.
+     */
+    private static class CockroachTransactionDefinition extends DelegatingTransactionDefinition {
+        private final TransactionDefinition targetDefinition;
+
+        CockroachTransactionDefinition(TransactionDefinition targetDefinition) {
+            super(targetDefinition);
+            this.targetDefinition = targetDefinition;
+        }
+
+        TransactionDefinition getTargetDefinition() {
+            return targetDefinition;
+        }
+
+        @Override
+        public int getIsolationLevel() {
+            return ISOLATION_DEFAULT;
+        }
+
+        @Override
+        public boolean isReadOnly() {
+            return false;
+        }
+    }
+}
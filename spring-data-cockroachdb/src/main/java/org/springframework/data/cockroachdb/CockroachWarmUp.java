@@ -0,0 +1,201 @@
+package org.springframework.data.cockroachdb;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.postgresql.PGStatement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.util.Assert;
+
+/**
+ * Connection pool warm-up spec, used by {@link CockroachPooledDataSource.Builder#withWarmUp(CockroachWarmUp)}
+ * to avoid latency spikes from connection establishment and statement preparation on the
+ * first requests after startup.
+ * <p>
+ * The warm-up opens the minimum idle number of connections in parallel. All connections are
+ * held until every connection is opened, to make sure they are distinct, and then returned
+ * to the pool. Each registered hot statement is {@link #prepare(Connection) prepared} as a
+ * named server-side statement on every connection, which keeps it in the driver statement
+ * cache of that connection. When built by the pool builder, this happens on each new physical
+ * connection, including those opened later as the pool grows or replaces connections.
+ * <p>
+ * The warm-up is {@link #isReady() ready} once all pools of the builder are warmed up,
+ * which can be used for readiness reporting.
+ */
+public class CockroachWarmUp {
+    protected final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final List<String> statements = new ArrayList<>();
+
+    private long timeoutMillis = 30_000;
+
+    private volatile boolean ready;
+
+    /**
+     * @param sql hot SQL statement to prepare on every connection
+     */
+    public CockroachWarmUp addStatement(String sql) {
+        Assert.hasLength(sql, "sql is empty");
+        this.statements.add(sql);
+        return this;
+    }
+
+    public CockroachWarmUp setTimeoutMillis(long timeoutMillis) {
+        Assert.isTrue(timeoutMillis > 0, "timeoutMillis must be > 0");
+        this.timeoutMillis = timeoutMillis;
+        return this;
+    }
+
+    public List<String> getStatements() {
+        return Collections.unmodifiableList(statements);
+    }
+
+    /**
+     * @return true if the warm-up has completed
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    void setReady(boolean ready) {
+        this.ready = ready;
+    }
+
+    /**
+     * Warm up a pool.
+     *
+     * @param dataSource the pool
+     * @param connections the number of connections to open, typically the minimum idle size
+     * @return the number of connections warmed up
+     */
+    public int warmUp(DataSource dataSource, int connections) {
+        return warmUp(dataSource, connections, true);
+    }
+
+    int warmUp(DataSource dataSource, int connections, boolean prepareStatements) {
+        if (connections <= 0) {
+            return 0;
+        }
+
+        final long startTime = System.nanoTime();
+        final CountDownLatch acquired = new CountDownLatch(connections);
+        final AtomicInteger prepared = new AtomicInteger();
+
+        ExecutorService executorService = Executors.newFixedThreadPool(connections, r -> {
+            Thread thread = new Thread(r, "cockroach-warm-up");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < connections; i++) {
+                futures.add(executorService.submit(() -> {
+                    try (Connection connection = dataSource.getConnection()) {
+                        acquired.countDown();
+                        if (prepareStatements) {
+                            prepared.addAndGet(prepare(connection));
+                        }
+                        // Hold on to the connection until all connections are opened
+                        acquired.await(timeoutMillis, TimeUnit.MILLISECONDS);
+                        return 1;
+                    } catch (SQLException e) {
+                        acquired.countDown();
+                        throw e;
+                    }
+                }));
+            }
+
+            int warm = 0;
+            for (Future<Integer> future : futures) {
+                try {
+                    warm += future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+                } catch (Exception e) {
+                    logger.warn("Connection warm-up failed: {}", e.toString());
+                }
+            }
+
+            logger.info("Warmed up {} of {} connection(s) with {} prepared statement(s) in {} ms",
+                    warm, connections, prepared.get(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+
+            return warm;
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Prepare the hot statements on a connection without executing them. Each statement
+     * is parsed and described by the server with the pgjdbc prepare threshold forced to 1,
+     * so that it's kept as a named server-side statement in the driver statement cache of
+     * the connection. Nothing is executed, so no locks are taken and no transaction is started.
+     *
+     * @param connection the connection, typically a new physical connection
+     * @return the number of statements prepared
+     * @throws SQLException on connection failure
+     */
+    public int prepare(Connection connection) throws SQLException {
+        int prepared = 0;
+
+        for (String sql : statements) {
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                if (ps.isWrapperFor(PGStatement.class)) {
+                    ps.unwrap(PGStatement.class).setPrepareThreshold(1);
+                }
+                // Parse and describe only
+                ps.getMetaData();
+                prepared++;
+            } catch (SQLException e) {
+                if (connection.isClosed()) {
+                    throw e;
+                }
+                logger.warn("Unable to prepare statement [{}]: {}", sql, e.toString());
+            }
+        }
+
+        return prepared;
+    }
+
+    /**
+     * @param targetDataSource the data source of physical connections, below the pool
+     * @return a data source that prepares the hot statements on each new connection
+     */
+    public DataSource preparing(DataSource targetDataSource) {
+        return new DelegatingDataSource(targetDataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return prepared(super.getConnection());
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                return prepared(super.getConnection(username, password));
+            }
+        };
+    }
+
+    private Connection prepared(Connection connection) throws SQLException {
+        try {
+            prepare(connection);
+            return connection;
+        } catch (SQLException | RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+    }
+}
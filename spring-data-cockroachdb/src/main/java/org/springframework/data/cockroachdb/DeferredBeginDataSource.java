@@ -0,0 +1,205 @@
+package org.springframework.data.cockroachdb;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.springframework.core.InfrastructureProxy;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.cockroachdb.aspect.MethodMetadata;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Data source used by the {@link CockroachTransactionManager} to defer the BEGIN of
+ * transactions marked as implicit if single statement. Connections behave as-is unless
+ * the transaction manager defers the BEGIN, in which case the connection stays in
+ * auto-commit mode for the first statement. A second statement is rejected with an
+ * {@link InvalidDataAccessApiUsageException}, since the first statement has already
+ * been committed and the boundary can no longer be atomic. The time travel clause of the
+ * boundary, such as a bounded staleness read, is added to the first statement, either
+ * prepared or executed through a plain statement.
+ * <p>
+ * Exposes the target data source as the transaction synchronization key, so that
+ * JDBC access code using the target data source joins the same transaction.
+ */
+class DeferredBeginDataSource extends DelegatingDataSource implements InfrastructureProxy {
+    /**
+     * Implemented by the connections of this data source.
+     */
+    interface DeferredBeginConnection {
+        /**
+         * Restore auto-commit mode for the first statement, and reject any further
+         * statements until the transaction completes.
+         *
+         * @param methodMetadata the transaction boundary metadata
+         * @throws SQLException on auto-commit errors
+         */
+        void deferBegin(MethodMetadata methodMetadata) throws SQLException;
+    }
+
+    DeferredBeginDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Object getWrappedObject() {
+        return obtainTargetDataSource();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private static Connection wrap(Connection target) {
+        final DeferredBeginState state = new DeferredBeginState(target);
+
+        return (Connection) Proxy.newProxyInstance(DeferredBeginDataSource.class.getClassLoader(),
+                new Class<?>[] {Connection.class, DeferredBeginConnection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "deferBegin":
+                            state.deferBegin((MethodMetadata) args[0]);
+                            return null;
+                        case "createStatement": {
+                            state.beforeStatement();
+                            String asOfSystemTime = state.getTimeTravel();
+                            Statement statement = (Statement) invoke(target, method, args);
+                            return asOfSystemTime != null ? timeTravel(statement, asOfSystemTime) : statement;
+                        }
+                        case "prepareStatement":
+                        case "prepareCall":
+                            state.beforeStatement();
+                            args[0] = state.applyTimeTravel((String) args[0]);
+                            break;
+                        case "getAutoCommit":
+                            if (state.isBeginDeferred()) {
+                                return false;
+                            }
+                            break;
+                        case "commit":
+                        case "rollback":
+                            if (state.isBeginDeferred() && (args == null || args.length == 0)) {
+                                // Already committed in auto-commit mode
+                                state.reset();
+                                return null;
+                            }
+                            break;
+                        case "setAutoCommit":
+                        case "close":
+                            state.reset();
+                            break;
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return "DeferredBegin proxy for target Connection [" + target + "]";
+                        default:
+                            break;
+                    }
+                    return invoke(target, method, args);
+                });
+    }
+
+    /**
+     * Wrap a plain statement to apply the time travel clause to the SQL passed on execution.
+     */
+    private static Statement timeTravel(Statement target, String asOfSystemTime) {
+        return (Statement) Proxy.newProxyInstance(DeferredBeginDataSource.class.getClassLoader(),
+                new Class<?>[] {Statement.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "execute":
+                        case "executeQuery":
+                        case "executeUpdate":
+                        case "executeLargeUpdate":
+                            args[0] = AsOfSystemTimeClause.apply((String) args[0], asOfSystemTime);
+                            break;
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return "DeferredBegin proxy for target Statement [" + target + "]";
+                        default:
+                            break;
+                    }
+                    return invoke(target, method, args);
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getTargetException();
+        }
+    }
+
+    /**
+     * Deferred BEGIN state of a connection, confined to the thread owning the transaction.
+     */
+    private static class DeferredBeginState {
+        private final Connection target;
+
+        private MethodMetadata methodMetadata;
+
+        private int statements;
+
+        DeferredBeginState(Connection target) {
+            this.target = target;
+        }
+
+        void deferBegin(MethodMetadata methodMetadata) throws SQLException {
+            target.setAutoCommit(true);
+            this.methodMetadata = methodMetadata;
+            this.statements = 0;
+        }
+
+        boolean isBeginDeferred() {
+            return methodMetadata != null;
+        }
+
+        /**
+         * Apply the time travel clause of the boundary to the first statement in
+         * auto-commit mode, since SET TRANSACTION is not applicable.
+         */
+        String applyTimeTravel(String sql) {
+            String asOfSystemTime = getTimeTravel();
+            return asOfSystemTime != null ? AsOfSystemTimeClause.apply(sql, asOfSystemTime) : sql;
+        }
+
+        /**
+         * @return the time travel expression applicable to the current statement, or null
+         */
+        String getTimeTravel() {
+            if (methodMetadata == null || statements != 1) {
+                return null;
+            }
+            return methodMetadata.getAsOfSystemTime();
+        }
+
+        void beforeStatement() {
+            if (methodMetadata == null || ++statements < 2) {
+                return;
+            }
+            throw new InvalidDataAccessApiUsageException("Second statement in '"
+                    + methodMetadata.getMethodName() + "' marked as implicit if single statement - "
+                    + "the first statement has already been committed");
+        }
+
+        void reset() {
+            methodMetadata = null;
+            statements = 0;
+        }
+    }
+}
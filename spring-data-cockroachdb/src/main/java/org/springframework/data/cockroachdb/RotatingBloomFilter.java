@@ -0,0 +1,229 @@
+package org.springframework.data.cockroachdb;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+import org.springframework.util.Assert;
+
+/**
+ * Lock-free Bloom filter of recently seen UUID tokens, such as idempotency keys, used to skip
+ * database lookups for tokens that have definitely not been seen.
+ * <p>
+ * The filter is sized for an expected number of insertions per time window and a target false
+ * positive rate. It keeps two generations, where tokens are added to the current one and looked
+ * up in both. Once a window has elapsed, the current generation becomes the previous one and the
+ * oldest is discarded, so tokens are remembered for at least one and at most two windows.
+ * <p>
+ * A negative answer is definite for tokens added within the last window, while a positive
+ * answer is only probable. Callers must therefore keep an authoritative guard, for example a
+ * unique constraint, for tokens that were seen by other instances or have been rotated out.
+ */
+public class RotatingBloomFilter {
+    private static final class Generation {
+        private final AtomicLongArray words;
+
+        private final AtomicLong insertions = new AtomicLong();
+
+        private final long expiresAt;
+
+        Generation(int numWords, long expiresAt) {
+            this.words = new AtomicLongArray(numWords);
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class Generations {
+        private final Generation current;
+
+        private final Generation previous;
+
+        Generations(Generation current, Generation previous) {
+            this.current = current;
+            this.previous = previous;
+        }
+    }
+
+    private final long numBits;
+
+    private final int numHashFunctions;
+
+    private final long windowNanos;
+
+    private final LongSupplier nanoClock;
+
+    private final AtomicReference<Generations> generations;
+
+    /**
+     * @param expectedInsertions expected number of tokens added per window
+     * @param falsePositiveRate target false positive rate per generation, for example 0.01
+     * @param window the rotation window
+     */
+    public RotatingBloomFilter(long expectedInsertions, double falsePositiveRate, Duration window) {
+        this(expectedInsertions, falsePositiveRate, window, System::nanoTime);
+    }
+
+    RotatingBloomFilter(long expectedInsertions, double falsePositiveRate, Duration window, LongSupplier nanoClock) {
+        Assert.isTrue(expectedInsertions > 0, "expectedInsertions must be > 0");
+        Assert.isTrue(falsePositiveRate > 0 && falsePositiveRate < 1, "falsePositiveRate must be in (0,1)");
+        Assert.isTrue(!window.isNegative() && !window.isZero(), "window must be > 0");
+
+        // Optimal bits m = -n ln(p) / ln(2)^2 and hash functions k = m/n ln(2)
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        Assert.isTrue(bits <= (long) Integer.MAX_VALUE * Long.SIZE, "Filter too large");
+
+        this.numBits = Math.max(Long.SIZE, (bits + Long.SIZE - 1) / Long.SIZE * Long.SIZE);
+        this.numHashFunctions = Math.max(1, (int) Math.round((double) numBits / expectedInsertions * Math.log(2)));
+        this.windowNanos = window.toNanos();
+        this.nanoClock = nanoClock;
+
+        long now = nanoClock.getAsLong();
+        this.generations = new AtomicReference<>(new Generations(
+                newGeneration(now), new Generation(0, now)));
+    }
+
+    private Generation newGeneration(long now) {
+        return new Generation((int) (numBits / Long.SIZE), now + windowNanos);
+    }
+
+    private Generations currentGenerations() {
+        Generations g = generations.get();
+        long now = nanoClock.getAsLong();
+        while (now - g.current.expiresAt >= 0) {
+            // Whoever wins the swap rotates, others pick up the result. The current
+            // generation is dropped as well if idle for more than one window.
+            Generation previous = now - g.current.expiresAt < windowNanos ? g.current : new Generation(0, now);
+            Generations rotated = new Generations(newGeneration(now), previous);
+            if (generations.compareAndSet(g, rotated)) {
+                return rotated;
+            }
+            g = generations.get();
+        }
+        return g;
+    }
+
+    /**
+     * Add a token to the current generation.
+     *
+     * @param token the token
+     * @return true if the token was possibly seen before, false if definitely not
+     */
+    public boolean put(UUID token) {
+        Generations g = currentGenerations();
+
+        long h1 = hash1(token);
+        long h2 = hash2(token);
+
+        boolean seen = contains(g.previous, h1, h2);
+        boolean changed = false;
+
+        for (int i = 0; i < numHashFunctions; i++) {
+            long bit = Math.floorMod(h1 + i * h2, numBits);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long prev = g.current.words.getAndAccumulate(word, mask, (a, b) -> a | b);
+            changed |= (prev & mask) == 0;
+        }
+
+        if (changed) {
+            g.current.insertions.incrementAndGet();
+        }
+
+        return seen || !changed;
+    }
+
+    /**
+     * @param token the token
+     * @return true if the token was possibly seen, false if definitely not
+     */
+    public boolean mightContain(UUID token) {
+        Generations g = currentGenerations();
+
+        long h1 = hash1(token);
+        long h2 = hash2(token);
+
+        return contains(g.current, h1, h2) || contains(g.previous, h1, h2);
+    }
+
+    private boolean contains(Generation generation, long h1, long h2) {
+        if (generation.words.length() == 0) {
+            return false;
+        }
+        for (int i = 0; i < numHashFunctions; i++) {
+            long bit = Math.floorMod(h1 + i * h2, numBits);
+            if ((generation.words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Double hashing, where the i:th bit index is h1 + i * h2
+    private static long hash1(UUID token) {
+        return mix(token.getMostSignificantBits() ^ mix(token.getLeastSignificantBits()));
+    }
+
+    private static long hash2(UUID token) {
+        return mix(token.getLeastSignificantBits() + 0x9E3779B97F4A7C15L) | 1;
+    }
+
+    // Stafford variant 13 of the 64-bit finalizer used by SplitMix64
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public long getNumBits() {
+        return numBits;
+    }
+
+    public int getNumHashFunctions() {
+        return numHashFunctions;
+    }
+
+    /**
+     * @return approximate number of tokens in the current and previous generations
+     */
+    public long getApproximateCount() {
+        Generations g = currentGenerations();
+        return g.current.insertions.get() + g.previous.insertions.get();
+    }
+
+    /**
+     * @return bytes held by the bit arrays of both generations
+     */
+    public long getMemoryFootprintBytes() {
+        return 2 * numBits / Byte.SIZE;
+    }
+
+    /**
+     * @return estimated false positive rate of a lookup against both generations,
+     * based on the approximate number of tokens added
+     */
+    public double getExpectedFalsePositiveRate() {
+        Generations g = currentGenerations();
+        double p1 = falsePositiveRate(g.current.insertions.get());
+        double p2 = g.previous.words.length() > 0 ? falsePositiveRate(g.previous.insertions.get()) : 0;
+        return 1 - (1 - p1) * (1 - p2);
+    }
+
+    private double falsePositiveRate(long insertions) {
+        // (1 - e^(-kn/m))^k
+        return Math.pow(1 - Math.exp(-numHashFunctions * (double) insertions / numBits), numHashFunctions);
+    }
+
+    @Override
+    public String toString() {
+        return "RotatingBloomFilter{" +
+                "bits=" + numBits +
+                ", hashFunctions=" + numHashFunctions +
+                ", approximateCount=" + getApproximateCount() +
+                ", memoryFootprintBytes=" + getMemoryFootprintBytes() +
+                ", expectedFalsePositiveRate=" + String.format("%.6f", getExpectedFalsePositiveRate()) +
+                '}';
+    }
+}
@@ -0,0 +1,272 @@
+package org.springframework.data.cockroachdb;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+/**
+ * Low overhead SQL tracer for datasource-proxy, as an alternative to always-on query logging.
+ * <p>
+ * Statements are sampled either probabilistically by a sample rate, or when their execution
+ * time exceeds a tail latency threshold. Sampled statements are written to a fixed size,
+ * lock-free ring buffer which overwrites the oldest entries when full. A background thread
+ * drains the buffer to the trace logger, so that formatting is kept off the calling thread.
+ * The most recent entries can also be dumped on demand.
+ * <p>
+ * Statements that are not sampled cost one clock comparison and one random draw.
+ */
+public class SamplingQueryTracer implements QueryExecutionListener, Closeable {
+    /**
+     * A sampled statement execution.
+     */
+    public static final class Entry {
+        private final long sequence;
+
+        private final long timestamp;
+
+        private final long elapsedMillis;
+
+        private final boolean success;
+
+        private final boolean slow;
+
+        private final String threadName;
+
+        private final List<String> queries;
+
+        private final int batchSize;
+
+        Entry(long sequence, ExecutionInfo executionInfo, List<QueryInfo> queryInfoList, boolean slow) {
+            this.sequence = sequence;
+            this.timestamp = System.currentTimeMillis();
+            this.elapsedMillis = executionInfo.getElapsedTime();
+            this.success = executionInfo.isSuccess();
+            this.slow = slow;
+            this.threadName = Thread.currentThread().getName();
+            this.batchSize = executionInfo.getBatchSize();
+            List<String> queries = new ArrayList<>(queryInfoList.size());
+            queryInfoList.forEach(queryInfo -> queries.add(queryInfo.getQuery()));
+            this.queries = queries;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+
+        /**
+         * @return true if sampled by exceeding the tail latency threshold
+         */
+        public boolean isSlow() {
+            return slow;
+        }
+
+        public String getThreadName() {
+            return threadName;
+        }
+
+        public List<String> getQueries() {
+            return queries;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        @Override
+        public String toString() {
+            return "{\"elapsed\":" + elapsedMillis
+                    + ", \"success\":" + success
+                    + ", \"slow\":" + slow
+                    + ", \"thread\":\"" + threadName + "\""
+                    + ", \"batchSize\":" + batchSize
+                    + ", \"queries\":" + queries + "}";
+        }
+    }
+
+    private final Logger traceLogger;
+
+    private final AtomicReferenceArray<Entry> buffer;
+
+    private final int mask;
+
+    private final AtomicLong head = new AtomicLong();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private long tail;
+
+    private volatile double sampleRate = 1.0;
+
+    private volatile long tailLatencyMillis = Long.MAX_VALUE;
+
+    private ScheduledExecutorService drainer;
+
+    public SamplingQueryTracer() {
+        this(CockroachPooledDataSource.SQL_TRACE_LOGGER_NAME, 4096);
+    }
+
+    /**
+     * @param loggerName the trace logger name
+     * @param capacity the ring buffer capacity, rounded up to a power of two
+     */
+    public SamplingQueryTracer(String loggerName, int capacity) {
+        Assert.isTrue(capacity > 0, "capacity must be > 0");
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.traceLogger = LoggerFactory.getLogger(loggerName);
+        this.buffer = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * @param sampleRate probability in range [0-1] of sampling a statement
+     */
+    public void setSampleRate(double sampleRate) {
+        Assert.isTrue(sampleRate >= 0 && sampleRate <= 1, "sampleRate must be in range [0-1]");
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * @param tailLatencyMillis execution time from which statements are always sampled
+     */
+    public void setTailLatencyMillis(long tailLatencyMillis) {
+        Assert.isTrue(tailLatencyMillis >= 0, "tailLatencyMillis must be >= 0");
+        this.tailLatencyMillis = tailLatencyMillis;
+    }
+
+    public int getCapacity() {
+        return buffer.length();
+    }
+
+    /**
+     * @return total number of sampled statements
+     */
+    public long getSampledCount() {
+        return head.get();
+    }
+
+    /**
+     * @return number of sampled statements overwritten before being drained
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo executionInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo executionInfo, List<QueryInfo> queryInfoList) {
+        boolean slow = executionInfo.getElapsedTime() >= tailLatencyMillis;
+        if (!slow) {
+            double rate = sampleRate;
+            if (rate <= 0 || (rate < 1 && ThreadLocalRandom.current().nextDouble() >= rate)) {
+                return;
+            }
+        }
+        long sequence = head.getAndIncrement();
+        buffer.set((int) (sequence & mask), new Entry(sequence, executionInfo, queryInfoList, slow));
+    }
+
+    /**
+     * @return the most recent sampled entries in the buffer, oldest first
+     */
+    public List<Entry> dump() {
+        long end = head.get();
+        long start = Math.max(0, end - buffer.length());
+        List<Entry> entries = new ArrayList<>((int) (end - start));
+        for (long sequence = start; sequence < end; sequence++) {
+            Entry entry = buffer.get((int) (sequence & mask));
+            if (entry != null && entry.sequence == sequence) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Drain sampled entries to the trace logger.
+     *
+     * @return number of entries drained
+     */
+    public synchronized int drain() {
+        long end = head.get();
+        if (end - tail > buffer.length()) {
+            dropped.addAndGet(end - tail - buffer.length());
+            tail = end - buffer.length();
+        }
+
+        int drained = 0;
+        boolean enabled = traceLogger.isTraceEnabled();
+
+        for (; tail < end; tail++) {
+            Entry entry = buffer.get((int) (tail & mask));
+            if (entry == null || entry.sequence < tail) {
+                // Claimed but not yet published, retry on next drain
+                break;
+            }
+            if (entry.sequence > tail) {
+                dropped.incrementAndGet();
+                continue;
+            }
+            if (enabled) {
+                traceLogger.trace("{}", entry);
+            }
+            drained++;
+        }
+
+        return drained;
+    }
+
+    /**
+     * Start the background drainer.
+     *
+     * @param interval the drain interval
+     * @param unit the interval unit
+     */
+    public synchronized void start(long interval, TimeUnit unit) {
+        if (drainer == null) {
+            drainer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "cockroach-sql-tracer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            drainer.scheduleWithFixedDelay(this::drain, interval, interval, unit);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (drainer != null) {
+            drainer.shutdownNow();
+            drainer = null;
+        }
+        drain();
+    }
+}
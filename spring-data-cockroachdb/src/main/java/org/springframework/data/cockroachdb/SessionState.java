@@ -0,0 +1,64 @@
+package org.springframework.data.cockroachdb;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tracks the session variables set on a physical connection, to avoid re-sending
+ * statements for values the connection already holds. Obtained by unwrapping a connection
+ * from a {@link SessionStateDataSource}.
+ * <p>
+ * The state is only updated by callers that set variables through the cache, and it's
+ * cleared when the connection is rolled back or closed. Variables changed by other
+ * means (such as {@code RESET ALL}) are not tracked.
+ * <p>
+ * Not thread safe, a connection is confined to one thread at a time by the pool.
+ */
+public class SessionState {
+    /**
+     * Find the session state of a connection.
+     *
+     * @param connection the connection, possibly a pool or proxy wrapper
+     * @return the session state or null if the connection is not tracked
+     * @throws SQLException on unwrap errors
+     */
+    public static SessionState of(Connection connection) throws SQLException {
+        return connection.isWrapperFor(SessionState.class) ? connection.unwrap(SessionState.class) : null;
+    }
+
+    private final Map<String, String> variables = new HashMap<>();
+
+    /**
+     * @param name the variable name
+     * @param value the variable value
+     * @return true if the variable is known to hold the given value
+     */
+    public boolean hasValue(String name, String value) {
+        return value.equals(variables.get(name));
+    }
+
+    public String getValue(String name) {
+        return variables.get(name);
+    }
+
+    public void setValue(String name, String value) {
+        variables.put(name, value);
+    }
+
+    public void clear() {
+        variables.clear();
+    }
+
+    public int size() {
+        return variables.size();
+    }
+
+    @Override
+    public String toString() {
+        return "SessionState{" +
+                "variables=" + variables +
+                '}';
+    }
+}
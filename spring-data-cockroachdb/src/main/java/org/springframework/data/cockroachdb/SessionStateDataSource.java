@@ -0,0 +1,72 @@
+package org.springframework.data.cockroachdb;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Data source wrapping each physical connection with a {@link SessionState} cache.
+ * Intended to sit below the connection pool so that the state follows the physical
+ * connection across pool checkouts.
+ * <p>
+ * The state is cleared on rollback, which the pool issues when resetting a connection
+ * with an uncommitted transaction, and on close or abort when the pool evicts it.
+ */
+public class SessionStateDataSource extends DelegatingDataSource {
+    public SessionStateDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private static Connection wrap(Connection target) {
+        final SessionState sessionState = new SessionState();
+
+        return (Connection) Proxy.newProxyInstance(SessionStateDataSource.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "isWrapperFor":
+                            if (SessionState.class.equals(args[0])) {
+                                return true;
+                            }
+                            break;
+                        case "unwrap":
+                            if (SessionState.class.equals(args[0])) {
+                                return sessionState;
+                            }
+                            break;
+                        case "rollback":
+                        case "close":
+                        case "abort":
+                            sessionState.clear();
+                            break;
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return "SessionState proxy for target Connection [" + target + "]";
+                        default:
+                            break;
+                    }
+                    try {
+                        return method.invoke(target, args);
+                    } catch (InvocationTargetException ex) {
+                        throw ex.getTargetException();
+                    }
+                });
+    }
+}
@@ -0,0 +1,31 @@
+package org.springframework.data.cockroachdb.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Indicates that connections for the annotated method should be obtained from a pool
+ * with gateway nodes in the region extracted from the method arguments, so that writes
+ * to regional rows avoid cross-region hops to the leaseholders.
+ * <p>
+ * The region is a SpEL expression evaluated against the method arguments, which are
+ * referenced by name (#request) or index (#p0), for example:
+ * <pre>
+ * &#64;RegionAffinity("#request.region")
+ * </pre>
+ * The region is resolved to a pool by the {@link org.springframework.data.cockroachdb.CockroachRegionRoutingDataSource}.
+ *
+ * @see org.springframework.data.cockroachdb.aspect.RegionAffinityAspect
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD})
+public @interface RegionAffinity {
+    /**
+     * @return SpEL expression for the region name
+     */
+    String value();
+}
@@ -7,10 +7,17 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+import org.springframework.data.cockroachdb.aspect.BackoffMode;
+
 /**
  * Annotation for business service methods that utilize a transient SQL exception retry strategy.
  * A method that is annotated as {@code @Retryable} will automatically be candidate for re-invocation on
  * concurrency failures such as deadlock looser, optimistic locking failures, etc.
+ * <p>
+ * By default, retries back off with {@link BackoffMode#FULL_JITTER full jitter}, which waits a
+ * random time between zero and {@code initialBackoff * multiplier^(n-1)} millis before attempt
+ * {@code n+1}, capped at {@code maxBackoff}. This replaces the previous fixed schedule of
+ * {@code 2^n} millis plus up to one second of random jitter.
  */
 @Inherited
 @Documented
@@ -23,8 +30,31 @@ public @interface Retryable {
      */
     int retryAttempts() default 10;
 
+    /**
+     * @return the backoff policy to apply between retry attempts
+     */
+    BackoffMode backoffMode() default BackoffMode.FULL_JITTER;
+
+    /**
+     * @return initial (base) backoff time in millis
+     */
+    long initialBackoff() default 100;
+
+    /**
+     * @return multiplier applied to the backoff time for each attempt
+     * (ignored by the fixed backoff mode)
+     */
+    double multiplier() default 2.0;
+
     /**
      * @return max backoff time in millis
      */
     long maxBackoff() default 15000;
+
+    /**
+     * @return ratio of retries to first attempts allowed by a retry budget for the
+     * annotated method, i.e 0.1 for 10%. A negative value (default) means the
+     * global retry budget is used, if any.
+     */
+    double retryBudgetRatio() default -1;
 }
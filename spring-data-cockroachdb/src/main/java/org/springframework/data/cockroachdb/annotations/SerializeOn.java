@@ -0,0 +1,38 @@
+package org.springframework.data.cockroachdb.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Indicates that invocations of the annotated method are serialized in-process on
+ * one or more keys extracted from the method arguments, before a transaction is started.
+ * Conflicting transactions from the same JVM are then queued locally rather than
+ * aborting each other with serialization errors in the database.
+ * <p>
+ * The key is a SpEL expression evaluated against the method arguments, which are
+ * referenced by name (#request) or index (#p0). It may return a single key or a
+ * collection or array of keys, for example using projection:
+ * <pre>
+ * &#64;SerializeOn(key = "#request.accountLegs.![id]")
+ * </pre>
+ * Not applicable to methods returning a {@link java.util.concurrent.CompletionStage}.
+ *
+ * @see org.springframework.data.cockroachdb.aspect.SerializeOnAspect
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD})
+public @interface SerializeOn {
+    /**
+     * @return SpEL expression for the key or keys to serialize on
+     */
+    String key();
+
+    /**
+     * @return max time in millis to wait for the key locks
+     */
+    long maxWait() default 30_000;
+}
@@ -20,7 +20,7 @@ import static java.lang.annotation.RetentionPolicy.RUNTIME;
 @Retention(RUNTIME)
 public @interface TimeTravel {
     /**
-     * @return the time travel mode, either follower read or snapshot
+     * @return the time travel mode, either follower read, snapshot or bounded staleness
      */
     TimeTravelMode mode() default TimeTravelMode.FOLLOWER_READ;
 
@@ -30,4 +30,11 @@ public @interface TimeTravel {
      * @return interval expression (ignored if FOLLOWER_READ mode is used)
      */
     String interval() default "-30s";
+
+    /**
+     * See https://www.cockroachlabs.com/docs/stable/interval.html
+     *
+     * @return the staleness bound as a positive interval (only used in bounded staleness modes)
+     */
+    String staleness() default "10s";
 }
@@ -66,4 +66,16 @@ public @interface TransactionBoundary {
      * Optional collection of arbitrary session and local variables.
      */
     SetVariable[] variables() default {};
+
+    /**
+     * (Optional) Skips the BEGIN, so that a lone statement runs as an implicit transaction
+     * which CockroachDB can retry server-side. The statement is committed on its own, so
+     * a second statement fails with an
+     * {@link org.springframework.dao.InvalidDataAccessApiUsageException} rather than
+     * leaving a partial commit behind. Only the time travel attribute is applied.
+     * <p>
+     * Requires the {@link org.springframework.data.cockroachdb.CockroachTransactionManager}
+     * with deferred BEGIN enabled and is otherwise ignored.
+     */
+    boolean implicitIfSingleStatement() default false;
 }
@@ -0,0 +1,357 @@
+package org.springframework.data.cockroachdb.aspect;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.util.Assert;
+
+/**
+ * Adaptive limiter of concurrent executions per method, using an additive increase,
+ * multiplicative decrease (AIMD) algorithm.
+ * <p>
+ * The limit is decreased by the backoff ratio on each serialization conflict (40001),
+ * and once per sample window when the median latency of the window exceeds the tolerance
+ * over the baseline, which is the lowest median of the recent windows. A window in which
+ * the limit was already decreased by conflicts is not decreased again for latency.
+ * Otherwise, the limit is increased by {@code 1/limit} on each conflict-free completion
+ * when at least half of the permits are in use. Under contention, this admits fewer
+ * concurrent transactions which reduces the amount of work wasted on aborts and raises
+ * goodput.
+ * <p>
+ * Latency is measured per {@link Sample}, which is restarted on each retry attempt so
+ * that backoff delays and failed attempts are not counted.
+ * <p>
+ * Callers waiting for a permit are queued in FIFO order and rejected when the max
+ * wait time has passed.
+ *
+ * @see ConcurrencyLimiterAspect
+ * @see TransactionRetryAspect#setConcurrencyLimiter(AdaptiveConcurrencyLimiter)
+ */
+public class AdaptiveConcurrencyLimiter {
+    private final Map<Method, Limit> limits = new ConcurrentHashMap<>();
+
+    private int initialLimit = 20;
+
+    private int minLimit = 1;
+
+    private int maxLimit = 200;
+
+    private double backoffRatio = 0.9;
+
+    private double latencyTolerance = 2.0;
+
+    private long maxWaitMillis = 30_000;
+
+    private int sampleWindow = 50;
+
+    private int baselineWindows = 10;
+
+    public void setInitialLimit(int initialLimit) {
+        Assert.isTrue(initialLimit > 0, "initialLimit must be > 0");
+        this.initialLimit = initialLimit;
+    }
+
+    public void setMinLimit(int minLimit) {
+        Assert.isTrue(minLimit > 0, "minLimit must be > 0");
+        this.minLimit = minLimit;
+    }
+
+    public void setMaxLimit(int maxLimit) {
+        Assert.isTrue(maxLimit > 0, "maxLimit must be > 0");
+        this.maxLimit = maxLimit;
+    }
+
+    public void setBackoffRatio(double backoffRatio) {
+        Assert.isTrue(backoffRatio > 0 && backoffRatio < 1, "backoffRatio must be between 0 and 1");
+        this.backoffRatio = backoffRatio;
+    }
+
+    public void setLatencyTolerance(double latencyTolerance) {
+        Assert.isTrue(latencyTolerance >= 1, "latencyTolerance must be >= 1");
+        this.latencyTolerance = latencyTolerance;
+    }
+
+    /**
+     * @param sampleWindow number of latency samples per window
+     */
+    public void setSampleWindow(int sampleWindow) {
+        Assert.isTrue(sampleWindow > 0, "sampleWindow must be > 0");
+        this.sampleWindow = sampleWindow;
+    }
+
+    /**
+     * @param baselineWindows number of recent windows over which the baseline is the lowest median
+     */
+    public void setBaselineWindows(int baselineWindows) {
+        Assert.isTrue(baselineWindows > 0, "baselineWindows must be > 0");
+        this.baselineWindows = baselineWindows;
+    }
+
+    public void setMaxWaitMillis(long maxWaitMillis) {
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    /**
+     * @param method the limited method
+     * @return the limit for the given method, created on demand
+     */
+    public Limit getLimit(Method method) {
+        return limits.computeIfAbsent(method, m -> new Limit(m.getName()));
+    }
+
+    /**
+     * @return all limits created so far, keyed by method
+     */
+    public Map<Method, Limit> getLimits() {
+        return limits;
+    }
+
+    /**
+     * Latency sample of a single limited call, bound to the calling thread by the
+     * {@link ConcurrencyLimiterAspect} and restarted by the {@link TransactionRetryAspect}
+     * on each retry attempt, so that only the final attempt is measured.
+     */
+    public static final class Sample {
+        private static final ThreadLocal<Sample> CURRENT = new ThreadLocal<>();
+
+        /**
+         * @param sample the sample to bind to the current thread, or null to unbind
+         * @return the previously bound sample, or null
+         */
+        public static Sample bind(Sample sample) {
+            Sample previous = CURRENT.get();
+            if (sample != null) {
+                CURRENT.set(sample);
+            } else {
+                CURRENT.remove();
+            }
+            return previous;
+        }
+
+        /**
+         * @return the sample bound to the current thread, or null
+         */
+        public static Sample getCurrent() {
+            return CURRENT.get();
+        }
+
+        private volatile long startNanos = System.nanoTime();
+
+        private volatile boolean conflicted;
+
+        /**
+         * Restart the measurement at the beginning of a retry attempt.
+         */
+        public void restart() {
+            this.startNanos = System.nanoTime();
+        }
+
+        /**
+         * Mark the call as having had a serialization conflict, which already
+         * decreased the limit.
+         */
+        public void markConflicted() {
+            this.conflicted = true;
+        }
+
+        public boolean isConflicted() {
+            return conflicted;
+        }
+
+        public long getElapsedNanos() {
+            return System.nanoTime() - startNanos;
+        }
+    }
+
+    /**
+     * Concurrency limit and permit queue for a single method.
+     */
+    public class Limit {
+        private final String name;
+
+        private final ReentrantLock lock = new ReentrantLock(true);
+
+        private final Condition permitAvailable = lock.newCondition();
+
+        private double limit = Math.max(minLimit, Math.min(initialLimit, maxLimit));
+
+        private final long[] samples = new long[sampleWindow];
+
+        private final long[] medians = new long[baselineWindows];
+
+        private int numSamples;
+
+        private int numMedians;
+
+        private int nextMedian;
+
+        private boolean decreasedInWindow;
+
+        private int inFlight;
+
+        private long numRejected;
+
+        private Limit(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Acquire a permit, waiting at most the max wait time.
+         *
+         * @return true if acquired, false if the wait deadline passed
+         * @throws InterruptedException if interrupted while waiting
+         */
+        public boolean tryAcquire() throws InterruptedException {
+            long remainingNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+            lock.lockInterruptibly();
+            try {
+                while (inFlight >= (int) limit) {
+                    if (remainingNanos <= 0) {
+                        numRejected++;
+                        return false;
+                    }
+                    remainingNanos = permitAvailable.awaitNanos(remainingNanos);
+                }
+                inFlight++;
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Release a permit and record the completion latency.
+         *
+         * @param latencyNanos the latency of the completed call, or a negative value to skip the sample
+         */
+        public void release(long latencyNanos) {
+            release(latencyNanos, false);
+        }
+
+        /**
+         * Release a permit and record the completion latency.
+         *
+         * @param latencyNanos the latency of the final attempt, or a negative value to skip the sample
+         * @param conflicted true if the call had serialization conflicts, which already decreased the limit
+         */
+        public void release(long latencyNanos, boolean conflicted) {
+            lock.lock();
+            try {
+                inFlight--;
+                if (latencyNanos >= 0) {
+                    addSample(latencyNanos);
+                    if (!conflicted && inFlight + 1 >= limit / 2) {
+                        limit = Math.min(maxLimit, limit + 1.0 / limit);
+                    }
+                }
+                for (int available = (int) limit - inFlight; available > 0; available--) {
+                    permitAvailable.signal();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void addSample(long latencyNanos) {
+            samples[numSamples++] = latencyNanos;
+            if (numSamples < samples.length) {
+                return;
+            }
+
+            Arrays.sort(samples);
+            long median = samples[samples.length / 2];
+
+            if (numMedians > 0 && !decreasedInWindow) {
+                long baseline = Long.MAX_VALUE;
+                for (int i = 0; i < numMedians; i++) {
+                    baseline = Math.min(baseline, medians[i]);
+                }
+                if (median > baseline * latencyTolerance) {
+                    decrease();
+                }
+            }
+
+            medians[nextMedian] = median;
+            nextMedian = (nextMedian + 1) % medians.length;
+            numMedians = Math.min(numMedians + 1, medians.length);
+            numSamples = 0;
+            decreasedInWindow = false;
+        }
+
+        /**
+         * Record a serialization conflict, decreasing the limit.
+         */
+        public void onConflict() {
+            lock.lock();
+            try {
+                decrease();
+                decreasedInWindow = true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void decrease() {
+            limit = Math.max(minLimit, limit * backoffRatio);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getLimit() {
+            lock.lock();
+            try {
+                return (int) limit;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public int getInFlight() {
+            lock.lock();
+            try {
+                return inFlight;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public int getQueueLength() {
+            lock.lock();
+            try {
+                return lock.getWaitQueueLength(permitAvailable);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public long getNumRejected() {
+            lock.lock();
+            try {
+                return numRejected;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "Limit{" +
+                    "name='" + name + '\'' +
+                    ", limit=" + getLimit() +
+                    ", inFlight=" + getInFlight() +
+                    ", numRejected=" + getNumRejected() +
+                    '}';
+        }
+    }
+}
@@ -10,7 +10,15 @@ public abstract class AdvisorOrder {
     private AdvisorOrder() {
     }
 
-    public static final int TRANSACTION_RETRY_ADVISOR = Ordered.LOWEST_PRECEDENCE - 4;
+    public static final int CONCURRENCY_LIMITER_ADVISOR = Ordered.LOWEST_PRECEDENCE - 8;
+
+    public static final int SERIALIZE_ON_ADVISOR = Ordered.LOWEST_PRECEDENCE - 7;
+
+    public static final int TRANSACTION_RETRY_ADVISOR = Ordered.LOWEST_PRECEDENCE - 6;
+
+    public static final int REGION_AFFINITY_ADVISOR = Ordered.LOWEST_PRECEDENCE - 5;
+
+    public static final int TRANSACTION_CONTEXT_ADVISOR = Ordered.LOWEST_PRECEDENCE - 4;
 
     public static final int TRANSACTION_ADVISOR = Ordered.LOWEST_PRECEDENCE - 3;
 
@@ -0,0 +1,55 @@
+package org.springframework.data.cockroachdb.aspect;
+
+/**
+ * Enumeration of built-in backoff policies.
+ * <p>
+ * See {@link <a href="https://aws.amazon.com/blogs/architecture/exponential-backoff-and-jitter/">Exponential Backoff And Jitter</a>}
+ */
+public enum BackoffMode {
+    /**
+     * Constant delay of the initial backoff time between attempts.
+     */
+    FIXED {
+        @Override
+        public BackoffPolicy createPolicy(long initialBackoff, double multiplier, long maxBackoff) {
+            return new FixedBackoffPolicy(initialBackoff, maxBackoff);
+        }
+    },
+    /**
+     * Exponentially growing delay without jitter.
+     */
+    EXPONENTIAL {
+        @Override
+        public BackoffPolicy createPolicy(long initialBackoff, double multiplier, long maxBackoff) {
+            return new ExponentialBackoffPolicy(initialBackoff, multiplier, maxBackoff);
+        }
+    },
+    /**
+     * Random delay between zero and an exponentially growing upper bound.
+     */
+    FULL_JITTER {
+        @Override
+        public BackoffPolicy createPolicy(long initialBackoff, double multiplier, long maxBackoff) {
+            return new FullJitterBackoffPolicy(initialBackoff, multiplier, maxBackoff);
+        }
+    },
+    /**
+     * Random delay between the initial backoff and a multiple of the previous delay.
+     */
+    DECORRELATED_JITTER {
+        @Override
+        public BackoffPolicy createPolicy(long initialBackoff, double multiplier, long maxBackoff) {
+            return new DecorrelatedJitterBackoffPolicy(initialBackoff, multiplier, maxBackoff);
+        }
+    };
+
+    /**
+     * Create a policy instance for this mode.
+     *
+     * @param initialBackoff the base delay in millis
+     * @param multiplier the growth factor (ignored by {@link #FIXED})
+     * @param maxBackoff the upper bound of any delay in millis
+     * @return the backoff policy
+     */
+    public abstract BackoffPolicy createPolicy(long initialBackoff, double multiplier, long maxBackoff);
+}
@@ -0,0 +1,36 @@
+package org.springframework.data.cockroachdb.aspect;
+
+import org.springframework.data.cockroachdb.annotations.Retryable;
+
+/**
+ * Strategy interface (SPI) for computing the delay between retry attempts
+ * of a transaction that was aborted due to a transient error.
+ * <p>
+ * Implementations must be thread safe since a single instance may be shared
+ * across concurrent invocations. Any per-invocation state, like the previous
+ * delay, is passed in by the caller.
+ *
+ * @see BackoffMode
+ */
+public interface BackoffPolicy {
+    /**
+     * Compute the backoff delay before the next attempt.
+     *
+     * @param attempt the number of the failed attempt, starting at 1
+     * @param previousBackoffMillis the previous delay returned by this policy
+     * for the same invocation, or 0 if this is the first retry
+     * @return delay in millis before retrying, zero for immediate retry
+     */
+    long backoffMillis(int attempt, long previousBackoffMillis);
+
+    /**
+     * Create a backoff policy from the attributes of a retryable annotation.
+     *
+     * @param retryable the retryable annotation
+     * @return the backoff policy
+     */
+    static BackoffPolicy of(Retryable retryable) {
+        return retryable.backoffMode()
+                .createPolicy(retryable.initialBackoff(), retryable.multiplier(), retryable.maxBackoff());
+    }
+}
@@ -0,0 +1,13 @@
+package org.springframework.data.cockroachdb.aspect;
+
+import org.springframework.dao.TransientDataAccessResourceException;
+
+/**
+ * Exception thrown when a caller is rejected by the {@link ConcurrencyLimiterAspect}
+ * since no permit became available before the max wait time passed.
+ */
+public class ConcurrencyLimitExceededException extends TransientDataAccessResourceException {
+    public ConcurrencyLimitExceededException(String msg) {
+        super(msg);
+    }
+}
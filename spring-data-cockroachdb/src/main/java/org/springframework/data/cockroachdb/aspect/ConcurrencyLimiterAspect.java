@@ -0,0 +1,91 @@
+package org.springframework.data.cockroachdb.aspect;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletionStage;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.cockroachdb.annotations.Retryable;
+import org.springframework.util.Assert;
+
+/**
+ * AOP aspect that limits the number of concurrent executions of retryable methods,
+ * using an {@link AdaptiveConcurrencyLimiter}. Callers exceeding the limit are
+ * queued and rejected with a {@link ConcurrencyLimitExceededException} when the
+ * max wait time has passed.
+ * <p>
+ * This advice must be applied before the {@link TransactionRetryAspect}, so that
+ * queued callers don't hold any connections or transactions. The limiter should
+ * also be passed to the {@link TransactionRetryAspect} to receive serialization
+ * conflict signals.
+ */
+@Aspect
+@Order(ConcurrencyLimiterAspect.PRECEDENCE)
+public class ConcurrencyLimiterAspect {
+    /**
+     * The precedence at which this advice is ordered by which also controls
+     * the order it is invoked in the call chain between a source and target.
+     */
+    public static final int PRECEDENCE = AdvisorOrder.CONCURRENCY_LIMITER_ADVISOR;
+
+    protected final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    public ConcurrencyLimiterAspect(AdaptiveConcurrencyLimiter concurrencyLimiter) {
+        Assert.notNull(concurrencyLimiter, "concurrencyLimiter is null");
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    @Around(value = "org.springframework.data.cockroachdb.aspect.Pointcuts.anyRetryableOperation(retryable)",
+            argNames = "pjp,retryable")
+    public Object doLimitedOperation(ProceedingJoinPoint pjp, Retryable retryable) throws Throwable {
+        if (!(pjp.getSignature() instanceof MethodSignature)) {
+            return pjp.proceed();
+        }
+
+        Method method = ((MethodSignature) pjp.getSignature()).getMethod();
+        if (pjp.getTarget() != null) {
+            // Same key as the retry aspect under JDK dynamic proxies
+            method = AopUtils.getMostSpecificMethod(method, AopProxyUtils.ultimateTargetClass(pjp.getTarget()));
+        }
+
+        AdaptiveConcurrencyLimiter.Limit limit = concurrencyLimiter.getLimit(method);
+
+        if (!limit.tryAcquire()) {
+            throw new ConcurrencyLimitExceededException("No permit available within "
+                    + concurrencyLimiter.getMaxWaitMillis() + " ms for method ["
+                    + pjp.getSignature().toShortString() + "]: " + limit);
+        }
+
+        // Restarted by the retry aspect on each attempt
+        final AdaptiveConcurrencyLimiter.Sample sample = new AdaptiveConcurrencyLimiter.Sample();
+
+        Object rv;
+        AdaptiveConcurrencyLimiter.Sample previous = AdaptiveConcurrencyLimiter.Sample.bind(sample);
+        try {
+            rv = pjp.proceed();
+        } catch (Throwable ex) {
+            limit.release(-1);
+            throw ex;
+        } finally {
+            AdaptiveConcurrencyLimiter.Sample.bind(previous);
+        }
+
+        if (rv instanceof CompletionStage) {
+            ((CompletionStage<?>) rv).whenComplete((result, ex) ->
+                    limit.release(ex != null ? -1 : sample.getElapsedNanos(), sample.isConflicted()));
+        } else {
+            limit.release(sample.getElapsedNanos(), sample.isConflicted());
+        }
+
+        return rv;
+    }
+}
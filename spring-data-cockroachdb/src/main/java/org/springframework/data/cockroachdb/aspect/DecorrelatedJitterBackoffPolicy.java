@@ -0,0 +1,25 @@
+package org.springframework.data.cockroachdb.aspect;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Backoff policy picking a random delay between the initial backoff and the
+ * previous delay times a multiplier (typically 3), capped by a max backoff time.
+ * The delay is not a function of the attempt number, which decorrelates
+ * retries of transactions that failed at the same time.
+ */
+public class DecorrelatedJitterBackoffPolicy extends ExponentialBackoffPolicy {
+    public DecorrelatedJitterBackoffPolicy(long initialBackoff, double multiplier, long maxBackoff) {
+        super(initialBackoff, multiplier, maxBackoff);
+    }
+
+    @Override
+    public long backoffMillis(int attempt, long previousBackoffMillis) {
+        long lowerBound = Math.min(initialBackoff, maxBackoff);
+        long upperBound = (long) Math.min(Math.max(previousBackoffMillis, initialBackoff) * multiplier, maxBackoff);
+        if (upperBound <= lowerBound) {
+            return lowerBound;
+        }
+        return ThreadLocalRandom.current().nextLong(lowerBound, upperBound + 1);
+    }
+}
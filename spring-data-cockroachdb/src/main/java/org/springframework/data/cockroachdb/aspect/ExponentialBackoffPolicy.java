@@ -0,0 +1,34 @@
+package org.springframework.data.cockroachdb.aspect;
+
+import org.springframework.util.Assert;
+
+/**
+ * Backoff policy where the delay grows exponentially with each attempt
+ * ({@code initialBackoff * multiplier^(attempt-1)}), capped by a max backoff time.
+ */
+public class ExponentialBackoffPolicy implements BackoffPolicy {
+    protected final long initialBackoff;
+
+    protected final double multiplier;
+
+    protected final long maxBackoff;
+
+    public ExponentialBackoffPolicy(long initialBackoff, double multiplier, long maxBackoff) {
+        Assert.isTrue(initialBackoff >= 0, "initialBackoff must be >= 0");
+        Assert.isTrue(multiplier >= 1.0, "multiplier must be >= 1.0");
+        Assert.isTrue(maxBackoff >= 0, "maxBackoff must be >= 0");
+        this.initialBackoff = initialBackoff;
+        this.multiplier = multiplier;
+        this.maxBackoff = maxBackoff;
+    }
+
+    @Override
+    public long backoffMillis(int attempt, long previousBackoffMillis) {
+        return exponentialBackoff(attempt);
+    }
+
+    protected long exponentialBackoff(int attempt) {
+        double backoff = initialBackoff * Math.pow(multiplier, Math.max(0, attempt - 1));
+        return (long) Math.min(backoff, maxBackoff);
+    }
+}
@@ -0,0 +1,21 @@
+package org.springframework.data.cockroachdb.aspect;
+
+import org.springframework.util.Assert;
+
+/**
+ * Backoff policy with a constant delay between attempts.
+ */
+public class FixedBackoffPolicy implements BackoffPolicy {
+    private final long backoffMillis;
+
+    public FixedBackoffPolicy(long backoffMillis, long maxBackoff) {
+        Assert.isTrue(backoffMillis >= 0, "backoffMillis must be >= 0");
+        Assert.isTrue(maxBackoff >= 0, "maxBackoff must be >= 0");
+        this.backoffMillis = Math.min(backoffMillis, maxBackoff);
+    }
+
+    @Override
+    public long backoffMillis(int attempt, long previousBackoffMillis) {
+        return backoffMillis;
+    }
+}
@@ -0,0 +1,20 @@
+package org.springframework.data.cockroachdb.aspect;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Backoff policy picking a uniformly random delay between zero and the
+ * exponentially growing upper bound. Spreads out retries of conflicting
+ * transactions the most, at the cost of occasionally retrying immediately.
+ */
+public class FullJitterBackoffPolicy extends ExponentialBackoffPolicy {
+    public FullJitterBackoffPolicy(long initialBackoff, double multiplier, long maxBackoff) {
+        super(initialBackoff, multiplier, maxBackoff);
+    }
+
+    @Override
+    public long backoffMillis(int attempt, long previousBackoffMillis) {
+        long upperBound = exponentialBackoff(attempt);
+        return upperBound > 0 ? ThreadLocalRandom.current().nextLong(upperBound + 1) : 0;
+    }
+}
@@ -0,0 +1,429 @@
+package org.springframework.data.cockroachdb.aspect;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.cockroachdb.SessionState;
+import org.springframework.data.cockroachdb.annotations.Retryable;
+import org.springframework.data.cockroachdb.annotations.SetVariable;
+import org.springframework.data.cockroachdb.annotations.TimeTravel;
+import org.springframework.data.cockroachdb.annotations.TransactionBoundary;
+
+/**
+ * Immutable metadata for an advised method, resolved once and cached in a
+ * {@link MethodMetadataRegistry} to keep per-invocation overhead in the aspects
+ * to a minimum.
+ * <p>
+ * Method-level annotations take precedence over type-level annotations.
+ */
+public final class MethodMetadata {
+    /**
+     * Max number of session variables for which the SQL of every combination of
+     * variables to set is precompiled.
+     */
+    private static final int MAX_PRECOMPILED_SESSION_VARIABLES = 6;
+
+    /**
+     * Resolve the metadata for a method.
+     *
+     * @param method the advised method
+     * @param declaringType the type to fall back to for type-level annotations
+     * @return the method metadata
+     */
+    public static MethodMetadata of(Method method, Class<?> declaringType) {
+        return new MethodMetadata(method, declaringType);
+    }
+
+    private final Method method;
+
+    private final String methodName;
+
+    private final Retryable retryable;
+
+    private final TransactionBoundary transactionBoundary;
+
+    private final BackoffPolicy backoffPolicy;
+
+    private final RetryBudget retryBudget;
+
+    private final boolean asynchronous;
+
+    private final List<String> transactionAttributeStatements;
+
+    private final String transactionAttributeSql;
+
+    private final String transactionScopedSql;
+
+    private final List<SessionVariable> sessionVariables;
+
+    private final String[] sessionVariableSql;
+
+    private final String asOfSystemTime;
+
+    private final boolean boundedStaleness;
+
+    private final boolean readOnly;
+
+    private final boolean implicitIfSingleStatement;
+
+    private MethodMetadata(Method method, Class<?> declaringType) {
+        this.method = method;
+        this.methodName = declaringType.getSimpleName() + "." + method.getName() + "(..)";
+        this.retryable = findAnnotation(method, declaringType, Retryable.class);
+        this.transactionBoundary = findAnnotation(method, declaringType, TransactionBoundary.class);
+
+        if (retryable != null) {
+            this.backoffPolicy = BackoffPolicy.of(retryable);
+            this.retryBudget = retryable.retryBudgetRatio() >= 0 ? new RetryBudget(retryable.retryBudgetRatio()) : null;
+        } else {
+            this.backoffPolicy = null;
+            this.retryBudget = null;
+        }
+
+        Class<?> returnType = method.getReturnType();
+        this.asynchronous = CompletionStage.class.isAssignableFrom(returnType)
+                && returnType.isAssignableFrom(CompletableFuture.class);
+
+        if (transactionBoundary != null) {
+            TimeTravel timeTravel = transactionBoundary.timeTravel();
+            this.asOfSystemTime = compileAsOfSystemTime(timeTravel);
+            this.boundedStaleness = timeTravel.mode().isBoundedStaleness();
+            this.implicitIfSingleStatement = transactionBoundary.implicitIfSingleStatement() || boundedStaleness;
+            this.readOnly = transactionBoundary.readOnly() || asOfSystemTime != null;
+        } else {
+            this.readOnly = false;
+            this.asOfSystemTime = null;
+            this.boundedStaleness = false;
+            this.implicitIfSingleStatement = false;
+        }
+
+        List<String> statements = new ArrayList<>();
+        List<SessionVariable> variables = new ArrayList<>();
+        if (transactionBoundary != null) {
+            compileStatements(transactionBoundary, statements, variables);
+        }
+
+        this.transactionAttributeStatements = Collections.unmodifiableList(statements);
+        this.transactionAttributeSql = joinStatements(statements);
+        this.sessionVariables = Collections.unmodifiableList(variables);
+
+        List<String> transactionScoped = new ArrayList<>(statements);
+        variables.forEach(variable -> transactionScoped.remove(variable.getSql()));
+        this.transactionScopedSql = joinStatements(transactionScoped);
+        this.sessionVariableSql = variables.isEmpty() || variables.size() > MAX_PRECOMPILED_SESSION_VARIABLES
+                ? null : compileSessionVariableSql(transactionScoped, variables);
+    }
+
+    /**
+     * Compile the attribute SQL for each combination of session variables to set,
+     * indexed by a bit mask of the variable positions.
+     */
+    private static String[] compileSessionVariableSql(List<String> transactionScoped,
+                                                      List<SessionVariable> variables) {
+        String[] sql = new String[1 << variables.size()];
+        for (int mask = 0; mask < sql.length; mask++) {
+            List<String> statements = new ArrayList<>(transactionScoped);
+            for (int i = 0; i < variables.size(); i++) {
+                if ((mask & (1 << i)) != 0) {
+                    statements.add(variables.get(i).getSql());
+                }
+            }
+            sql[mask] = joinStatements(statements);
+        }
+        return sql;
+    }
+
+    private static String joinStatements(List<String> statements) {
+        return statements.isEmpty() ? null : String.join("; ", statements);
+    }
+
+    private static <A extends Annotation> A findAnnotation(Method method, Class<?> declaringType,
+                                                          Class<A> annotationType) {
+        A annotation = AnnotationUtils.findAnnotation(method, annotationType);
+        return annotation != null ? annotation : AnnotationUtils.findAnnotation(declaringType, annotationType);
+    }
+
+    private static void compileStatements(TransactionBoundary transactionBoundary, List<String> statements,
+                                          List<SessionVariable> sessionVariables) {
+        if (!"(empty)".equals(transactionBoundary.applicationName())) {
+            addSessionVariable("application_name", transactionBoundary.applicationName(),
+                    "SET application_name = " + quote(transactionBoundary.applicationName()),
+                    statements, sessionVariables);
+        }
+
+        // Transaction modes folded into a single statement
+        List<String> modes = new ArrayList<>();
+
+        if (!TransactionBoundary.Priority.normal.equals(transactionBoundary.priority())) {
+            modes.add("PRIORITY " + transactionBoundary.priority().name());
+        }
+
+        if (transactionBoundary.readOnly()) {
+            modes.add("READ ONLY");
+        }
+
+        // Bounded staleness is only allowed per statement in implicit transactions
+        TimeTravel timeTravel = transactionBoundary.timeTravel();
+        if (!timeTravel.mode().isBoundedStaleness()) {
+            String asOfSystemTime = compileAsOfSystemTime(timeTravel);
+            if (asOfSystemTime != null) {
+                modes.add("AS OF SYSTEM TIME " + asOfSystemTime);
+            }
+        }
+
+        if (!modes.isEmpty()) {
+            statements.add("SET TRANSACTION " + String.join(", ", modes));
+        }
+
+        if (!"0s".equals(transactionBoundary.idleTimeout())) {
+            addSessionVariable("idle_in_transaction_session_timeout", transactionBoundary.idleTimeout(),
+                    "SET idle_in_transaction_session_timeout = " + quote(transactionBoundary.idleTimeout()),
+                    statements, sessionVariables);
+        }
+
+        for (SetVariable var : transactionBoundary.variables()) {
+            if (!var.variable().isMutable()) {
+                throw new InvalidDataAccessApiUsageException(
+                        "Attempting to modify a read-only session variable: " + var.variable().name());
+            }
+            String value = var.intValue() >= 0 ? String.valueOf(var.intValue()) : var.value();
+            String sql = "SET " + var.scope().name() + " " + var.variable() + " = "
+                    + (var.intValue() >= 0 ? value : quote(value));
+            if (SetVariable.Scope.session.equals(var.scope())) {
+                addSessionVariable(var.variable().name(), value, sql, statements, sessionVariables);
+            } else {
+                statements.add(sql);
+            }
+        }
+    }
+
+    private static String compileAsOfSystemTime(TimeTravel timeTravel) {
+        switch (timeTravel.mode()) {
+            case FOLLOWER_READ:
+                return "follower_read_timestamp()";
+            case HISTORICAL_READ:
+                return "INTERVAL " + quote(timeTravel.interval());
+            case MAX_STALENESS:
+                return "with_max_staleness(" + quote(timeTravel.staleness()) + ")";
+            case MIN_TIMESTAMP:
+                return "with_min_timestamp(now() - INTERVAL " + quote(timeTravel.staleness()) + ")";
+            default:
+                return null;
+        }
+    }
+
+    private static void addSessionVariable(String name, String value, String sql, List<String> statements,
+                                           List<SessionVariable> sessionVariables) {
+        statements.add(sql);
+        sessionVariables.add(new SessionVariable(name, value, sql));
+    }
+
+    private static String quote(String value) {
+        return "'" + value.replace("'", "''") + "'";
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    /**
+     * @return the short method name for logging, equivalent to {@code Signature.toShortString()}
+     */
+    public String getMethodName() {
+        return methodName;
+    }
+
+    public Retryable getRetryable() {
+        return retryable;
+    }
+
+    public TransactionBoundary getTransactionBoundary() {
+        return transactionBoundary;
+    }
+
+    /**
+     * @return the backoff policy declared by the retryable annotation, or null
+     */
+    public BackoffPolicy getBackoffPolicy() {
+        return backoffPolicy;
+    }
+
+    /**
+     * @return the per-method retry budget if declared by the retryable annotation, or null
+     */
+    public RetryBudget getRetryBudget() {
+        return retryBudget;
+    }
+
+    /**
+     * @return true if the method returns a completion stage
+     */
+    public boolean isAsynchronous() {
+        return asynchronous;
+    }
+
+    /**
+     * @return the precompiled SQL statements for applying the transaction boundary attributes
+     */
+    public List<String> getTransactionAttributeStatements() {
+        return transactionAttributeStatements;
+    }
+
+    /**
+     * @return the transaction attribute statements joined into a single multi-statement
+     * SQL string for one round trip, or null if there are no attributes to apply
+     */
+    public String getTransactionAttributeSql() {
+        return transactionAttributeSql;
+    }
+
+    /**
+     * @return the AS OF SYSTEM TIME expression of the time travel mode, or null if disabled
+     */
+    public String getAsOfSystemTime() {
+        return asOfSystemTime;
+    }
+
+    /**
+     * @return true if the time travel mode is a bounded staleness read, which can't be
+     * applied to explicit transactions
+     */
+    public boolean isBoundedStaleness() {
+        return boundedStaleness;
+    }
+
+    /**
+     * @return true if the transaction boundary is read-only, either as declared or
+     * implied by a time travel read
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * @return true if the BEGIN should be deferred until a second statement, either as
+     * declared or implied by a bounded staleness read
+     */
+    public boolean isImplicitIfSingleStatement() {
+        return implicitIfSingleStatement;
+    }
+
+    /**
+     * Get the transaction attribute SQL for a connection, skipping session variables
+     * the connection already holds. The SQL is precompiled unless there are more than
+     * {@value #MAX_PRECOMPILED_SESSION_VARIABLES} session variables.
+     *
+     * @param sessionState the session state of the connection, or null if not tracked
+     * @return the statements to apply in a single round trip, or null if there are none
+     */
+    public String getTransactionAttributeSql(SessionState sessionState) {
+        if (sessionState == null || sessionVariables.isEmpty()) {
+            return transactionAttributeSql;
+        }
+
+        if (sessionVariableSql != null) {
+            int mask = 0;
+            for (int i = 0; i < sessionVariables.size(); i++) {
+                SessionVariable variable = sessionVariables.get(i);
+                if (!sessionState.hasValue(variable.getName(), variable.getValue())) {
+                    mask |= 1 << i;
+                }
+            }
+            return sessionVariableSql[mask];
+        }
+
+        StringBuilder sql = new StringBuilder();
+
+        if (transactionScopedSql != null) {
+            sql.append(transactionScopedSql);
+        }
+
+        for (int i = 0; i < sessionVariables.size(); i++) {
+            SessionVariable variable = sessionVariables.get(i);
+            if (!sessionState.hasValue(variable.getName(), variable.getValue())) {
+                if (sql.length() > 0) {
+                    sql.append("; ");
+                }
+                sql.append(variable.getSql());
+            }
+        }
+
+        return sql.length() > 0 ? sql.toString() : null;
+    }
+
+    /**
+     * Record the session variables as set on a connection, after the statements
+     * from {@link #getTransactionAttributeSql(SessionState)} are executed.
+     *
+     * @param sessionState the session state of the connection, or null if not tracked
+     */
+    public void updateSessionState(SessionState sessionState) {
+        if (sessionState != null) {
+            for (int i = 0; i < sessionVariables.size(); i++) {
+                SessionVariable variable = sessionVariables.get(i);
+                sessionState.setValue(variable.getName(), variable.getValue());
+            }
+        }
+    }
+
+    /**
+     * @return the transaction-scoped attribute statements joined into a single SQL string,
+     * or null if there are none
+     */
+    public String getTransactionScopedSql() {
+        return transactionScopedSql;
+    }
+
+    /**
+     * @return the session-scoped variables set by the transaction boundary, which
+     * remain in effect on the connection after the transaction ends
+     */
+    public List<SessionVariable> getSessionVariables() {
+        return sessionVariables;
+    }
+
+    @Override
+    public String toString() {
+        return "MethodMetadata{" +
+                "methodName='" + methodName + '\'' +
+                ", retryable=" + retryable +
+                ", transactionBoundary=" + transactionBoundary +
+                '}';
+    }
+
+    /**
+     * A session-scoped variable and the precompiled statement setting it.
+     */
+    public static final class SessionVariable {
+        private final String name;
+
+        private final String value;
+
+        private final String sql;
+
+        SessionVariable(String name, String value, String sql) {
+            this.name = name;
+            this.value = value;
+            this.sql = sql;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.springframework.data.cockroachdb.aspect;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.MethodClassKey;
+
+/**
+ * Registry of {@link MethodMetadata} keyed by method and target class. Metadata is
+ * resolved on the first invocation of each method and served from the cache thereafter.
+ * A registry may be shared between aspects.
+ * <p>
+ * Annotations are resolved on the most specific method of the target class, since the
+ * join point signature refers to the interface method under JDK dynamic proxies.
+ */
+public class MethodMetadataRegistry {
+    private final Map<MethodClassKey, MethodMetadata> metadata = new ConcurrentHashMap<>(256);
+
+    /**
+     * @param pjp the join point of an advised method
+     * @return the metadata for the advised method
+     */
+    public MethodMetadata getMetadata(ProceedingJoinPoint pjp) {
+        Method method = ((MethodSignature) pjp.getSignature()).getMethod();
+        Class<?> targetClass = pjp.getTarget() != null
+                ? AopProxyUtils.ultimateTargetClass(pjp.getTarget())
+                : pjp.getSignature().getDeclaringType();
+        return getMetadata(method, targetClass);
+    }
+
+    /**
+     * @param method the invoked method, possibly declared by an interface
+     * @param targetClass the target class
+     * @return the metadata for the most specific method of the target class
+     */
+    public MethodMetadata getMetadata(Method method, Class<?> targetClass) {
+        MethodClassKey key = new MethodClassKey(method, targetClass);
+        MethodMetadata methodMetadata = metadata.get(key);
+        if (methodMetadata == null) {
+            methodMetadata = metadata.computeIfAbsent(key,
+                    k -> MethodMetadata.of(AopUtils.getMostSpecificMethod(method, targetClass), targetClass));
+        }
+        return methodMetadata;
+    }
+
+    /**
+     * Eagerly resolve the metadata of a method, for example at startup.
+     *
+     * @param method the method
+     * @return the metadata for the method
+     */
+    public MethodMetadata register(Method method) {
+        return getMetadata(method, method.getDeclaringClass());
+    }
+
+    /**
+     * @return all metadata resolved so far, keyed by the most specific method
+     */
+    public Map<Method, MethodMetadata> getMetadata() {
+        Map<Method, MethodMetadata> methods = new LinkedHashMap<>();
+        metadata.values().forEach(m -> methods.put(m.getMethod(), m));
+        return Collections.unmodifiableMap(methods);
+    }
+}
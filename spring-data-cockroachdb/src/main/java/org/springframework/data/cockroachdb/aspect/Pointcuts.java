@@ -2,7 +2,9 @@ package org.springframework.data.cockroachdb.aspect;
 
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.data.cockroachdb.annotations.RegionAffinity;
 import org.springframework.data.cockroachdb.annotations.Retryable;
+import org.springframework.data.cockroachdb.annotations.SerializeOn;
 import org.springframework.data.cockroachdb.annotations.TransactionBoundary;
 
 @Aspect
@@ -22,4 +24,20 @@ public class Pointcuts {
             + "&& @annotation(retryable)")
     public void anyRetryableOperation(Retryable retryable) {
     }
+
+    /**
+     * Pointcut expression matching all operations serialized on keys.
+     */
+    @Pointcut("execution(public * *(..)) "
+            + "&& @annotation(serializeOn)")
+    public void anySerializedOperation(SerializeOn serializeOn) {
+    }
+
+    /**
+     * Pointcut expression matching all operations with region affinity.
+     */
+    @Pointcut("execution(public * *(..)) "
+            + "&& @annotation(regionAffinity)")
+    public void anyRegionAffinityOperation(RegionAffinity regionAffinity) {
+    }
 }
@@ -0,0 +1,77 @@
+package org.springframework.data.cockroachdb.aspect;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.cockroachdb.annotations.RegionAffinity;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+
+/**
+ * AOP aspect that binds the region extracted from the arguments of {@link RegionAffinity}
+ * annotated methods to a {@link RegionContext}, for the
+ * {@link org.springframework.data.cockroachdb.CockroachRegionRoutingDataSource} to route on.
+ * <p>
+ * This advice must be applied before the Spring transaction advisor in the call chain, since
+ * the connection is obtained when the transaction begins. A nested invocation without a
+ * region inherits the region of the outer invocation.
+ */
+@Aspect
+@Order(RegionAffinityAspect.PRECEDENCE)
+public class RegionAffinityAspect {
+    /**
+     * The precedence at which this advice is ordered by which also controls
+     * the order it is invoked in the call chain between a source and target.
+     */
+    public static final int PRECEDENCE = AdvisorOrder.REGION_AFFINITY_ADVISOR;
+
+    private final ExpressionParser parser = new SpelExpressionParser();
+
+    private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+
+    private final Map<String, Expression> expressionCache = new ConcurrentHashMap<>();
+
+    @Around(value = "org.springframework.data.cockroachdb.aspect.Pointcuts.anyRegionAffinityOperation(regionAffinity)",
+            argNames = "pjp,regionAffinity")
+    public Object doInRegion(ProceedingJoinPoint pjp, RegionAffinity regionAffinity) throws Throwable {
+        String region = extractRegion(pjp, regionAffinity);
+        if (region == null) {
+            return pjp.proceed();
+        }
+
+        String previous = RegionContext.bind(region);
+        try {
+            return pjp.proceed();
+        } finally {
+            RegionContext.bind(previous);
+        }
+    }
+
+    private String extractRegion(ProceedingJoinPoint pjp, RegionAffinity regionAffinity) {
+        Method method = ((MethodSignature) pjp.getSignature()).getMethod();
+        if (pjp.getTarget() != null) {
+            // Resolve parameter names from the target class under JDK dynamic proxies
+            method = AopUtils.getMostSpecificMethod(method, AopProxyUtils.ultimateTargetClass(pjp.getTarget()));
+        }
+
+        MethodBasedEvaluationContext context = new MethodBasedEvaluationContext(
+                pjp.getTarget(), method, pjp.getArgs(), parameterNameDiscoverer);
+
+        Object value = expressionCache.computeIfAbsent(regionAffinity.value(), parser::parseExpression)
+                .getValue(context);
+
+        return value != null ? value.toString() : null;
+    }
+}
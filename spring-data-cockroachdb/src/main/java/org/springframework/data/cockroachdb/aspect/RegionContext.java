@@ -0,0 +1,38 @@
+package org.springframework.data.cockroachdb.aspect;
+
+import org.springframework.core.NamedThreadLocal;
+
+/**
+ * Thread-bound region of a {@link org.springframework.data.cockroachdb.annotations.RegionAffinity}
+ * invocation, bound by the {@link RegionAffinityAspect} before the transaction is started.
+ */
+public final class RegionContext {
+    private static final ThreadLocal<String> currentRegion
+            = new NamedThreadLocal<>("Current region affinity");
+
+    private RegionContext() {
+    }
+
+    /**
+     * @return the region of the current invocation or null if none is bound
+     */
+    public static String getCurrentRegion() {
+        return currentRegion.get();
+    }
+
+    /**
+     * Bind a region to the current thread.
+     *
+     * @param region the region to bind, or null to unbind
+     * @return the previously bound region, or null
+     */
+    public static String bind(String region) {
+        String previous = currentRegion.get();
+        if (region != null) {
+            currentRegion.set(region);
+        } else {
+            currentRegion.remove();
+        }
+        return previous;
+    }
+}
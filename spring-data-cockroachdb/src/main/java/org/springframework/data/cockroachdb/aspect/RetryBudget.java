@@ -0,0 +1,131 @@
+package org.springframework.data.cockroachdb.aspect;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.util.Assert;
+
+/**
+ * A lock-free token bucket that caps the number of retries to a ratio of first
+ * attempts, to prevent retry storms from amplifying load on a contended cluster.
+ * <p>
+ * Each first attempt deposits a fraction of a token (the retry ratio) and each retry
+ * withdraws one whole token. The bucket starts full and the balance is capped at the
+ * max number of tokens, which bounds the size of retry bursts. When the bucket is
+ * empty, retries are rejected until enough first attempts have replenished it.
+ * <p>
+ * A budget may be shared by any number of methods and threads.
+ */
+public class RetryBudget {
+    public static final int DEFAULT_MAX_TOKENS = 100;
+
+    /**
+     * Fixed-point scale for fractional token deposits.
+     */
+    private static final long SCALE = 1000;
+
+    private final double retryRatio;
+
+    private final int maxTokens;
+
+    private final long depositAmount;
+
+    private final long maxBalance;
+
+    private final AtomicLong balance;
+
+    private final LongAdder numAttempts = new LongAdder();
+
+    private final LongAdder numRetries = new LongAdder();
+
+    private final LongAdder numRejected = new LongAdder();
+
+    /**
+     * Create a new budget with the default max number of tokens.
+     *
+     * @param retryRatio ratio of retries to first attempts, i.e 0.1 for 10%
+     */
+    public RetryBudget(double retryRatio) {
+        this(retryRatio, DEFAULT_MAX_TOKENS);
+    }
+
+    /**
+     * Create a new budget.
+     *
+     * @param retryRatio ratio of retries to first attempts, i.e 0.1 for 10%
+     * @param maxTokens max number of retries that can be spent in a burst
+     */
+    public RetryBudget(double retryRatio, int maxTokens) {
+        Assert.isTrue(retryRatio >= 0, "retryRatio must be >= 0");
+        Assert.isTrue(maxTokens > 0, "maxTokens must be > 0");
+        this.retryRatio = retryRatio;
+        this.maxTokens = maxTokens;
+        this.depositAmount = Math.round(retryRatio * SCALE);
+        this.maxBalance = maxTokens * SCALE;
+        this.balance = new AtomicLong(maxBalance);
+    }
+
+    /**
+     * Record a first attempt, depositing the retry ratio into the bucket.
+     */
+    public void recordAttempt() {
+        numAttempts.increment();
+        if (depositAmount > 0) {
+            balance.accumulateAndGet(depositAmount, (current, amount) -> Math.min(current + amount, maxBalance));
+        }
+    }
+
+    /**
+     * Attempt to withdraw one token for a retry.
+     *
+     * @return true if the retry is within budget, otherwise false
+     */
+    public boolean tryAcquireRetry() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < SCALE) {
+                numRejected.increment();
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - SCALE));
+        numRetries.increment();
+        return true;
+    }
+
+    public double getRetryRatio() {
+        return retryRatio;
+    }
+
+    public int getMaxTokens() {
+        return maxTokens;
+    }
+
+    public double getAvailableTokens() {
+        return balance.get() / (double) SCALE;
+    }
+
+    public long getNumAttempts() {
+        return numAttempts.sum();
+    }
+
+    public long getNumRetries() {
+        return numRetries.sum();
+    }
+
+    public long getNumRejected() {
+        return numRejected.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "RetryBudget{" +
+                "retryRatio=" + retryRatio +
+                ", maxTokens=" + maxTokens +
+                ", availableTokens=" + getAvailableTokens() +
+                ", numAttempts=" + getNumAttempts() +
+                ", numRetries=" + getNumRetries() +
+                ", numRejected=" + getNumRejected() +
+                '}';
+    }
+}
@@ -0,0 +1,20 @@
+package org.springframework.data.cockroachdb.aspect;
+
+import org.springframework.dao.ConcurrencyFailureException;
+
+/**
+ * Exception thrown when a transient error is not retried because
+ * the {@link RetryBudget} in scope is exhausted.
+ */
+public class RetryBudgetExhaustedException extends ConcurrencyFailureException {
+    private final transient RetryBudget retryBudget;
+
+    public RetryBudgetExhaustedException(String msg, RetryBudget retryBudget, Throwable cause) {
+        super(msg, cause);
+        this.retryBudget = retryBudget;
+    }
+
+    public RetryBudget getRetryBudget() {
+        return retryBudget;
+    }
+}
@@ -13,10 +13,18 @@ public class RetryEvent extends ApplicationEvent {
 
     private final List<SQLException> transientExceptions;
 
+    private final RetryBudget retryBudget;
+
     public RetryEvent(Object source, String message, List<SQLException> transientExceptions) {
+        this(source, message, transientExceptions, null);
+    }
+
+    public RetryEvent(Object source, String message, List<SQLException> transientExceptions,
+                      RetryBudget retryBudget) {
         super(source);
         this.message = message;
         this.transientExceptions = transientExceptions;
+        this.retryBudget = retryBudget;
     }
 
     public String getMessage() {
@@ -26,4 +34,11 @@ public class RetryEvent extends ApplicationEvent {
     public List<SQLException> getTransientExceptions() {
         return transientExceptions;
     }
+
+    /**
+     * @return the retry budget that was in scope for the retries, or null if none
+     */
+    public RetryBudget getRetryBudget() {
+        return retryBudget;
+    }
 }
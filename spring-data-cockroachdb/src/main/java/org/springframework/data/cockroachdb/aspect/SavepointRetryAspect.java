@@ -3,6 +3,7 @@ package org.springframework.data.cockroachdb.aspect;
 import java.lang.reflect.UndeclaredThrowableException;
 import java.sql.SQLException;
 import java.sql.Savepoint;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.aspectj.lang.ProceedingJoinPoint;
@@ -10,7 +11,6 @@ import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.core.annotation.Order;
 import org.springframework.dao.TransientDataAccessException;
 import org.springframework.data.cockroachdb.annotations.Retryable;
@@ -23,6 +23,7 @@ import org.springframework.transaction.TransactionSystemException;
 import org.springframework.transaction.support.DefaultTransactionDefinition;
 import org.springframework.transaction.support.DefaultTransactionStatus;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
 
 /**
  * AOP advice for making transaction boundary methods rollback to savepoint
@@ -30,6 +31,9 @@ import org.springframework.transaction.support.TransactionSynchronizationManager
  * <p>
  * Requires that this advice runs in a non-TX context before the
  * TX advisor.
+ * <p>
+ * If a {@link RetryBudget} is set or declared per method, retries are also capped
+ * by the budget and a {@link RetryBudgetExhaustedException} is thrown when it's spent.
  *
  * @see TransactionRetryAspect
  */
@@ -48,25 +52,61 @@ public class SavepointRetryAspect {
 
     private PlatformTransactionManager transactionManager;
 
+    private MethodMetadataRegistry methodMetadataRegistry = new MethodMetadataRegistry();
+
+    private RetryBudget retryBudget;
+
     public SavepointRetryAspect(PlatformTransactionManager transactionManager, String savepointName) {
         this.transactionManager = transactionManager;
         this.savepointName = savepointName;
     }
 
+    /**
+     * Sets the registry used to resolve method metadata, for sharing the registry
+     * between aspects.
+     *
+     * @param methodMetadataRegistry the method metadata registry
+     */
+    public void setMethodMetadataRegistry(MethodMetadataRegistry methodMetadataRegistry) {
+        Assert.notNull(methodMetadataRegistry, "methodMetadataRegistry is null");
+        this.methodMetadataRegistry = methodMetadataRegistry;
+    }
+
+    /**
+     * Sets the global retry budget shared by all retryable methods that don't
+     * declare their own budget ratio.
+     *
+     * @param retryBudget the retry budget, or null for unlimited retries
+     */
+    public void setRetryBudget(RetryBudget retryBudget) {
+        this.retryBudget = retryBudget;
+    }
+
     @Around(value = "org.springframework.data.cockroachdb.aspect.Pointcuts.anyRetryableOperation(retryable)", argNames = "pjp,retryable")
     public Object doRetryableOperation(ProceedingJoinPoint pjp, Retryable retryable) throws Throwable {
         Object rv;
 
-        // Grab from type if needed (for non-annotated methods)
+        final MethodMetadata metadata = methodMetadataRegistry.getMetadata(pjp);
+
+        // Bound annotation, or grabbed from type (for non-annotated methods)
         if (retryable == null) {
-            retryable = AnnotationUtils.findAnnotation(pjp.getSignature().getDeclaringType(), Retryable.class);
+            retryable = metadata.getRetryable();
         }
 
+        Assert.notNull(retryable, "No @Retryable annotation found!?");
+
         if (TransactionSynchronizationManager.isActualTransactionActive()) {
             throw new IllegalStateException("TX already active -- possible Spring profile conflict");
         }
 
-        AtomicLong backoffMillis = new AtomicLong(150);
+        final BackoffPolicy backoffPolicy = resolveBackoffPolicy(metadata);
+        final RetryBudget retryBudget = resolveRetryBudget(metadata);
+        final AtomicLong backoffMillis = new AtomicLong();
+        final AtomicInteger numRetries = new AtomicInteger();
+
+        if (retryBudget != null) {
+            retryBudget.recordAttempt();
+        }
 
         for (int outerAttempts = 1; ; outerAttempts++) {
             if (outerAttempts >= retryable.retryAttempts()) {
@@ -95,13 +135,13 @@ public class SavepointRetryAspect {
                         break;
                     } catch (TransientDataAccessException ex) {
                         handleTransientException(ex, innerAttempts + outerAttempts, retryable.retryAttempts(),
-                                pjp, backoffMillis);
+                                pjp, backoffPolicy, retryBudget, numRetries, backoffMillis);
                         status.rollbackToSavepoint(savepoint);
                     } catch (UndeclaredThrowableException ex) {
                         Throwable t = ex.getUndeclaredThrowable();
                         if (t instanceof TransientDataAccessException) {
                             handleTransientException(t, outerAttempts,
-                                    retryable.retryAttempts(), pjp, backoffMillis);
+                                    retryable.retryAttempts(), pjp, backoffPolicy, retryBudget, numRetries, backoffMillis);
                         } else {
                             rollbackOnException(status, ex);
                             throw ex;
@@ -109,9 +149,13 @@ public class SavepointRetryAspect {
                     }
                 }
                 status.releaseSavepoint(savepoint); // May throw transient errors, catch in outer loop and rollback entire TX
+            } catch (RetryBudgetExhaustedException ex) {
+                rollbackOnException(status, ex);
+                throw ex;
             } catch (TransientDataAccessException ex) {
-                handleTransientException(ex, outerAttempts, retryable.retryAttempts(), pjp, backoffMillis);
                 this.transactionManager.rollback(status);
+                handleTransientException(ex, outerAttempts, retryable.retryAttempts(), pjp, backoffPolicy,
+                        retryBudget, numRetries, backoffMillis);
                 continue;
             } catch (RuntimeException | Error ex) {
                 rollbackOnException(status, ex);
@@ -126,13 +170,37 @@ public class SavepointRetryAspect {
                 transactionManager.commit(status);
                 break;
             } catch (TransientDataAccessException | TransactionSystemException ex) {
-                handleTransientException(ex, outerAttempts, retryable.retryAttempts(), pjp, backoffMillis);
+                handleTransientException(ex, outerAttempts, retryable.retryAttempts(), pjp, backoffPolicy,
+                        retryBudget, numRetries, backoffMillis);
             }
         }
 
         return rv;
     }
 
+    /**
+     * Resolve the backoff policy for a retryable operation. Subclasses may override
+     * this method to plug in a custom {@link BackoffPolicy}.
+     *
+     * @param metadata the metadata of the retryable method
+     * @return the backoff policy to apply between attempts
+     */
+    protected BackoffPolicy resolveBackoffPolicy(MethodMetadata metadata) {
+        return metadata.getBackoffPolicy();
+    }
+
+    /**
+     * Resolve the retry budget for a retryable operation, which is either a per-method
+     * budget if the annotation declares a ratio, or the global budget.
+     *
+     * @param metadata the metadata of the retryable method
+     * @return the retry budget or null if retries are unlimited
+     */
+    protected RetryBudget resolveRetryBudget(MethodMetadata metadata) {
+        RetryBudget methodRetryBudget = metadata.getRetryBudget();
+        return methodRetryBudget != null ? methodRetryBudget : retryBudget;
+    }
+
     private Savepoint createSavepoint(TransactionStatus status) {
         DefaultTransactionStatus defStatus = (DefaultTransactionStatus) status;
         JdbcTransactionObjectSupport sm = (JdbcTransactionObjectSupport) defStatus.getTransaction();
@@ -148,20 +216,30 @@ public class SavepointRetryAspect {
     }
 
     private void handleTransientException(Throwable ex, int numAttempts, int totalAttempts,
-                                          ProceedingJoinPoint pjp, AtomicLong backoffMillis) {
+                                          ProceedingJoinPoint pjp, BackoffPolicy backoffPolicy,
+                                          RetryBudget retryBudget,
+                                          AtomicInteger numRetries, AtomicLong backoffMillis) {
+        if (retryBudget != null && !retryBudget.tryAcquireRetry()) {
+            throw new RetryBudgetExhaustedException("Retry budget exhausted after " + numAttempts
+                    + " attempts for method [" + pjp.getSignature().toShortString() + "]: " + retryBudget,
+                    retryBudget, ex);
+        }
+
+        long delay = backoffPolicy.backoffMillis(numRetries.incrementAndGet(), backoffMillis.get());
+        backoffMillis.set(delay);
+
         if (logger.isWarnEnabled()) {
             logger.warn("Transient data access exception (" + numAttempts + " of max " + totalAttempts + ") "
-                    + " (retry in " + backoffMillis + " ms) "
+                    + " (retry in " + delay + " ms) "
                     + "in method '" + pjp.getSignature().toShortString() + "': " + ex.getMessage());
         }
-        if (backoffMillis.get() >= 0) {
+        if (delay > 0) {
             try {
-                Thread.sleep(backoffMillis.get());
+                Thread.sleep(delay);
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
                 e.printStackTrace();
             }
-            backoffMillis.set(Math.min((long) (backoffMillis.get() * 1.5), 5000));
         }
     }
 
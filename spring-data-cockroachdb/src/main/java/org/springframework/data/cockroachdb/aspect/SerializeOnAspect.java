@@ -0,0 +1,139 @@
+package org.springframework.data.cockroachdb.aspect;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.cockroachdb.annotations.SerializeOn;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * AOP aspect that serializes invocations of {@link SerializeOn} annotated methods on
+ * keys extracted from the method arguments, using a {@link StripedKeyLock}.
+ * <p>
+ * This advice must be applied before the {@link TransactionRetryAspect} and the Spring
+ * transaction advisor in the call chain, so that the locks are held for the entire
+ * transaction including retries. The locks only serialize calls within the same JVM and
+ * are owned by the calling thread, hence methods returning a {@link CompletionStage} are
+ * rejected since the locks would be released before the stage completes.
+ * <p>
+ * The lock wait times are observable through {@link StripedKeyLock}.
+ */
+@Aspect
+@Order(SerializeOnAspect.PRECEDENCE)
+public class SerializeOnAspect {
+    /**
+     * The precedence at which this advice is ordered by which also controls
+     * the order it is invoked in the call chain between a source and target.
+     */
+    public static final int PRECEDENCE = AdvisorOrder.SERIALIZE_ON_ADVISOR;
+
+    protected final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final ExpressionParser parser = new SpelExpressionParser();
+
+    private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+
+    private final Map<String, Expression> expressionCache = new ConcurrentHashMap<>();
+
+    private final StripedKeyLock keyLock;
+
+    public SerializeOnAspect() {
+        this(new StripedKeyLock());
+    }
+
+    public SerializeOnAspect(StripedKeyLock keyLock) {
+        Assert.notNull(keyLock, "keyLock is null");
+        this.keyLock = keyLock;
+    }
+
+    public StripedKeyLock getKeyLock() {
+        return keyLock;
+    }
+
+    @Around(value = "org.springframework.data.cockroachdb.aspect.Pointcuts.anySerializedOperation(serializeOn)",
+            argNames = "pjp,serializeOn")
+    public Object doSerializedOperation(ProceedingJoinPoint pjp, SerializeOn serializeOn) throws Throwable {
+        Assert.isTrue(!TransactionSynchronizationManager.isActualTransactionActive(),
+                "Expecting NO active transaction - check advice @Order and @EnableTransactionManagement order");
+
+        final Method method = getMostSpecificMethod(pjp);
+        if (CompletionStage.class.isAssignableFrom(method.getReturnType())) {
+            throw new InvalidDataAccessApiUsageException("Method [" + pjp.getSignature().toShortString()
+                    + "] returning a CompletionStage can't be serialized on thread owned key locks");
+        }
+
+        final Collection<Object> keys = extractKeys(pjp, method, serializeOn);
+        if (keys.isEmpty()) {
+            return pjp.proceed();
+        }
+
+        final int[] stripes = keyLock.tryLock(keys, serializeOn.maxWait(), TimeUnit.MILLISECONDS);
+        if (stripes == null) {
+            throw new CannotAcquireLockException("Unable to lock " + keys.size() + " key(s) within "
+                    + serializeOn.maxWait() + " ms for method [" + pjp.getSignature().toShortString() + "]");
+        }
+
+        try {
+            return pjp.proceed();
+        } finally {
+            keyLock.unlock(stripes);
+        }
+    }
+
+    private static Method getMostSpecificMethod(ProceedingJoinPoint pjp) {
+        Method method = ((MethodSignature) pjp.getSignature()).getMethod();
+        if (pjp.getTarget() != null) {
+            // Resolve parameter names from the target class under JDK dynamic proxies
+            method = AopUtils.getMostSpecificMethod(method, AopProxyUtils.ultimateTargetClass(pjp.getTarget()));
+        }
+        return method;
+    }
+
+    private Collection<Object> extractKeys(ProceedingJoinPoint pjp, Method method, SerializeOn serializeOn) {
+        MethodBasedEvaluationContext context = new MethodBasedEvaluationContext(
+                pjp.getTarget(), method, pjp.getArgs(), parameterNameDiscoverer);
+
+        Object value = expressionCache.computeIfAbsent(serializeOn.key(), parser::parseExpression)
+                .getValue(context);
+
+        List<Object> keys = new ArrayList<>();
+        if (value instanceof Collection) {
+            ((Collection<?>) value).stream().filter(Objects::nonNull).forEach(keys::add);
+        } else if (value != null && value.getClass().isArray()) {
+            for (Object key : ObjectUtils.toObjectArray(value)) {
+                if (key != null) {
+                    keys.add(key);
+                }
+            }
+        } else if (value != null) {
+            keys.add(value);
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,135 @@
+package org.springframework.data.cockroachdb.aspect;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.util.Assert;
+
+/**
+ * A bounded lock table mapping arbitrary keys onto a fixed number of lock stripes.
+ * <p>
+ * Keys are hashed to stripes and the stripes of a key set are always locked in
+ * ascending order, which prevents deadlocks between overlapping key sets. Keys
+ * sharing a stripe are serialized even if not equal, so the number of stripes
+ * trades memory for false sharing.
+ */
+public class StripedKeyLock {
+    public static final int DEFAULT_STRIPES = 1024;
+
+    private final ReentrantLock[] locks;
+
+    private final LongAdder numAcquired = new LongAdder();
+
+    private final LongAdder numTimeouts = new LongAdder();
+
+    private final LongAdder totalWaitNanos = new LongAdder();
+
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public StripedKeyLock() {
+        this(DEFAULT_STRIPES);
+    }
+
+    public StripedKeyLock(int stripes) {
+        Assert.isTrue(stripes > 0, "stripes must be > 0");
+        this.locks = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.locks[i] = new ReentrantLock(true);
+        }
+    }
+
+    /**
+     * Lock the stripes of the given keys in ascending order.
+     *
+     * @param keys the keys to lock
+     * @param timeout max time to wait for all locks
+     * @param unit time unit of the timeout
+     * @return the locked stripes to pass to {@link #unlock(int[])}, or null on timeout
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public int[] tryLock(Collection<?> keys, long timeout, TimeUnit unit) throws InterruptedException {
+        final int[] stripes = keys.stream()
+                .mapToInt(this::stripeOf)
+                .distinct()
+                .sorted()
+                .toArray();
+
+        final long startTime = System.nanoTime();
+        final long deadline = startTime + unit.toNanos(timeout);
+
+        int numLocked = 0;
+        try {
+            for (int stripe : stripes) {
+                if (!locks[stripe].tryLock(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    numTimeouts.increment();
+                    return null;
+                }
+                numLocked++;
+            }
+        } finally {
+            if (numLocked < stripes.length) {
+                unlock(Arrays.copyOf(stripes, numLocked));
+            }
+        }
+
+        long waitNanos = System.nanoTime() - startTime;
+        numAcquired.increment();
+        totalWaitNanos.add(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+
+        return stripes;
+    }
+
+    /**
+     * Unlock previously locked stripes in reverse order.
+     *
+     * @param stripes the stripes returned by {@link #tryLock(Collection, long, TimeUnit)}
+     */
+    public void unlock(int[] stripes) {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            locks[stripes[i]].unlock();
+        }
+    }
+
+    private int stripeOf(Object key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return Math.floorMod(h, locks.length);
+    }
+
+    public int getStripes() {
+        return locks.length;
+    }
+
+    public long getNumAcquired() {
+        return numAcquired.sum();
+    }
+
+    public long getNumTimeouts() {
+        return numTimeouts.sum();
+    }
+
+    public long getTotalWaitNanos() {
+        return totalWaitNanos.sum();
+    }
+
+    public long getMaxWaitNanos() {
+        return maxWaitNanos.get();
+    }
+
+    @Override
+    public String toString() {
+        long acquired = getNumAcquired();
+        return "StripedKeyLock{" +
+                "stripes=" + getStripes() +
+                ", numAcquired=" + acquired +
+                ", numTimeouts=" + getNumTimeouts() +
+                ", avgWaitMillis=" + (acquired > 0 ? TimeUnit.NANOSECONDS.toMillis(getTotalWaitNanos() / acquired) : 0) +
+                ", maxWaitMillis=" + TimeUnit.NANOSECONDS.toMillis(getMaxWaitNanos()) +
+                '}';
+    }
+}
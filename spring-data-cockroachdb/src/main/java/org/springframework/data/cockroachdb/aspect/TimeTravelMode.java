@@ -14,8 +14,27 @@ public enum TimeTravelMode {
      * Non-authoritative read using a relative timestamp.
      */
     HISTORICAL_READ,
+    /**
+     * Bounded staleness read using {@code with_max_staleness}, served by the nearest
+     * replica that is no more stale than the given bound. Only allowed in single
+     * statement implicit transactions.
+     */
+    MAX_STALENESS,
+    /**
+     * Bounded staleness read using {@code with_min_timestamp}, served by the nearest
+     * replica that is no older than the current time minus the given bound. Only allowed
+     * in single statement implicit transactions.
+     */
+    MIN_TIMESTAMP,
     /**
      * Authoritative reads (default in CockroachDB)
      */
-    DISABLED
+    DISABLED;
+
+    /**
+     * @return true if this mode is a bounded staleness read
+     */
+    public boolean isBoundedStaleness() {
+        return this == MAX_STALENESS || this == MIN_TIMESTAMP;
+    }
 }
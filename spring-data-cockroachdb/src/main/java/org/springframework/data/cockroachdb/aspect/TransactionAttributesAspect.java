@@ -3,14 +3,14 @@ package org.springframework.data.cockroachdb.aspect;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
-import org.springframework.data.cockroachdb.annotations.SetVariable;
-import org.springframework.data.cockroachdb.annotations.TimeTravel;
 import org.springframework.data.cockroachdb.annotations.TransactionBoundary;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.annotation.Order;
 import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.cockroachdb.SessionState;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.Assert;
@@ -18,6 +18,11 @@ import org.springframework.util.Assert;
 /**
  * AOP aspect that sets specific and arbitrary transaction/session variables.
  * <p>
+ * All attributes of a boundary are compiled into a single multi-statement SQL string
+ * which is sent in one round trip before the first statement of the transaction.
+ * Session-scoped variables are skipped if the connection is known to hold the value
+ * already, which requires connections from a {@link org.springframework.data.cockroachdb.SessionStateDataSource}.
+ * <p>
  * The main pre-condition is that there must be an existing transaction in scope.
  * This advice must be applied after the {@link TransactionRetryAspect} if used simultaneously,
  * and the Spring transaction advisor in the call chain.
@@ -38,11 +43,24 @@ public class TransactionAttributesAspect {
 
     private final JdbcTemplate jdbcTemplate;
 
+    private MethodMetadataRegistry methodMetadataRegistry = new MethodMetadataRegistry();
+
     public TransactionAttributesAspect(@Autowired JdbcTemplate jdbcTemplate) {
         Assert.notNull(jdbcTemplate, "jdbcTemplate is null");
         this.jdbcTemplate = jdbcTemplate;
     }
 
+    /**
+     * Sets the registry used to resolve method metadata, for sharing the registry
+     * between aspects.
+     *
+     * @param methodMetadataRegistry the method metadata registry
+     */
+    public void setMethodMetadataRegistry(MethodMetadataRegistry methodMetadataRegistry) {
+        Assert.notNull(methodMetadataRegistry, "methodMetadataRegistry is null");
+        this.methodMetadataRegistry = methodMetadataRegistry;
+    }
+
     @Around(value = "org.springframework.data.cockroachdb.aspect.Pointcuts.anyTransactionBoundaryOperation(transactionBoundary)",
             argNames = "pjp,transactionBoundary")
     public Object doInTransaction(ProceedingJoinPoint pjp, TransactionBoundary transactionBoundary)
@@ -50,50 +68,34 @@ public class TransactionAttributesAspect {
         Assert.isTrue(TransactionSynchronizationManager.isActualTransactionActive(),
                 "Expecting active transaction - check advice @Order and @EnableTransactionManagement order");
 
-        // Grab from type if needed (for non-annotated methods)
-        if (transactionBoundary == null) {
-            transactionBoundary = TransactionRetryAspect.findAnnotation(pjp, TransactionBoundary.class);
-        }
-
-        Assert.notNull(transactionBoundary, "No @TransactionBoundary annotation found!?");
+        final MethodMetadata metadata = methodMetadataRegistry.getMetadata(pjp);
 
-        if (!"(empty)".equals(transactionBoundary.applicationName())) {
-            jdbcTemplate.update("SET application_name=?", transactionBoundary.applicationName());
-        }
+        Assert.isTrue(transactionBoundary != null || metadata.getTransactionBoundary() != null,
+                "No @TransactionBoundary annotation found!?");
 
-        if (!TransactionBoundary.Priority.normal.equals(transactionBoundary.priority())) {
-            jdbcTemplate.execute("SET TRANSACTION PRIORITY " + transactionBoundary.priority().name());
+        // Skip if already applied by the transaction manager
+        TransactionBoundaryContext context = TransactionBoundaryContext.getCurrent();
+        if (context == null || !context.isTransactionAttributesApplied()) {
+            applyTransactionAttributes(metadata);
         }
 
-        if (!"0s".equals(transactionBoundary.idleTimeout())) {
-            jdbcTemplate.update("SET idle_in_transaction_session_timeout=?", transactionBoundary.idleTimeout());
-        }
+        return pjp.proceed();
+    }
 
-        if (transactionBoundary.readOnly()) {
-            jdbcTemplate.execute("SET transaction_read_only=true");
+    private void applyTransactionAttributes(MethodMetadata metadata) {
+        if (metadata.isBoundedStaleness()) {
+            throw new InvalidDataAccessApiUsageException("Bounded staleness reads in '" + metadata.getMethodName()
+                    + "' require an implicit transaction - use CockroachTransactionManager");
         }
 
-        TimeTravel timeTravel = transactionBoundary.timeTravel();
+        // Precompiled from the method or type-level annotation and applied in one round trip
+        SessionState sessionState = metadata.getSessionVariables().isEmpty() ? null
+                : jdbcTemplate.execute((ConnectionCallback<SessionState>) SessionState::of);
 
-        if (timeTravel.mode().equals(TimeTravelMode.FOLLOWER_READ)) {
-            jdbcTemplate.execute("SET TRANSACTION AS OF SYSTEM TIME follower_read_timestamp()");
-        } else if (timeTravel.mode().equals(TimeTravelMode.HISTORICAL_READ)) {
-            jdbcTemplate.update("SET TRANSACTION AS OF SYSTEM TIME INTERVAL '"
-                    + timeTravel.interval() + "'");
+        String sql = metadata.getTransactionAttributeSql(sessionState);
+        if (sql != null) {
+            jdbcTemplate.execute(sql);
+            metadata.updateSessionState(sessionState);
         }
-
-        for (SetVariable var : transactionBoundary.variables()) {
-            if (!var.variable().isMutable()) {
-                throw new InvalidDataAccessApiUsageException(
-                        "Attempting to modify a read-only session variable: " + var.variable().name());
-            }
-            if (var.intValue() >= 0) {
-                jdbcTemplate.update("SET " + var.scope().name() + " " + var.variable() + " = " + var.intValue());
-            } else {
-                jdbcTemplate.update("SET " + var.scope().name() + " " + var.variable() + " = ?", var.value());
-            }
-        }
-
-        return pjp.proceed();
     }
 }
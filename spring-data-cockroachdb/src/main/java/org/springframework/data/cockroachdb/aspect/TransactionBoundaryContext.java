@@ -0,0 +1,71 @@
+package org.springframework.data.cockroachdb.aspect;
+
+import org.springframework.core.NamedThreadLocal;
+
+/**
+ * Thread-bound context of a transaction boundary invocation, bound by the
+ * {@link TransactionBoundaryContextAspect} before the transaction is started. This
+ * allows transaction managers and data sources to act on the boundary attributes
+ * before a connection is bound to the transaction.
+ * <p>
+ * One context instance is reused per thread, and the state of an outer boundary is
+ * restored by the aspect when a nested boundary exits.
+ */
+public final class TransactionBoundaryContext {
+    private static final ThreadLocal<TransactionBoundaryContext> currentContext
+            = new NamedThreadLocal<>("Current transaction boundary context") {
+        @Override
+        protected TransactionBoundaryContext initialValue() {
+            return new TransactionBoundaryContext();
+        }
+    };
+
+    /**
+     * @return the context of the current transaction boundary or null if none is bound
+     */
+    public static TransactionBoundaryContext getCurrent() {
+        TransactionBoundaryContext context = currentContext.get();
+        return context.methodMetadata != null ? context : null;
+    }
+
+    /**
+     * @return the reusable context of the current thread, bound or not
+     */
+    static TransactionBoundaryContext getThreadContext() {
+        return currentContext.get();
+    }
+
+    private MethodMetadata methodMetadata;
+
+    private boolean transactionAttributesApplied;
+
+    private TransactionBoundaryContext() {
+    }
+
+    /**
+     * Bind a transaction boundary to this context, or unbind it.
+     *
+     * @param methodMetadata the boundary metadata, or null to unbind
+     * @param transactionAttributesApplied true if the attributes are already applied
+     */
+    void bind(MethodMetadata methodMetadata, boolean transactionAttributesApplied) {
+        this.methodMetadata = methodMetadata;
+        this.transactionAttributesApplied = transactionAttributesApplied;
+    }
+
+    public MethodMetadata getMethodMetadata() {
+        return methodMetadata;
+    }
+
+    /**
+     * @return true if the transaction attributes are already applied to the
+     * transaction started for this boundary
+     */
+    public boolean isTransactionAttributesApplied() {
+        return transactionAttributesApplied;
+    }
+
+    public void setTransactionAttributesApplied(boolean transactionAttributesApplied) {
+        this.transactionAttributesApplied = transactionAttributesApplied;
+    }
+}
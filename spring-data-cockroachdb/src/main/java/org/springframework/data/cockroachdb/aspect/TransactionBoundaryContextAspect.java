@@ -0,0 +1,55 @@
+package org.springframework.data.cockroachdb.aspect;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.cockroachdb.annotations.TransactionBoundary;
+import org.springframework.util.Assert;
+
+/**
+ * AOP aspect that binds a {@link TransactionBoundaryContext} to the current thread
+ * for the duration of a transaction boundary invocation.
+ * <p>
+ * This advice must be applied after the {@link TransactionRetryAspect}, so that each
+ * retry attempt starts with a reset context, and before the Spring transaction advisor in
+ * the call chain.
+ */
+@Aspect
+@Order(TransactionBoundaryContextAspect.PRECEDENCE)
+public class TransactionBoundaryContextAspect {
+    /**
+     * The precedence at which this advice is ordered by which also controls
+     * the order it is invoked in the call chain between a source and target.
+     */
+    public static final int PRECEDENCE = AdvisorOrder.TRANSACTION_CONTEXT_ADVISOR;
+
+    private MethodMetadataRegistry methodMetadataRegistry = new MethodMetadataRegistry();
+
+    /**
+     * Sets the registry used to resolve method metadata, for sharing the registry
+     * between aspects.
+     *
+     * @param methodMetadataRegistry the method metadata registry
+     */
+    public void setMethodMetadataRegistry(MethodMetadataRegistry methodMetadataRegistry) {
+        Assert.notNull(methodMetadataRegistry, "methodMetadataRegistry is null");
+        this.methodMetadataRegistry = methodMetadataRegistry;
+    }
+
+    @Around(value = "org.springframework.data.cockroachdb.aspect.Pointcuts.anyTransactionBoundaryOperation(transactionBoundary)",
+            argNames = "pjp,transactionBoundary")
+    public Object doInTransactionBoundary(ProceedingJoinPoint pjp, TransactionBoundary transactionBoundary)
+            throws Throwable {
+        final TransactionBoundaryContext context = TransactionBoundaryContext.getThreadContext();
+        final MethodMetadata previousMetadata = context.getMethodMetadata();
+        final boolean previousApplied = context.isTransactionAttributesApplied();
+
+        context.bind(methodMetadataRegistry.getMetadata(pjp), false);
+        try {
+            return pjp.proceed();
+        } finally {
+            context.bind(previousMetadata, previousApplied);
+        }
+    }
+}
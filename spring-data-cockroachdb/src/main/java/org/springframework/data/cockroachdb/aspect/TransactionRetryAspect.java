@@ -1,12 +1,18 @@
 package org.springframework.data.cockroachdb.aspect;
 
-import java.lang.annotation.Annotation;
 import java.lang.reflect.UndeclaredThrowableException;
 import java.sql.SQLException;
 import java.time.Duration;
-import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 import org.aspectj.lang.ProceedingJoinPoint;
@@ -16,7 +22,6 @@ import org.postgresql.util.PSQLState;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.NestedExceptionUtils;
-import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.core.annotation.Order;
 import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
@@ -45,6 +50,19 @@ import org.springframework.data.cockroachdb.annotations.Retryable;
  * and before the {@link TransactionAttributesAspect} if used simultaneously.
  * See {@link org.springframework.transaction.annotation.EnableTransactionManagement} for
  * controlling weaving order.
+ * <p>
+ * If a retry scheduler is set, methods returning {@link CompletionStage} or
+ * {@link CompletableFuture} are retried asynchronously when the returned stage completes
+ * exceptionally. The retries are scheduled on the scheduler after the backoff delay,
+ * so no caller thread is parked in between attempts. Each returned stage must complete
+ * its own transaction, since a transaction bound to the calling thread ends before the
+ * stage completes.
+ * <p>
+ * If a {@link RetryBudget} is set or declared per method, retries are also capped
+ * by the budget and a {@link RetryBudgetExhaustedException} is thrown when it's spent.
+ * <p>
+ * Annotations, backoff policies and per-method budgets are resolved once per method
+ * through a {@link MethodMetadataRegistry}, which may be shared with other aspects.
  */
 @Aspect
 @Order(TransactionRetryAspect.PRECEDENCE)
@@ -55,46 +73,113 @@ public class TransactionRetryAspect {
      */
     public static final int PRECEDENCE = AdvisorOrder.TRANSACTION_RETRY_ADVISOR;
 
-    static <A extends Annotation> A findAnnotation(ProceedingJoinPoint pjp, Class<A> annotationType) {
-        return AnnotationUtils.findAnnotation(pjp.getSignature().getDeclaringType(), annotationType);
-    }
-
     protected final Logger logger = LoggerFactory.getLogger(getClass());
 
     protected Consumer<RetryEvent> retryEventConsumer = retryEvent -> {
     };
 
+    private ScheduledExecutorService retryScheduler;
+
+    private RetryBudget retryBudget;
+
+    private MethodMetadataRegistry methodMetadataRegistry = new MethodMetadataRegistry();
+
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+
     public void setRetryEventConsumer(Consumer<RetryEvent> retryEventConsumer) {
         this.retryEventConsumer = retryEventConsumer;
     }
 
+    /**
+     * Enables non-blocking retries for methods returning {@link CompletionStage}.
+     *
+     * @param retryScheduler the scheduler for delayed retry attempts, or null to disable
+     */
+    public void setRetryScheduler(ScheduledExecutorService retryScheduler) {
+        this.retryScheduler = retryScheduler;
+    }
+
+    /**
+     * Sets the global retry budget shared by all retryable methods that don't
+     * declare their own budget ratio.
+     *
+     * @param retryBudget the retry budget, or null for unlimited retries
+     */
+    public void setRetryBudget(RetryBudget retryBudget) {
+        this.retryBudget = retryBudget;
+    }
+
+    /**
+     * Sets the concurrency limiter to signal on each serialization conflict,
+     * typically shared with a {@link ConcurrencyLimiterAspect}.
+     *
+     * @param concurrencyLimiter the concurrency limiter, or null to disable signals
+     */
+    public void setConcurrencyLimiter(AdaptiveConcurrencyLimiter concurrencyLimiter) {
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    /**
+     * Sets the registry used to resolve method metadata, for sharing the registry
+     * between aspects.
+     *
+     * @param methodMetadataRegistry the method metadata registry
+     */
+    public void setMethodMetadataRegistry(MethodMetadataRegistry methodMetadataRegistry) {
+        Assert.notNull(methodMetadataRegistry, "methodMetadataRegistry is null");
+        this.methodMetadataRegistry = methodMetadataRegistry;
+    }
+
     @Around(value = "org.springframework.data.cockroachdb.aspect.Pointcuts.anyRetryableOperation(retryable)", argNames = "pjp,retryable")
     public Object doRetryableOperation(ProceedingJoinPoint pjp, Retryable retryable) throws Throwable {
         Assert.isTrue(!TransactionSynchronizationManager.isActualTransactionActive(),
                 "Expecting NO active transaction - check advice @Order and @EnableTransactionManagement order");
 
-        // Grab from type if needed (for non-annotated methods)
+        final MethodMetadata metadata = methodMetadataRegistry.getMetadata(pjp);
+
+        // Bound annotation, or grabbed from type (for non-annotated methods)
         if (retryable == null) {
-            retryable = AnnotationUtils.findAnnotation(pjp.getSignature().getDeclaringType(), Retryable.class);
+            retryable = metadata.getRetryable();
         }
 
         Assert.notNull(retryable, "No @Retryable annotation found!?");
 
+        if (retryScheduler != null && metadata.isAsynchronous()) {
+            return new AsyncRetryOperation(pjp, metadata, retryable).start();
+        }
+
         int numCalls = 0;
 
-        final String methodName = pjp.getSignature().toShortString();
-        final List<SQLException> sqlExceptions = new ArrayList<>();
-        final Instant callTime = Instant.now();
+        final String methodName = metadata.getMethodName();
+        final long callTime = System.nanoTime();
+        final RetryBudget retryBudget = resolveRetryBudget(metadata);
+
+        // Allocated on first failure only
+        List<SQLException> sqlExceptions = null;
+        BackoffPolicy backoffPolicy = null;
+
+        if (retryBudget != null) {
+            retryBudget.recordAttempt();
+        }
+
+        long backoffMillis = 0;
+
+        final AdaptiveConcurrencyLimiter.Sample sample = AdaptiveConcurrencyLimiter.Sample.getCurrent();
 
         do {
             final Throwable throwable;
             try {
                 numCalls++;
 
+                if (numCalls > 1 && sample != null) {
+                    sample.restart();
+                }
+
                 Object rv = pjp.proceed(); // coin toss
 
                 if (numCalls > 1) {
-                    handleRecovery(sqlExceptions, numCalls, methodName, Duration.between(callTime, Instant.now()));
+                    handleRecovery(sqlExceptions, numCalls, methodName,
+                            Duration.ofNanos(System.nanoTime() - callTime), retryBudget);
                 }
 
                 return rv;
@@ -108,8 +193,19 @@ public class TransactionRetryAspect {
             if (cause instanceof SQLException) {
                 SQLException sqlException = (SQLException) cause;
                 if (isRetryable(sqlException)) {
+                    if (sqlExceptions == null) {
+                        sqlExceptions = new ArrayList<>();
+                        backoffPolicy = resolveBackoffPolicy(metadata);
+                    }
                     sqlExceptions.add(sqlException);
-                    handleTransientException(sqlException, numCalls, methodName, retryable.maxBackoff());
+                    signalConflict(metadata, sample);
+                    if (retryBudget != null && numCalls < retryable.retryAttempts()
+                            && !retryBudget.tryAcquireRetry()) {
+                        throw new RetryBudgetExhaustedException("Retry budget exhausted after " + numCalls
+                                + " calls for method [" + methodName + "]: " + retryBudget, retryBudget, throwable);
+                    }
+                    backoffMillis = backoffPolicy.backoffMillis(numCalls, backoffMillis);
+                    handleTransientException(sqlException, numCalls, methodName, backoffMillis);
                 } else {
                     handleNonTransientException(sqlException);
                     throw throwable;
@@ -120,8 +216,39 @@ public class TransactionRetryAspect {
         } while (numCalls < retryable.retryAttempts());
 
         throw new ConcurrencyFailureException(
-                "Too many serialization errors (" + numCalls + ") for method [" + pjp.getSignature().toShortString()
-                        + "]. Giving up!");
+                "Too many serialization errors (" + numCalls + ") for method [" + methodName + "]. Giving up!");
+    }
+
+    private void signalConflict(MethodMetadata metadata, AdaptiveConcurrencyLimiter.Sample sample) {
+        if (concurrencyLimiter != null) {
+            concurrencyLimiter.getLimit(metadata.getMethod()).onConflict();
+        }
+        if (sample != null) {
+            sample.markConflicted();
+        }
+    }
+
+    /**
+     * Resolve the retry budget for a retryable operation, which is either a per-method
+     * budget if the annotation declares a ratio, or the global budget.
+     *
+     * @param metadata the metadata of the retryable method
+     * @return the retry budget or null if retries are unlimited
+     */
+    protected RetryBudget resolveRetryBudget(MethodMetadata metadata) {
+        RetryBudget methodRetryBudget = metadata.getRetryBudget();
+        return methodRetryBudget != null ? methodRetryBudget : retryBudget;
+    }
+
+    /**
+     * Resolve the backoff policy for a retryable operation. Subclasses may override
+     * this method to plug in a custom {@link BackoffPolicy}.
+     *
+     * @param metadata the metadata of the retryable method
+     * @return the backoff policy to apply between attempts
+     */
+    protected BackoffPolicy resolveBackoffPolicy(MethodMetadata metadata) {
+        return metadata.getBackoffPolicy();
     }
 
     protected boolean isRetryable(SQLException sqlException) {
@@ -129,31 +256,57 @@ public class TransactionRetryAspect {
         return PSQLState.SERIALIZATION_FAILURE.getState().equals(sqlException.getSQLState());
     }
 
+    /**
+     * @deprecated since the retry budget is not passed,
+     * use {@link #handleRecovery(List, int, String, Duration, RetryBudget)}
+     */
+    @Deprecated
     protected void handleRecovery(List<SQLException> sqlExceptions, int numCalls, String methodName,
                                   Duration elapsedTime) {
+        handleRecovery(sqlExceptions, numCalls, methodName, elapsedTime, null);
+    }
+
+    /**
+     * Log the recovery and publish a {@link RetryEvent}.
+     *
+     * @param retryBudget the retry budget in scope, or null if none
+     */
+    protected void handleRecovery(List<SQLException> sqlExceptions, int numCalls, String methodName,
+                                  Duration elapsedTime, RetryBudget retryBudget) {
         String message = "Recovered from transient SQL error after "
                 + numCalls + " calls to '"
                 + methodName + "' time spent: ("
                 + elapsedTime.toString() + ")";
         logger.info(message);
 
-        retryEventConsumer.accept(new RetryEvent(this, message, sqlExceptions));
+        retryEventConsumer.accept(new RetryEvent(this, message, sqlExceptions, retryBudget));
     }
 
+    /**
+     * Back off before retrying synchronously, while asynchronous retries are scheduled instead.
+     * Subclasses may override this method to customize the backoff, or plug in a
+     * {@link BackoffPolicy} through {@link #resolveBackoffPolicy(MethodMetadata)}.
+     *
+     * @param backoffMillis the delay computed by the backoff policy in scope, capped by its max backoff
+     */
     protected void handleTransientException(SQLException sqlException, int numCalls, String methodName,
-                                            long maxBackoff) {
+                                            long backoffMillis) {
         try {
-            long backoffMillis = Math.min((long) (Math.pow(2, numCalls) + Math.random() * 1000), maxBackoff);
-            if (numCalls <= 1 && logger.isWarnEnabled()) {
-                logger.warn("Transient SQL error ({}) in call #{} to '{}' (backoff for {} ms before retry): {}",
-                        sqlException.getSQLState(), numCalls, methodName, backoffMillis, sqlException.getMessage());
-            }
+            logTransientException(sqlException, numCalls, methodName, backoffMillis);
             Thread.sleep(backoffMillis);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
     }
 
+    private void logTransientException(SQLException sqlException, int numCalls, String methodName,
+                                       long backoffMillis) {
+        if (numCalls <= 1 && logger.isWarnEnabled()) {
+            logger.warn("Transient SQL error ({}) in call #{} to '{}' (backoff for {} ms before retry): {}",
+                    sqlException.getSQLState(), numCalls, methodName, backoffMillis, sqlException.getMessage());
+        }
+    }
+
     protected void handleNonTransientException(SQLException sqlException) {
         sqlException.forEach(ex -> {
             SQLException nested = (SQLException) ex;
@@ -161,5 +314,137 @@ public class TransactionRetryAspect {
                     nested.getSQLState(), nested.getMessage());
         });
     }
-}
 
+    /**
+     * State of a single asynchronous retryable invocation. Each attempt is either
+     * invoked by the caller thread (first attempt) or the retry scheduler.
+     */
+    private class AsyncRetryOperation {
+        private final ProceedingJoinPoint pjp;
+
+        private final MethodMetadata metadata;
+
+        private final Retryable retryable;
+
+        private final BackoffPolicy backoffPolicy;
+
+        private final RetryBudget retryBudget;
+
+        private final String methodName;
+
+        private final AdaptiveConcurrencyLimiter.Sample sample;
+
+        // Attempts complete on pool or scheduler threads
+        private final List<SQLException> sqlExceptions = new CopyOnWriteArrayList<>();
+
+        private final long callTime = System.nanoTime();
+
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        private final AtomicInteger numCalls = new AtomicInteger();
+
+        private volatile long backoffMillis;
+
+        AsyncRetryOperation(ProceedingJoinPoint pjp, MethodMetadata metadata, Retryable retryable) {
+            this.pjp = pjp;
+            this.metadata = metadata;
+            this.retryable = retryable;
+            this.backoffPolicy = resolveBackoffPolicy(metadata);
+            this.retryBudget = resolveRetryBudget(metadata);
+            this.methodName = metadata.getMethodName();
+            this.sample = AdaptiveConcurrencyLimiter.Sample.getCurrent();
+        }
+
+        CompletableFuture<Object> start() {
+            if (retryBudget != null) {
+                retryBudget.recordAttempt();
+            }
+            attempt();
+            return result;
+        }
+
+        private void attempt() {
+            final int numCalls = this.numCalls.incrementAndGet();
+
+            if (numCalls > 1 && sample != null) {
+                sample.restart();
+            }
+
+            final CompletionStage<?> stage;
+            try {
+                stage = (CompletionStage<?>) pjp.proceed();
+            } catch (Throwable ex) {
+                onFailure(ex, numCalls);
+                return;
+            }
+
+            if (stage == null) {
+                result.complete(null);
+                return;
+            }
+
+            stage.whenComplete((rv, ex) -> {
+                if (ex != null) {
+                    onFailure(ex, numCalls);
+                } else {
+                    if (numCalls > 1) {
+                        handleRecovery(sqlExceptions, numCalls, methodName,
+                                Duration.ofNanos(System.nanoTime() - callTime), retryBudget);
+                    }
+                    result.complete(rv);
+                }
+            });
+        }
+
+        private void onFailure(Throwable ex, int numCalls) {
+            Throwable throwable = ex;
+            if (throwable instanceof CompletionException && throwable.getCause() != null) {
+                throwable = throwable.getCause();
+            }
+            if (throwable instanceof UndeclaredThrowableException) {
+                throwable = ((UndeclaredThrowableException) throwable).getUndeclaredThrowable();
+            }
+
+            Throwable cause = NestedExceptionUtils.getMostSpecificCause(throwable);
+            if (!(cause instanceof SQLException)) {
+                result.completeExceptionally(throwable);
+                return;
+            }
+
+            SQLException sqlException = (SQLException) cause;
+            if (!isRetryable(sqlException)) {
+                handleNonTransientException(sqlException);
+                result.completeExceptionally(throwable);
+                return;
+            }
+
+            sqlExceptions.add(sqlException);
+            signalConflict(metadata, sample);
+
+            if (numCalls >= retryable.retryAttempts()) {
+                result.completeExceptionally(new ConcurrencyFailureException(
+                        "Too many serialization errors (" + numCalls + ") for method [" + methodName
+                                + "]. Giving up!", throwable));
+                return;
+            }
+
+            if (retryBudget != null && !retryBudget.tryAcquireRetry()) {
+                result.completeExceptionally(new RetryBudgetExhaustedException("Retry budget exhausted after "
+                        + numCalls + " calls for method [" + methodName + "]: " + retryBudget,
+                        retryBudget, throwable));
+                return;
+            }
+
+            final long delay = backoffPolicy.backoffMillis(numCalls, backoffMillis);
+            backoffMillis = delay;
+            logTransientException(sqlException, numCalls, methodName, delay);
+
+            try {
+                retryScheduler.schedule(this::attempt, delay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                e.addSuppressed(throwable);
+                result.completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package org.springframework.data.cockroachdb;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit-test")
+public class AdmissionGateDataSourceTest {
+    @Test
+    public void whenPermitsExhausted_expectAdmissionTimeout() throws Exception {
+        AdmissionGateDataSource dataSource = new AdmissionGateDataSource(new CountingDataSource(), 2);
+        dataSource.setAdmissionTimeoutMillis(50);
+
+        Connection c1 = dataSource.getConnection();
+        Connection c2 = dataSource.getConnection();
+        Assertions.assertEquals(0, dataSource.getAvailablePermits());
+
+        Assertions.assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+
+        c1.close();
+        c1.close(); // idempotent
+        Assertions.assertEquals(1, dataSource.getAvailablePermits());
+
+        try (Connection c3 = dataSource.getConnection()) {
+            Assertions.assertEquals(0, dataSource.getAvailablePermits());
+        }
+        c2.close();
+        Assertions.assertEquals(2, dataSource.getAvailablePermits());
+    }
+
+    @Test
+    public void whenPoolResized_expectPermitsFollow() throws Exception {
+        AtomicInteger poolSize = new AtomicInteger(2);
+
+        AdmissionGateDataSource dataSource = new AdmissionGateDataSource(new CountingDataSource(), poolSize::get);
+        dataSource.setAdmissionTimeoutMillis(50);
+
+        Connection c1 = dataSource.getConnection();
+        Connection c2 = dataSource.getConnection();
+
+        poolSize.set(3);
+        Connection c3 = dataSource.getConnection();
+        Assertions.assertEquals(3, dataSource.getMaxPermits());
+        Assertions.assertEquals(0, dataSource.getAvailablePermits());
+
+        // Shrinking below the checked out connections admits none until they drain
+        poolSize.set(1);
+        Assertions.assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        Assertions.assertEquals(1, dataSource.getMaxPermits());
+
+        c1.close();
+        c2.close();
+        Assertions.assertEquals(0, dataSource.getAvailablePermits());
+        c3.close();
+        Assertions.assertEquals(1, dataSource.getAvailablePermits());
+    }
+
+    @Test
+    public void whenClosed_expectTargetClosed() throws Exception {
+        AtomicInteger closed = new AtomicInteger();
+
+        class ClosingDataSource extends CountingDataSource implements Closeable {
+            @Override
+            public void close() {
+                closed.incrementAndGet();
+            }
+        }
+
+        new AdmissionGateDataSource(new ClosingDataSource(), 2).close();
+        Assertions.assertEquals(1, closed.get());
+
+        // Non-closeable targets are left as-is
+        new AdmissionGateDataSource(new CountingDataSource(), 2).close();
+        Assertions.assertEquals(1, closed.get());
+    }
+}
@@ -0,0 +1,97 @@
+package org.springframework.data.cockroachdb;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@Tag("unit-test")
+public class CockroachBatchUpdateTest {
+    static class Account {
+        final Long id;
+
+        final BigDecimal balance;
+
+        final String currency;
+
+        Account(Long id, BigDecimal balance, String currency) {
+            this.id = id;
+            this.balance = balance;
+            this.currency = currency;
+        }
+    }
+
+    private final CockroachBatchUpdate<Account> update = CockroachBatchUpdate.<Account>builder("account")
+            .withKey("id", "INT8", a -> a.id)
+            .withColumn("balance", "NUMERIC", a -> a.balance)
+            .withValue("currency", "TEXT", a -> a.currency)
+            .withSetClause("updated_at = clock_timestamp()")
+            .withWhereClause("account.currency = v.currency")
+            .build();
+
+    @Test
+    public void whenBuilt_expectSingleSetBasedStatement() {
+        Assertions.assertEquals("UPDATE account SET balance = v.balance, updated_at = clock_timestamp() "
+                + "FROM unnest(?::INT8[], ?::NUMERIC[], ?::TEXT[]) AS v(id, balance, currency) "
+                + "WHERE account.id = v.id AND account.currency = v.currency "
+                + "RETURNING account.id", update.getSql());
+    }
+
+    @Test
+    public void whenDeltaColumn_expectRelativeAssignmentAndReturnedValues() {
+        CockroachBatchUpdate<Account> deltaUpdate = CockroachBatchUpdate.<Account>builder("account")
+                .withKey("id", "INT8", a -> a.id)
+                .withDelta("balance", "NUMERIC", a -> a.balance)
+                .withWhereClause("account.balance + v.balance >= 0")
+                .withReturning("account.balance")
+                .build();
+
+        Assertions.assertEquals("UPDATE account SET balance = account.balance + v.balance "
+                + "FROM unnest(?::INT8[], ?::NUMERIC[]) AS v(id, balance) "
+                + "WHERE account.id = v.id AND account.balance + v.balance >= 0 "
+                + "RETURNING account.id, account.balance", deltaUpdate.getSql());
+    }
+
+    @Test
+    public void whenExecuted_expectOneRoundTripAndVerifiedKeys() {
+        CountingDataSource dataSource = new CountingDataSource();
+
+        List<Account> accounts = List.of(
+                new Account(1L, BigDecimal.ONE, "EUR"),
+                new Account(2L, BigDecimal.TEN, "EUR"));
+
+        // Fake returns no rows, so no keys were updated
+        IncorrectResultSizeDataAccessException ex = Assertions.assertThrows(
+                IncorrectResultSizeDataAccessException.class,
+                () -> update.execute(new JdbcTemplate(dataSource), accounts));
+        Assertions.assertEquals(2, ex.getExpectedSize());
+        Assertions.assertEquals(0, ex.getActualSize());
+
+        Assertions.assertEquals(1, dataSource.getRoundTrips());
+        Assertions.assertEquals(List.of(update.getSql()), dataSource.getStatements());
+    }
+
+    @Test
+    public void whenVerifyingKeys_expectMissingKeysReported() {
+        CockroachBatchUpdate.verify(List.of(1L, 2L), Set.of(1L, 2L));
+
+        IncorrectResultSizeDataAccessException ex = Assertions.assertThrows(
+                IncorrectResultSizeDataAccessException.class,
+                () -> CockroachBatchUpdate.verify(List.of(1L, 2L, 3L), Set.of(1L, 3L)));
+        Assertions.assertTrue(ex.getMessage().contains("[2]"));
+    }
+
+    @Test
+    public void whenDuplicateKeys_expectRejected() {
+        Assertions.assertThrows(InvalidDataAccessApiUsageException.class,
+                () -> update.execute(new JdbcTemplate(new CountingDataSource()), List.of(
+                        new Account(1L, BigDecimal.ONE, "EUR"),
+                        new Account(1L, BigDecimal.TEN, "EUR"))));
+    }
+}
@@ -0,0 +1,104 @@
+package org.springframework.data.cockroachdb;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.UncategorizedSQLException;
+
+@Tag("unit-test")
+public class CockroachCopyLoaderTest {
+    static class RecordingCopyLoader<T> extends CockroachCopyLoader<T> {
+        final List<String> chunks = new ArrayList<>();
+
+        final List<Integer> writes = new ArrayList<>();
+
+        RecordingCopyLoader() {
+            super(new CountingDataSource());
+        }
+
+        @Override
+        protected CopyIn copyIn(Connection connection, String sql) {
+            StringBuilder data = new StringBuilder();
+            boolean[] active = {true};
+            return (CopyIn) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {CopyIn.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "writeToCopy":
+                                byte[] bytes = (byte[]) args[0];
+                                data.append(new String(bytes, (int) args[1], (int) args[2], StandardCharsets.UTF_8));
+                                writes.add((int) args[2]);
+                                return null;
+                            case "endCopy":
+                                active[0] = false;
+                                chunks.add(data.toString());
+                                return data.chars().filter(c -> c == '\n').count();
+                            case "isActive":
+                                return active[0];
+                            default:
+                                return null;
+                        }
+                    });
+        }
+    }
+
+    @Test
+    public void whenLoadingStream_expectChunkedCopyAndProgress() {
+        RecordingCopyLoader<Integer> loader = new RecordingCopyLoader<>();
+        List<Long> progress = new ArrayList<>();
+
+        loader.withTable("account")
+                .withColumns("id", "name")
+                .withChunkSize(4)
+                .withBufferSize(16)
+                .withProgressListener((chunks, rows) -> progress.add(rows));
+
+        Assertions.assertEquals("COPY account (id, name) FROM STDIN WITH CSV", loader.getCopySql());
+
+        long rows = loader.load(IntStream.range(0, 10).boxed(), i -> new Object[] {i, "user:" + i});
+
+        Assertions.assertEquals(10, rows);
+        Assertions.assertEquals(List.of(4L, 8L, 10L), progress);
+        Assertions.assertEquals(3, loader.chunks.size());
+        Assertions.assertEquals("0,user:0\n1,user:1\n2,user:2\n3,user:3\n", loader.chunks.get(0));
+        Assertions.assertEquals("8,user:8\n9,user:9\n", loader.chunks.get(2));
+        Assertions.assertTrue(loader.writes.stream().allMatch(n -> n < 16 + 16), "Expected bounded writes");
+    }
+
+    @Test
+    public void whenEncodingSpecialValues_expectEscaping() {
+        CockroachCopyLoader<Object> csv = new CockroachCopyLoader<>(new CountingDataSource());
+        StringBuilder sb = new StringBuilder();
+        csv.encodeRow(new Object[] {null, "", "a,b", "say \"hi\"", "{\"k\":1}"}, sb);
+        Assertions.assertEquals(",\"\",\"a,b\",\"say \"\"hi\"\"\",\"{\"\"k\"\":1}\"\n", sb.toString());
+
+        CockroachCopyLoader<Object> text = new CockroachCopyLoader<>(new CountingDataSource())
+                .withFormat(CockroachCopyLoader.Format.TEXT);
+        sb.setLength(0);
+        text.encodeRow(new Object[] {null, "a\tb", "line\nbreak", "back\\slash"}, sb);
+        Assertions.assertEquals("\\N\ta\\tb\tline\\nbreak\tback\\\\slash\n", sb.toString());
+    }
+
+    @Test
+    public void whenUnknownSqlState_expectUncategorizedException() {
+        CockroachCopyLoader<Integer> loader = new CockroachCopyLoader<Integer>(new CountingDataSource()) {
+            @Override
+            protected CopyIn copyIn(Connection connection, String sql) throws SQLException {
+                throw new SQLException("Copy failed");
+            }
+        }.withTable("account");
+
+        UncategorizedSQLException ex = Assertions.assertThrows(UncategorizedSQLException.class,
+                () -> loader.load(Stream.of(1), i -> new Object[] {i}));
+        Assertions.assertEquals("COPY account FROM STDIN WITH CSV", ex.getSql());
+    }
+}
@@ -0,0 +1,202 @@
+package org.springframework.data.cockroachdb;
+
+import java.net.ServerSocket;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+@Tag("unit-test")
+public class CockroachLoadBalancingDataSourceTest {
+    @Test
+    public void whenConnectionsOutstanding_expectLeastLoadedEndpoint() throws Exception {
+        CountingDataSource node1 = new CountingDataSource();
+        CountingDataSource node2 = new CountingDataSource();
+
+        try (ServerSocket gateway1 = new ServerSocket(0);
+             ServerSocket gateway2 = new ServerSocket(0);
+             CockroachLoadBalancingDataSource dataSource = new CockroachLoadBalancingDataSource()) {
+            dataSource.setSlowStartMillis(0);
+            CockroachLoadBalancingDataSource.Endpoint endpoint1
+                    = dataSource.addEndpoint("localhost", gateway1.getLocalPort(), node1);
+            CockroachLoadBalancingDataSource.Endpoint endpoint2
+                    = dataSource.addEndpoint("localhost", gateway2.getLocalPort(), node2);
+
+            List<Connection> connections = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                connections.add(dataSource.getConnection());
+            }
+
+            Assertions.assertEquals(5, endpoint1.getOutstanding());
+            Assertions.assertEquals(5, endpoint2.getOutstanding());
+            Assertions.assertEquals(5, node1.getConnections());
+            Assertions.assertEquals(5, node2.getConnections());
+
+            // Release connections on node1 only, next requests go to node1
+            for (int i = 0; i < connections.size(); i++) {
+                if (connections.get(i).toString().contains(":" + gateway1.getLocalPort())) {
+                    connections.get(i).close();
+                    connections.get(i).close(); // idempotent
+                }
+            }
+            Assertions.assertEquals(0, endpoint1.getOutstanding());
+
+            dataSource.getConnection();
+            dataSource.getConnection();
+
+            Assertions.assertEquals(2, endpoint1.getOutstanding());
+            Assertions.assertEquals(5, endpoint2.getOutstanding());
+        }
+    }
+
+    @Test
+    public void whenProbeFails_expectEjectionAndReinstatement() throws Exception {
+        CountingDataSource node1 = new CountingDataSource();
+        CountingDataSource node2 = new CountingDataSource();
+
+        ServerSocket gateway2 = new ServerSocket(0);
+        int port2 = gateway2.getLocalPort();
+
+        try (ServerSocket gateway1 = new ServerSocket(0);
+             CockroachLoadBalancingDataSource dataSource = new CockroachLoadBalancingDataSource()) {
+            dataSource.setMaxFailures(2);
+            dataSource.setSlowStartMillis(60_000);
+            dataSource.setHealthProbe(CockroachLoadBalancingDataSource.HealthProbe.socket(500));
+
+            CockroachLoadBalancingDataSource.Endpoint endpoint1
+                    = dataSource.addEndpoint("localhost", gateway1.getLocalPort(), node1);
+            CockroachLoadBalancingDataSource.Endpoint endpoint2
+                    = dataSource.addEndpoint("localhost", port2, node2);
+
+            dataSource.probe();
+            Assertions.assertTrue(endpoint2.isHealthy());
+            Assertions.assertEquals(1.0, endpoint2.getWeight());
+
+            gateway2.close();
+
+            dataSource.probe();
+            Assertions.assertTrue(endpoint2.isHealthy());
+            dataSource.probe();
+            Assertions.assertFalse(endpoint2.isHealthy());
+            Assertions.assertTrue(endpoint1.isHealthy());
+
+            for (int i = 0; i < 10; i++) {
+                dataSource.getConnection();
+            }
+            Assertions.assertEquals(10, node1.getConnections());
+            Assertions.assertEquals(0, node2.getConnections());
+
+            // Bring the gateway back on the same port
+            try (ServerSocket restarted = new ServerSocket(port2)) {
+                dataSource.probe();
+                Assertions.assertTrue(endpoint2.isHealthy());
+                Assertions.assertTrue(endpoint2.getWeight() < 0.5, "Expected slow-start");
+
+                // Reinstated node is ramped up, so it takes fewer than its fair share
+                for (int i = 0; i < 10; i++) {
+                    dataSource.getConnection();
+                }
+                Assertions.assertTrue(node2.getConnections() > 0);
+                Assertions.assertTrue(node2.getConnections() < 10);
+            }
+        }
+    }
+
+    @Test
+    public void whenEndpointJoins_expectSlowStart() throws Exception {
+        CountingDataSource node1 = new CountingDataSource();
+        CountingDataSource node2 = new CountingDataSource();
+
+        try (ServerSocket gateway1 = new ServerSocket(0);
+             ServerSocket gateway2 = new ServerSocket(0);
+             CockroachLoadBalancingDataSource dataSource = new CockroachLoadBalancingDataSource()) {
+            dataSource.setSlowStartMillis(60_000);
+            dataSource.addEndpoint("localhost", gateway1.getLocalPort(), node1);
+            for (int i = 0; i < 10; i++) {
+                dataSource.getConnection();
+            }
+
+            CockroachLoadBalancingDataSource.Endpoint endpoint2
+                    = dataSource.addEndpoint("localhost", gateway2.getLocalPort(), node2, true);
+            Assertions.assertTrue(endpoint2.getWeight() < 0.5);
+
+            for (int i = 0; i < 10; i++) {
+                dataSource.getConnection();
+            }
+            Assertions.assertTrue(node2.getConnections() > 0);
+            Assertions.assertTrue(node2.getConnections() < 10);
+        }
+    }
+
+    @Test
+    public void whenEndpointsRemovedConcurrently_expectNoSelectionFailure() throws Exception {
+        try (CockroachLoadBalancingDataSource dataSource = new CockroachLoadBalancingDataSource()) {
+            dataSource.setSlowStartMillis(0);
+            dataSource.addEndpoint("localhost", 26257, new CountingDataSource());
+
+            AtomicBoolean running = new AtomicBoolean(true);
+
+            Thread churn = new Thread(() -> {
+                while (running.get()) {
+                    CockroachLoadBalancingDataSource.Endpoint endpoint
+                            = dataSource.addEndpoint("localhost", 26258, new CountingDataSource());
+                    dataSource.removeEndpoint(endpoint);
+                }
+            }, "cockroach-churn");
+            churn.start();
+
+            try {
+                for (int i = 0; i < 10_000; i++) {
+                    dataSource.getConnection().close();
+                }
+            } finally {
+                running.set(false);
+                churn.join();
+            }
+        }
+    }
+
+    @Test
+    public void whenConnectionFails_expectFailoverToUntriedEndpoint() throws Exception {
+        CountingDataSource node1 = new CountingDataSource();
+        AtomicInteger failedAttempts = new AtomicInteger();
+        AbstractDataSource node2 = new AbstractDataSource() {
+            @Override
+            public Connection getConnection() throws SQLException {
+                failedAttempts.incrementAndGet();
+                throw new SQLException("Connection refused", "08001");
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                return getConnection();
+            }
+        };
+
+        try (CockroachLoadBalancingDataSource dataSource = new CockroachLoadBalancingDataSource()) {
+            dataSource.setSlowStartMillis(0);
+            dataSource.setMaxFailures(100);
+            dataSource.addEndpoint("localhost", 26257, node1);
+
+            List<Connection> connections = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                connections.add(dataSource.getConnection());
+            }
+
+            // Failing endpoint stays the least loaded one
+            dataSource.addEndpoint("localhost", 26258, node2);
+
+            connections.add(dataSource.getConnection());
+
+            Assertions.assertEquals(4, node1.getConnections());
+            Assertions.assertEquals(1, failedAttempts.get());
+        }
+    }
+}
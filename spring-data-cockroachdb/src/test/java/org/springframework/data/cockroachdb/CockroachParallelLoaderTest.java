@@ -0,0 +1,74 @@
+package org.springframework.data.cockroachdb;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.UncategorizedSQLException;
+
+@Tag("unit-test")
+public class CockroachParallelLoaderTest {
+    @Test
+    public void whenSerializationFailures_expectChunksRetried() {
+        final Thread caller = Thread.currentThread();
+        final AtomicInteger sequence = new AtomicInteger();
+        final Set<Integer> written = ConcurrentHashMap.newKeySet();
+        final Set<Integer> failedOnce = ConcurrentHashMap.newKeySet();
+
+        CockroachParallelLoader<Integer> loader = new CockroachParallelLoader<Integer>(4)
+                .withBackoffPolicy((attempt, previous) -> 1);
+
+        CockroachParallelLoader.Result result = loader.load(1000, 64, () -> {
+            Assertions.assertSame(caller, Thread.currentThread());
+            return sequence.incrementAndGet();
+        }, chunk -> {
+            // Every third chunk fails on first attempt
+            if (chunk.get(0) % 3 == 1 && failedOnce.add(chunk.get(0))) {
+                throw new UncategorizedSQLException("test", "INSERT",
+                        new SQLException("restart transaction", "40001"));
+            }
+            chunk.forEach(id -> Assertions.assertTrue(written.add(id), "Duplicate " + id));
+        });
+
+        Assertions.assertEquals(1000, result.getRows());
+        Assertions.assertEquals(16, result.getChunks());
+        Assertions.assertEquals(failedOnce.size(), result.getRetries());
+        Assertions.assertTrue(result.getRetries() > 0);
+        Assertions.assertEquals(1000, written.size());
+    }
+
+    @Test
+    public void whenNonRetryableFailure_expectLoadAborted() {
+        AtomicInteger chunks = new AtomicInteger();
+
+        CockroachParallelLoader<Integer> loader = new CockroachParallelLoader<>(2);
+
+        Assertions.assertThrows(DataIntegrityViolationException.class,
+                () -> loader.load(10_000, 10, () -> 1, chunk -> {
+                    chunks.incrementAndGet();
+                    throw new DataIntegrityViolationException("duplicate key");
+                }));
+
+        Assertions.assertTrue(chunks.get() < 1000, "Expected load to stop early");
+    }
+
+    @Test
+    public void whenChunksWritten_expectProgressTotals() {
+        List<Long> progress = new CopyOnWriteArrayList<>();
+
+        new CockroachParallelLoader<Integer>(3)
+                .withProgressListener(progress::add)
+                .load(100, 10, () -> 1, chunk -> {
+                });
+
+        Assertions.assertEquals(10, progress.size());
+        Assertions.assertTrue(progress.contains(100L));
+    }
+}
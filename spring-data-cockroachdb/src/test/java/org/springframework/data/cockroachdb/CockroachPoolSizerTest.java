@@ -0,0 +1,65 @@
+package org.springframework.data.cockroachdb;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.zaxxer.hikari.HikariConfig;
+
+@Tag("unit-test")
+public class CockroachPoolSizerTest {
+    @Test
+    public void whenClusterScales_expectPoolResizedWithinLimits() {
+        HikariConfig poolConfig = new HikariConfig();
+        poolConfig.setMaximumPoolSize(50);
+        poolConfig.setMinimumIdle(12);
+
+        AtomicReference<CockroachPoolSizer.Capacity> capacity
+                = new AtomicReference<>(new CockroachPoolSizer.Capacity(3, 24));
+
+        CockroachPoolSizer poolSizer = new CockroachPoolSizer(new CountingDataSource(), poolConfig) {
+            @Override
+            protected Capacity queryCapacity() {
+                return capacity.get();
+            }
+        };
+        poolSizer.setInstances(4);
+        poolSizer.setPoolSizeLimits(10, 40);
+
+        // 4 * 24 / 4
+        Assertions.assertEquals(24, poolSizer.resize());
+        Assertions.assertEquals(24, poolConfig.getMaximumPoolSize());
+        Assertions.assertEquals(12, poolConfig.getMinimumIdle());
+
+        capacity.set(new CockroachPoolSizer.Capacity(9, 72));
+        Assertions.assertEquals(40, poolSizer.resize());
+        Assertions.assertEquals(12, poolConfig.getMinimumIdle());
+
+        capacity.set(new CockroachPoolSizer.Capacity(1, 4));
+        Assertions.assertEquals(10, poolSizer.resize());
+        Assertions.assertEquals(10, poolConfig.getMaximumPoolSize());
+        Assertions.assertEquals(10, poolConfig.getMinimumIdle());
+    }
+
+    @Test
+    public void whenFixedSizePool_expectFixedSizeKept() {
+        HikariConfig poolConfig = new HikariConfig();
+        poolConfig.setMaximumPoolSize(20);
+        poolConfig.setMinimumIdle(20);
+
+        CockroachPoolSizer poolSizer = new CockroachPoolSizer(new CountingDataSource(), poolConfig) {
+            @Override
+            protected Capacity queryCapacity() {
+                return new Capacity(3, 48);
+            }
+        };
+        poolSizer.setInstances(2);
+        poolSizer.setPoolSizeLimits(1, 500);
+
+        Assertions.assertEquals(96, poolSizer.resize());
+        Assertions.assertEquals(96, poolConfig.getMaximumPoolSize());
+        Assertions.assertEquals(96, poolConfig.getMinimumIdle());
+    }
+}
@@ -0,0 +1,58 @@
+package org.springframework.data.cockroachdb;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.data.cockroachdb.annotations.RegionAffinity;
+import org.springframework.data.cockroachdb.aspect.RegionAffinityAspect;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@Tag("unit-test")
+public class CockroachRegionRoutingDataSourceTest {
+    public static class TransferService {
+        private final JdbcTemplate jdbcTemplate;
+
+        public TransferService(JdbcTemplate jdbcTemplate) {
+            this.jdbcTemplate = jdbcTemplate;
+        }
+
+        @RegionAffinity("#region")
+        public void transfer(String region) {
+            jdbcTemplate.update("UPDATE account");
+        }
+
+        public void transferAnywhere() {
+            jdbcTemplate.update("UPDATE account");
+        }
+    }
+
+    @Test
+    public void whenRegionAffinity_expectRegionPool() {
+        CountingDataSource defaultDataSource = new CountingDataSource();
+        CountingDataSource eastDataSource = new CountingDataSource();
+        CountingDataSource westDataSource = new CountingDataSource();
+
+        CockroachRegionRoutingDataSource dataSource = new CockroachRegionRoutingDataSource(
+                Map.of("us-east1", eastDataSource, "us-west1", westDataSource), defaultDataSource);
+
+        AspectJProxyFactory factory = new AspectJProxyFactory(new TransferService(new JdbcTemplate(dataSource)));
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new RegionAffinityAspect());
+        TransferService proxy = factory.getProxy();
+
+        proxy.transfer("us-east1");
+        proxy.transfer("US-WEST1");
+        proxy.transfer("us-west1");
+        proxy.transfer("eu-north1");
+        proxy.transfer(null);
+        proxy.transferAnywhere();
+
+        Assertions.assertEquals(1, eastDataSource.getConnections());
+        Assertions.assertEquals(2, westDataSource.getConnections());
+        Assertions.assertEquals(3, defaultDataSource.getConnections());
+        Assertions.assertSame(defaultDataSource, dataSource.getDataSource("eu-north1"));
+    }
+}
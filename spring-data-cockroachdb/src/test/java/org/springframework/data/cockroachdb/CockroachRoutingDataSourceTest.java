@@ -0,0 +1,90 @@
+package org.springframework.data.cockroachdb;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.data.cockroachdb.annotations.TimeTravel;
+import org.springframework.data.cockroachdb.annotations.TransactionBoundary;
+import org.springframework.data.cockroachdb.aspect.TimeTravelMode;
+import org.springframework.data.cockroachdb.aspect.TransactionBoundaryContextAspect;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Tag("unit-test")
+public class CockroachRoutingDataSourceTest {
+    public static class ReportService {
+        private final TransactionTemplate transactionTemplate;
+
+        private final JdbcTemplate jdbcTemplate;
+
+        public ReportService(TransactionTemplate transactionTemplate, JdbcTemplate jdbcTemplate) {
+            this.transactionTemplate = transactionTemplate;
+            this.jdbcTemplate = jdbcTemplate;
+        }
+
+        @TransactionBoundary
+        public void transfer() {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update("UPDATE account"));
+        }
+
+        @TransactionBoundary(readOnly = true)
+        public void report() {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.queryForList("SELECT report"));
+        }
+
+        @TransactionBoundary(timeTravel = @TimeTravel(mode = TimeTravelMode.HISTORICAL_READ))
+        public void history() {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.queryForList("SELECT history"));
+        }
+    }
+
+    @Test
+    public void whenReadOnlyOrTimeTravel_expectReadPool() {
+        CountingDataSource writeDataSource = new CountingDataSource();
+        CountingDataSource readDataSource = new CountingDataSource();
+
+        CockroachRoutingDataSource dataSource = new CockroachRoutingDataSource(writeDataSource, readDataSource);
+
+        TransactionTemplate transactionTemplate
+                = new TransactionTemplate(new CockroachTransactionManager(dataSource));
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        AspectJProxyFactory factory = new AspectJProxyFactory(
+                new ReportService(transactionTemplate, new JdbcTemplate(dataSource)));
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new TransactionBoundaryContextAspect());
+        ReportService proxy = factory.getProxy();
+
+        proxy.transfer();
+        proxy.report();
+        proxy.history();
+        new JdbcTemplate(dataSource).update("UPDATE outside");
+
+        Assertions.assertEquals(List.of("UPDATE account", "COMMIT", "UPDATE outside"),
+                writeDataSource.getStatements());
+        Assertions.assertEquals(2, readDataSource.getConnections());
+        Assertions.assertTrue(readDataSource.getStatements().containsAll(List.of("SELECT report", "SELECT history")));
+    }
+
+    @Test
+    public void whenClosed_expectTargetPoolsClosed() {
+        AtomicInteger closed = new AtomicInteger();
+
+        class ClosingDataSource extends CountingDataSource implements Closeable {
+            @Override
+            public void close() {
+                closed.incrementAndGet();
+            }
+        }
+
+        new CockroachRoutingDataSource(new ClosingDataSource(), new ClosingDataSource()).close();
+
+        Assertions.assertEquals(2, closed.get());
+    }
+}
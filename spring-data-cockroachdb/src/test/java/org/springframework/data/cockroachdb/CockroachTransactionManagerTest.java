@@ -0,0 +1,217 @@
+package org.springframework.data.cockroachdb;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.cockroachdb.annotations.TimeTravel;
+import org.springframework.data.cockroachdb.annotations.TransactionBoundary;
+import org.springframework.data.cockroachdb.aspect.TimeTravelMode;
+import org.springframework.data.cockroachdb.aspect.TransactionBoundaryContextAspect;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Tag("unit-test")
+public class CockroachTransactionManagerTest {
+    public static class AccountService {
+        private final TransactionTemplate transactionTemplate;
+
+        private final JdbcTemplate jdbcTemplate;
+
+        public AccountService(TransactionTemplate transactionTemplate, JdbcTemplate jdbcTemplate) {
+            this.transactionTemplate = transactionTemplate;
+            this.jdbcTemplate = jdbcTemplate;
+        }
+
+        @TransactionBoundary(readOnly = true, priority = TransactionBoundary.Priority.high,
+                timeTravel = @TimeTravel(mode = TimeTravelMode.FOLLOWER_READ))
+        public void report() {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.queryForList("SELECT 1"));
+        }
+
+        @TransactionBoundary
+        public void deleteAll() {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update("DELETE FROM account"));
+        }
+
+        @TransactionBoundary(implicitIfSingleStatement = true)
+        public void deleteAllImplicit() {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update("DELETE FROM account"));
+        }
+
+        @TransactionBoundary(readOnly = true,
+                timeTravel = @TimeTravel(mode = TimeTravelMode.MAX_STALENESS, staleness = "10s"))
+        public void findBalance() {
+            transactionTemplate.executeWithoutResult(
+                    status -> jdbcTemplate.queryForList("SELECT balance FROM account WHERE id = ?", 1));
+        }
+
+        @TransactionBoundary(readOnly = true,
+                timeTravel = @TimeTravel(mode = TimeTravelMode.MIN_TIMESTAMP, staleness = "5s"))
+        public void findBalances() {
+            transactionTemplate.executeWithoutResult(
+                    status -> jdbcTemplate.queryForList("SELECT balance FROM account ORDER BY id LIMIT ?", 10));
+        }
+
+        @TransactionBoundary(readOnly = true,
+                timeTravel = @TimeTravel(mode = TimeTravelMode.MAX_STALENESS, staleness = "10s"))
+        public BigDecimal findTotalBalance() {
+            return transactionTemplate.execute(
+                    status -> jdbcTemplate.queryForObject("SELECT sum(balance) FROM account", BigDecimal.class));
+        }
+
+        @TransactionBoundary(implicitIfSingleStatement = true, priority = TransactionBoundary.Priority.high)
+        public void deleteAllTwice() {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update("DELETE FROM account");
+                jdbcTemplate.update("DELETE FROM account");
+            });
+        }
+    }
+
+    private final CountingDataSource dataSource = new CountingDataSource();
+
+    private AccountService proxy;
+
+    @BeforeEach
+    public void setup() {
+        CockroachTransactionManager transactionManager = new CockroachTransactionManager(dataSource);
+        transactionManager.setDeferredBeginEnabled(true);
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_SERIALIZABLE);
+
+        AspectJProxyFactory factory = new AspectJProxyFactory(
+                new AccountService(transactionTemplate, new JdbcTemplate(dataSource)));
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new TransactionBoundaryContextAspect());
+        proxy = factory.getProxy();
+    }
+
+    @Test
+    public void whenTransactionBoundary_expectAttributesFoldedIntoSingleStatement() {
+        proxy.report();
+
+        Assertions.assertEquals(List.of(
+                        "SET TRANSACTION PRIORITY high, READ ONLY, AS OF SYSTEM TIME follower_read_timestamp()",
+                        "SELECT 1",
+                        "COMMIT"),
+                dataSource.getStatements());
+        Assertions.assertFalse(dataSource.getConnectionMethods().contains("setReadOnly"));
+        Assertions.assertFalse(dataSource.getConnectionMethods().contains("setTransactionIsolation"));
+    }
+
+    @Test
+    public void whenReadOnlyDefinition_expectReadOnlyStatementOnlyIfEnforced() {
+        CockroachTransactionManager transactionManager = new CockroachTransactionManager(dataSource);
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.executeWithoutResult(status -> {
+        });
+
+        Assertions.assertEquals(List.of(), dataSource.getStatements());
+
+        transactionManager.setEnforceReadOnly(true);
+        transactionTemplate.executeWithoutResult(status -> {
+        });
+
+        Assertions.assertEquals(List.of("SET TRANSACTION READ ONLY", "COMMIT"), dataSource.getStatements());
+        Assertions.assertFalse(dataSource.getConnectionMethods().contains("setReadOnly"));
+    }
+
+    @Test
+    public void whenDeferredBeginToggled_expectWrappedOnlyIfEnabled() {
+        CockroachTransactionManager transactionManager = new CockroachTransactionManager(dataSource);
+        Assertions.assertSame(dataSource, transactionManager.getDataSource());
+
+        transactionManager.setDeferredBeginEnabled(true);
+        Assertions.assertInstanceOf(DeferredBeginDataSource.class, transactionManager.getDataSource());
+
+        transactionManager.setDeferredBeginEnabled(false);
+        Assertions.assertSame(dataSource, transactionManager.getDataSource());
+    }
+
+    @Test
+    public void whenImplicitIfSingleStatement_expectNoCommitRoundTrip() {
+        proxy.deleteAll();
+
+        Assertions.assertEquals(List.of("DELETE FROM account", "COMMIT"), dataSource.getStatements());
+        Assertions.assertEquals(2, dataSource.getRoundTrips());
+
+        dataSource.reset();
+
+        proxy.deleteAllImplicit();
+
+        Assertions.assertEquals(List.of("DELETE FROM account"), dataSource.getStatements());
+        Assertions.assertEquals(1, dataSource.getRoundTrips());
+    }
+
+    @Test
+    public void whenBoundedStaleness_expectTimeTravelClauseInImplicitStatement() {
+        proxy.findBalance();
+        proxy.findBalances();
+
+        Assertions.assertEquals(List.of(
+                "SELECT balance FROM account AS OF SYSTEM TIME with_max_staleness('10s') WHERE id = ?",
+                "SELECT balance FROM account AS OF SYSTEM TIME with_min_timestamp(now() - INTERVAL '5s') "
+                        + "ORDER BY id LIMIT ?"), dataSource.getStatements());
+        Assertions.assertEquals(2, dataSource.getRoundTrips());
+    }
+
+    @Test
+    public void whenBoundedStalenessWithPlainStatement_expectTimeTravelClause() {
+        // No-arg queries execute through createStatement rather than prepareStatement
+        Assertions.assertThrows(EmptyResultDataAccessException.class, proxy::findTotalBalance);
+
+        Assertions.assertEquals(List.of(
+                "SELECT sum(balance) FROM account AS OF SYSTEM TIME with_max_staleness('10s')"),
+                dataSource.getStatements());
+        Assertions.assertTrue(dataSource.getConnectionMethods().contains("createStatement"));
+    }
+
+    @Test
+    public void whenSelectStatement_expectClauseAfterFromList() {
+        Assertions.assertEquals("SELECT * FROM account a AS OF SYSTEM TIME x",
+                AsOfSystemTimeClause.apply("SELECT * FROM account a;", "x"));
+        Assertions.assertEquals("SELECT (SELECT 1 FROM t WHERE y = 'where') FROM account AS OF SYSTEM TIME x WHERE id = 1",
+                AsOfSystemTimeClause.apply("SELECT (SELECT 1 FROM t WHERE y = 'where') FROM account WHERE id = 1", "x"));
+        Assertions.assertEquals("SELECT 1", AsOfSystemTimeClause.apply("SELECT 1", "x"));
+        Assertions.assertEquals("UPDATE account SET balance = 0",
+                AsOfSystemTimeClause.apply("UPDATE account SET balance = 0", "x"));
+        Assertions.assertEquals("SELECT * FROM t AS OF SYSTEM TIME y",
+                AsOfSystemTimeClause.apply("SELECT * FROM t AS OF SYSTEM TIME y", "x"));
+    }
+
+    @Test
+    public void whenQuotedOrCommentedKeywords_expectClauseAfterFromList() {
+        Assertions.assertEquals("SELECT \"from\", 'as of system time' FROM \"order\" AS OF SYSTEM TIME x WHERE a = 'it''s'",
+                AsOfSystemTimeClause.apply("SELECT \"from\", 'as of system time' FROM \"order\" WHERE a = 'it''s'", "x"));
+        Assertions.assertEquals("/* SELECT */ SELECT a.order FROM t -- where\n AS OF SYSTEM TIME x WHERE a.limit = $1",
+                AsOfSystemTimeClause.apply("/* SELECT */ SELECT a.order FROM t -- where\n WHERE a.limit = $1", "x"));
+        Assertions.assertEquals("SELECT E'\\' where', $$ from $$ FROM t AS OF SYSTEM TIME x",
+                AsOfSystemTimeClause.apply("SELECT E'\\' where', $$ from $$ FROM t; -- done", "x"));
+        Assertions.assertEquals("SELECT * FROM t /* as of system time */ AS OF SYSTEM TIME x LIMIT 1",
+                AsOfSystemTimeClause.apply("SELECT * FROM t /* as of system time */ LIMIT 1", "x"));
+        Assertions.assertEquals("SELECT * FROM t; SELECT * FROM u",
+                AsOfSystemTimeClause.apply("SELECT * FROM t; SELECT * FROM u", "x"));
+        Assertions.assertEquals("SELECT * FROM t WHERE a = 'unterminated",
+                AsOfSystemTimeClause.apply("SELECT * FROM t WHERE a = 'unterminated", "x"));
+    }
+
+    @Test
+    public void whenImplicitWithSecondStatement_expectRejected() {
+        Assertions.assertThrows(InvalidDataAccessApiUsageException.class, proxy::deleteAllTwice);
+
+        Assertions.assertEquals(List.of("DELETE FROM account"), dataSource.getStatements());
+        Assertions.assertFalse(dataSource.getStatements().contains("ROLLBACK"));
+    }
+}
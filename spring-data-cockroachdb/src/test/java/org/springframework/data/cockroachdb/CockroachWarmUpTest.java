@@ -0,0 +1,93 @@
+package org.springframework.data.cockroachdb;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGStatement;
+
+@Tag("unit-test")
+public class CockroachWarmUpTest {
+    @Test
+    public void whenWarmUp_expectConnectionsOpenedAndStatementsPrepared() {
+        CountingDataSource dataSource = new CountingDataSource();
+
+        CockroachWarmUp warmUp = new CockroachWarmUp()
+                .addStatement("UPDATE account SET balance = ? WHERE id = ?")
+                .addStatement("INSERT INTO transaction_item (transaction_id, account_id) VALUES (?, ?)");
+
+        Assertions.assertEquals(4, warmUp.warmUp(dataSource, 4));
+        Assertions.assertFalse(warmUp.isReady());
+
+        Assertions.assertEquals(4, dataSource.getConnections());
+        Assertions.assertEquals(8,
+                Collections.frequency(dataSource.getConnectionMethods(), "prepareStatement"));
+        Assertions.assertEquals(4,
+                Collections.frequency(dataSource.getConnectionMethods(), "close"));
+    }
+
+    @Test
+    public void whenNewConnection_expectStatementsPreparedWithoutExecution() throws Exception {
+        CountingDataSource dataSource = new CountingDataSource();
+
+        CockroachWarmUp warmUp = new CockroachWarmUp()
+                .addStatement("UPDATE account SET balance = ? WHERE id = ?")
+                .addStatement("SELECT * FROM account WHERE id = ?");
+
+        DataSource preparing = warmUp.preparing(dataSource);
+
+        try (Connection connection = preparing.getConnection()) {
+            Assertions.assertTrue(connection.getAutoCommit());
+        }
+
+        Assertions.assertEquals(1, dataSource.getConnections());
+        Assertions.assertEquals(2,
+                Collections.frequency(dataSource.getConnectionMethods(), "prepareStatement"));
+        Assertions.assertEquals(List.of(), dataSource.getStatements());
+        Assertions.assertEquals(0, dataSource.getRoundTrips());
+        Assertions.assertFalse(dataSource.getConnectionMethods().contains("setAutoCommit"));
+    }
+
+    @Test
+    public void whenPgStatement_expectForcedPrepareThreshold() throws Exception {
+        List<Integer> thresholds = new ArrayList<>();
+
+        PreparedStatement ps = (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {PreparedStatement.class, PGStatement.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "isWrapperFor":
+                            return PGStatement.class.equals(args[0]);
+                        case "unwrap":
+                            return proxy;
+                        case "setPrepareThreshold":
+                            thresholds.add((Integer) args[0]);
+                            return null;
+                        default:
+                            return method.getReturnType().equals(boolean.class) ? false : null;
+                    }
+                });
+
+        Connection connection = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "prepareStatement":
+                            return ps;
+                        case "getAutoCommit":
+                            return true;
+                        default:
+                            return null;
+                    }
+                });
+
+        Assertions.assertEquals(1, new CockroachWarmUp().addStatement("SELECT ?").prepare(connection));
+        Assertions.assertEquals(List.of(1), thresholds);
+    }
+}
@@ -0,0 +1,174 @@
+package org.springframework.data.cockroachdb;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+/**
+ * Fake data source for unit tests that records executed SQL statements, including
+ * COMMIT and ROLLBACK, and counts the number of network round trips a real driver
+ * would make. Queries return empty result sets.
+ */
+public class CountingDataSource extends AbstractDataSource {
+    private final AtomicInteger roundTrips = new AtomicInteger();
+
+    private final AtomicInteger connections = new AtomicInteger();
+
+    private final List<String> statements = new CopyOnWriteArrayList<>();
+
+    private final List<String> connectionMethods = new CopyOnWriteArrayList<>();
+
+    public int getRoundTrips() {
+        return roundTrips.get();
+    }
+
+    public int getConnections() {
+        return connections.get();
+    }
+
+    public List<String> getStatements() {
+        return statements;
+    }
+
+    /**
+     * @return the names of all methods invoked on connections, in order
+     */
+    public List<String> getConnectionMethods() {
+        return connectionMethods;
+    }
+
+    public void reset() {
+        roundTrips.set(0);
+        connections.set(0);
+        statements.clear();
+        connectionMethods.clear();
+    }
+
+    @Override
+    public Connection getConnection() {
+        connections.incrementAndGet();
+
+        // Mimics pgjdbc, which sends BEGIN along with the first statement and
+        // COMMIT or ROLLBACK only if a statement was executed
+        final ConnectionState state = new ConnectionState();
+
+        return proxy(Connection.class, (proxy, method, args) -> {
+            connectionMethods.add(method.getName());
+            switch (method.getName()) {
+                case "createStatement":
+                    return statement(Statement.class, null, state);
+                case "prepareStatement":
+                    return statement(PreparedStatement.class, (String) args[0], state);
+                case "getAutoCommit":
+                    return state.autoCommit;
+                case "setAutoCommit":
+                    if ((Boolean) args[0] && !state.autoCommit) {
+                        endTransaction(state, "COMMIT");
+                    }
+                    state.autoCommit = (Boolean) args[0];
+                    return null;
+                case "commit":
+                case "rollback":
+                    if (state.autoCommit) {
+                        throw new SQLException("Cannot " + method.getName() + " when autoCommit is enabled.");
+                    }
+                    endTransaction(state, method.getName().toUpperCase());
+                    return null;
+                case "isClosed":
+                    return false;
+                case "isWrapperFor":
+                    return false;
+                case "toString":
+                    return "CountingConnection";
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        });
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) {
+        return getConnection();
+    }
+
+    private void endTransaction(ConnectionState state, String sql) {
+        if (state.inTransaction) {
+            roundTrips.incrementAndGet();
+            statements.add(sql);
+            state.inTransaction = false;
+        }
+    }
+
+    private <T extends Statement> T statement(Class<T> type, String preparedSql, ConnectionState state) {
+        return proxy(type, (proxy, method, args) -> {
+            if (method.getName().startsWith("execute") && !state.autoCommit) {
+                state.inTransaction = true;
+            }
+            switch (method.getName()) {
+                case "addBatch":
+                    if (args != null && args.length == 1) {
+                        statements.add((String) args[0]);
+                    } else {
+                        statements.add(preparedSql);
+                    }
+                    return null;
+                case "executeBatch":
+                    roundTrips.incrementAndGet();
+                    return new int[0];
+                case "execute":
+                case "executeUpdate":
+                case "executeLargeUpdate":
+                case "executeQuery":
+                    roundTrips.incrementAndGet();
+                    statements.add(args != null && args.length > 0 ? (String) args[0] : preparedSql);
+                    if (method.getReturnType().equals(ResultSet.class)) {
+                        return emptyResultSet();
+                    }
+                    return defaultValue(method.getReturnType());
+                case "getUpdateCount":
+                    return -1;
+                case "toString":
+                    return "CountingStatement";
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        });
+    }
+
+    private static class ConnectionState {
+        boolean autoCommit = true;
+
+        boolean inTransaction;
+    }
+
+    private ResultSet emptyResultSet() {
+        return proxy(ResultSet.class, (proxy, method, args) -> defaultValue(method.getReturnType()));
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type.equals(boolean.class)) {
+            return false;
+        }
+        if (type.equals(int.class)) {
+            return 0;
+        }
+        if (type.equals(long.class)) {
+            return 0L;
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(CountingDataSource.class.getClassLoader(), new Class<?>[] {type}, handler);
+    }
+}
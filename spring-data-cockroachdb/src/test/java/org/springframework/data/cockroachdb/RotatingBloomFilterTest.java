@@ -0,0 +1,82 @@
+package org.springframework.data.cockroachdb;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+@Tag("unit-test")
+public class RotatingBloomFilterTest {
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    @Test
+    public void whenSized_expectOptimalBitsAndHashFunctions() {
+        RotatingBloomFilter filter = new RotatingBloomFilter(100_000, 0.01, Duration.ofMinutes(5));
+
+        // ~9.6 bits and 7 hash functions per token at 1%
+        Assertions.assertEquals(958_528, filter.getNumBits());
+        Assertions.assertEquals(7, filter.getNumHashFunctions());
+        Assertions.assertEquals(2 * 958_528 / 8, filter.getMemoryFootprintBytes());
+        Assertions.assertEquals(0, filter.getExpectedFalsePositiveRate());
+    }
+
+    @Test
+    public void whenFilled_expectNoFalseNegativesAndFalsePositiveRateNearTarget() {
+        final int n = 100_000;
+
+        RotatingBloomFilter filter = new RotatingBloomFilter(n, 0.01, Duration.ofMinutes(5));
+
+        List<UUID> added = new ArrayList<>();
+        IntStream.range(0, n).forEach(value -> {
+            UUID token = UUID.randomUUID();
+            filter.put(token);
+            added.add(token);
+        });
+
+        added.forEach(token -> Assertions.assertTrue(filter.mightContain(token)));
+
+        final int probes = 200_000;
+        long falsePositives = IntStream.range(0, probes)
+                .filter(value -> filter.mightContain(UUID.randomUUID()))
+                .count();
+        double observed = falsePositives / (double) probes;
+
+        logger.info("{} observed false positive rate {}", filter, String.format("%.6f", observed));
+
+        Assertions.assertTrue(observed < 0.015, "Observed false positive rate " + observed);
+        Assertions.assertEquals(0.01, filter.getExpectedFalsePositiveRate(), 0.002);
+    }
+
+    @Test
+    public void whenWindowsElapse_expectTokensRotatedOut() {
+        AtomicLong clock = new AtomicLong();
+
+        RotatingBloomFilter filter = new RotatingBloomFilter(1000, 0.01, Duration.ofSeconds(10), clock::get);
+
+        UUID token = UUID.randomUUID();
+        Assertions.assertFalse(filter.put(token));
+        Assertions.assertTrue(filter.put(token));
+
+        // Still remembered in the previous generation
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        Assertions.assertTrue(filter.mightContain(token));
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        Assertions.assertFalse(filter.mightContain(token));
+        Assertions.assertEquals(0, filter.getApproximateCount());
+
+        // Idle for more than one window drops both generations
+        filter.put(token);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(25));
+        Assertions.assertFalse(filter.mightContain(token));
+    }
+}
@@ -0,0 +1,110 @@
+package org.springframework.data.cockroachdb;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+
+@Tag("unit-test")
+public class SamplingQueryTracerTest {
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private static void execute(SamplingQueryTracer tracer, String sql, long elapsedMillis) {
+        ExecutionInfo executionInfo = new ExecutionInfo();
+        executionInfo.setElapsedTime(elapsedMillis);
+        executionInfo.setSuccess(true);
+        List<QueryInfo> queryInfoList = List.of(new QueryInfo(sql));
+        tracer.beforeQuery(executionInfo, queryInfoList);
+        tracer.afterQuery(executionInfo, queryInfoList);
+    }
+
+    @Test
+    public void whenTailLatencySampling_expectOnlySlowStatements() {
+        SamplingQueryTracer tracer = new SamplingQueryTracer();
+        tracer.setSampleRate(0);
+        tracer.setTailLatencyMillis(100);
+
+        for (int i = 0; i < 100; i++) {
+            execute(tracer, "SELECT fast", 1);
+        }
+        execute(tracer, "SELECT slow", 150);
+
+        List<SamplingQueryTracer.Entry> entries = tracer.dump();
+        Assertions.assertEquals(1, entries.size());
+        Assertions.assertTrue(entries.get(0).isSlow());
+        Assertions.assertEquals(List.of("SELECT slow"), entries.get(0).getQueries());
+        Assertions.assertEquals(150, entries.get(0).getElapsedMillis());
+    }
+
+    @Test
+    public void whenProbabilisticSampling_expectApproximateRate() {
+        SamplingQueryTracer tracer = new SamplingQueryTracer();
+        tracer.setSampleRate(0.1);
+
+        for (int i = 0; i < 10_000; i++) {
+            execute(tracer, "SELECT 1", 1);
+        }
+
+        long sampled = tracer.getSampledCount();
+        Assertions.assertTrue(sampled > 700 && sampled < 1300, "Sampled " + sampled);
+    }
+
+    @Test
+    public void whenBufferFull_expectOldestOverwritten() {
+        SamplingQueryTracer tracer = new SamplingQueryTracer("test", 3);
+        Assertions.assertEquals(4, tracer.getCapacity());
+
+        for (int i = 0; i < 10; i++) {
+            execute(tracer, "SELECT " + i, 1);
+        }
+
+        List<SamplingQueryTracer.Entry> entries = tracer.dump();
+        Assertions.assertEquals(4, entries.size());
+        Assertions.assertEquals(List.of("SELECT 6"), entries.get(0).getQueries());
+        Assertions.assertEquals(List.of("SELECT 9"), entries.get(3).getQueries());
+
+        Assertions.assertEquals(4, tracer.drain());
+        Assertions.assertEquals(6, tracer.getDroppedCount());
+        Assertions.assertEquals(0, tracer.drain());
+
+        execute(tracer, "SELECT 10", 1);
+        Assertions.assertEquals(1, tracer.drain());
+    }
+
+    @Test
+    public void whenNotSampled_expectLowOverheadPerStatement() {
+        SamplingQueryTracer tracer = new SamplingQueryTracer();
+        tracer.setSampleRate(0.0001);
+        tracer.setTailLatencyMillis(100);
+
+        ExecutionInfo executionInfo = new ExecutionInfo();
+        executionInfo.setElapsedTime(1);
+        List<QueryInfo> queryInfoList = List.of(new QueryInfo("SELECT 1"));
+
+        final int iterations = 5_000_000;
+
+        // Warm up so that the measured loop runs compiled
+        for (int i = 0; i < iterations; i++) {
+            tracer.afterQuery(executionInfo, queryInfoList);
+        }
+
+        long startTime = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            tracer.afterQuery(executionInfo, queryInfoList);
+        }
+        double nanosPerCall = (System.nanoTime() - startTime) / (double) iterations;
+
+        logger.info("Unsampled afterQuery: {} ns/call, sampled {} of {}",
+                String.format("%.1f", nanosPerCall), tracer.getSampledCount(), iterations * 2);
+
+        // Loose bound to stay stable on shared build hosts
+        Assertions.assertTrue(nanosPerCall < 1000, "Unsampled afterQuery took " + nanosPerCall + " ns/call");
+        Assertions.assertTrue(tracer.getSampledCount() < iterations / 1000);
+    }
+}
@@ -0,0 +1,151 @@
+package org.springframework.data.cockroachdb.aspect;
+
+import java.lang.reflect.Method;
+import java.util.Random;
+import java.util.function.LongSupplier;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit-test")
+public class AdaptiveConcurrencyLimiterTest {
+    private static Method method() throws NoSuchMethodException {
+        return AdaptiveConcurrencyLimiterTest.class.getDeclaredMethod("method");
+    }
+
+    @Test
+    public void whenConflicting_expectLimitDecrease() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter();
+        limiter.setInitialLimit(10);
+        limiter.setMinLimit(2);
+        limiter.setBackoffRatio(0.5);
+
+        AdaptiveConcurrencyLimiter.Limit limit = limiter.getLimit(method());
+        Assertions.assertEquals(10, limit.getLimit());
+
+        limit.onConflict();
+        Assertions.assertEquals(5, limit.getLimit());
+
+        IntStream.range(0, 10).forEach(value -> limit.onConflict());
+        Assertions.assertEquals(2, limit.getLimit());
+    }
+
+    @Test
+    public void whenCompletingAtSaturation_expectLimitIncrease() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter();
+        limiter.setInitialLimit(2);
+        limiter.setMaxLimit(4);
+
+        AdaptiveConcurrencyLimiter.Limit limit = limiter.getLimit(method());
+
+        for (int i = 0; i < 100; i++) {
+            Assertions.assertTrue(limit.tryAcquire());
+            Assertions.assertTrue(limit.tryAcquire());
+            limit.release(1000);
+            limit.release(1000);
+        }
+
+        Assertions.assertEquals(4, limit.getLimit());
+        Assertions.assertEquals(0, limit.getInFlight());
+    }
+
+    @Test
+    public void whenLimitReached_expectRejectionAfterMaxWait() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter();
+        limiter.setInitialLimit(1);
+        limiter.setMaxWaitMillis(50);
+
+        AdaptiveConcurrencyLimiter.Limit limit = limiter.getLimit(method());
+
+        Assertions.assertTrue(limit.tryAcquire());
+        Assertions.assertFalse(limit.tryAcquire());
+        Assertions.assertEquals(1, limit.getNumRejected());
+
+        limit.release(-1);
+        Assertions.assertTrue(limit.tryAcquire());
+    }
+
+    private static void completeAtSaturation(AdaptiveConcurrencyLimiter.Limit limit, long latencyNanos)
+            throws InterruptedException {
+        completeAtSaturation(limit, () -> latencyNanos);
+    }
+
+    private static void completeAtSaturation(AdaptiveConcurrencyLimiter.Limit limit, LongSupplier latencyNanos)
+            throws InterruptedException {
+        int n = limit.getLimit();
+        for (int i = 0; i < n; i++) {
+            Assertions.assertTrue(limit.tryAcquire());
+        }
+        for (int i = 0; i < n; i++) {
+            limit.release(latencyNanos.getAsLong());
+        }
+    }
+
+    @Test
+    public void whenSteadyJitteryLatency_expectStableLimit() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter();
+        limiter.setInitialLimit(20);
+        limiter.setMaxLimit(20);
+
+        AdaptiveConcurrencyLimiter.Limit limit = limiter.getLimit(method());
+
+        // Uniform 1-5 ms, where most samples exceed twice the all-time minimum
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            completeAtSaturation(limit, () -> 1_000_000 + random.nextInt(4_000_000));
+        }
+
+        Assertions.assertEquals(20, limit.getLimit());
+    }
+
+    @Test
+    public void whenLatencyIncreases_expectLimitDecrease() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter();
+        limiter.setInitialLimit(20);
+        limiter.setMaxLimit(20);
+        limiter.setSampleWindow(20);
+
+        AdaptiveConcurrencyLimiter.Limit limit = limiter.getLimit(method());
+
+        for (int i = 0; i < 10; i++) {
+            completeAtSaturation(limit, 1_000_000);
+        }
+        Assertions.assertEquals(20, limit.getLimit());
+
+        for (int i = 0; i < 5; i++) {
+            completeAtSaturation(limit, 5_000_000);
+        }
+        Assertions.assertTrue(limit.getLimit() < 20, "Limit " + limit.getLimit());
+    }
+
+    @Test
+    public void whenConflictedWindow_expectNoLatencyDecrease() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter();
+        limiter.setInitialLimit(10);
+        limiter.setMaxLimit(10);
+        limiter.setSampleWindow(10);
+        limiter.setBackoffRatio(0.5);
+
+        AdaptiveConcurrencyLimiter.Limit limit = limiter.getLimit(method());
+
+        completeAtSaturation(limit, 1_000_000);
+        Assertions.assertEquals(10, limit.getLimit());
+
+        // One decrease for the conflict, none for the slow window it caused
+        limit.onConflict();
+        Assertions.assertEquals(5, limit.getLimit());
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertTrue(i >= 5 || limit.tryAcquire());
+        }
+        for (int i = 0; i < 5; i++) {
+            limit.release(10_000_000, true);
+        }
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertTrue(limit.tryAcquire());
+            limit.release(10_000_000, true);
+        }
+        Assertions.assertEquals(5, limit.getLimit());
+    }
+}
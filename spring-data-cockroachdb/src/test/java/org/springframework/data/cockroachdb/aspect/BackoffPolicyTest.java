@@ -0,0 +1,114 @@
+package org.springframework.data.cockroachdb.aspect;
+
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+@Tag("unit-test")
+public class BackoffPolicyTest {
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    @Test
+    public void whenUsingFixedBackoff_expectConstantDelay() {
+        BackoffPolicy policy = BackoffMode.FIXED.createPolicy(50, 2.0, 1000);
+        IntStream.rangeClosed(1, 10).forEach(attempt ->
+                Assertions.assertEquals(50, policy.backoffMillis(attempt, 50)));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> BackoffMode.FIXED.createPolicy(50, 2.0, -1));
+    }
+
+    @Test
+    public void whenUsingExponentialBackoff_expectCappedGrowth() {
+        BackoffPolicy policy = BackoffMode.EXPONENTIAL.createPolicy(10, 2.0, 100);
+        Assertions.assertEquals(10, policy.backoffMillis(1, 0));
+        Assertions.assertEquals(20, policy.backoffMillis(2, 10));
+        Assertions.assertEquals(40, policy.backoffMillis(3, 20));
+        Assertions.assertEquals(80, policy.backoffMillis(4, 40));
+        Assertions.assertEquals(100, policy.backoffMillis(5, 80));
+        Assertions.assertEquals(100, policy.backoffMillis(500, 100));
+    }
+
+    @Test
+    public void whenUsingFullJitterBackoff_expectDelayWithinBounds() {
+        BackoffPolicy policy = BackoffMode.FULL_JITTER.createPolicy(10, 2.0, 100);
+        IntStream.rangeClosed(1, 1000).forEach(i -> {
+            int attempt = 1 + i % 10;
+            long delay = policy.backoffMillis(attempt, 0);
+            Assertions.assertTrue(delay >= 0);
+            Assertions.assertTrue(delay <= Math.min(100, 10 * Math.pow(2, attempt - 1)));
+        });
+    }
+
+    @Test
+    public void whenUsingDecorrelatedJitterBackoff_expectDelayWithinBounds() {
+        BackoffPolicy policy = BackoffMode.DECORRELATED_JITTER.createPolicy(10, 3.0, 100);
+        long previous = 0;
+        for (int attempt = 1; attempt <= 1000; attempt++) {
+            long delay = policy.backoffMillis(attempt, previous);
+            Assertions.assertTrue(delay >= 10);
+            Assertions.assertTrue(delay <= Math.min(100, Math.max(previous, 10) * 3));
+            previous = delay;
+        }
+    }
+
+    /**
+     * Discrete-event simulation of clients contending on a single hot row. An attempt
+     * aborts if it overlaps with the commit window of another transaction, or otherwise
+     * at the given base conflict rate. Time is virtual, so no threads are parked.
+     */
+    @ParameterizedTest
+    @EnumSource(BackoffMode.class)
+    public void whenSimulatingContention_expectProgress(BackoffMode backoffMode) {
+        final int numClients = 32;
+        final long txnMillis = 5;
+        final long horizonMillis = 60_000;
+        final double conflictRate = 0.10;
+
+        BackoffPolicy policy = backoffMode.createPolicy(10, 2.0, 1000);
+        Random random = new Random(42);
+
+        // Entries are {startTime, clientId, attempt, previousBackoff}
+        PriorityQueue<long[]> events = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+        IntStream.range(0, numClients).forEach(client -> events.add(new long[] {0, client, 1, 0}));
+
+        long busyUntil = 0;
+        long commits = 0;
+        long aborts = 0;
+
+        while (!events.isEmpty()) {
+            long[] event = events.poll();
+            long now = event[0];
+            if (now >= horizonMillis) {
+                break;
+            }
+            if (now < busyUntil || random.nextDouble() < conflictRate) {
+                aborts++;
+                long backoff = policy.backoffMillis((int) event[2], event[3]);
+                events.add(new long[] {now + txnMillis + backoff, event[1], event[2] + 1, backoff});
+            } else {
+                commits++;
+                busyUntil = now + txnMillis;
+                events.add(new long[] {busyUntil, event[1], 1, 0});
+            }
+        }
+
+        double throughput = commits / (horizonMillis / 1000.0);
+        logger.info("{} - conflict rate: {}% commits: {} aborts: {} throughput: {} txn/s",
+                String.format("%-20s", backoffMode),
+                conflictRate * 100,
+                commits,
+                aborts,
+                String.format("%.1f", throughput));
+
+        Assertions.assertTrue(commits > 0, "No progress");
+        Assertions.assertTrue(throughput <= 1000.0 / txnMillis, "Throughput exceeds serial capacity");
+    }
+}
@@ -0,0 +1,116 @@
+package org.springframework.data.cockroachdb.aspect;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.cockroachdb.SessionState;
+import org.springframework.data.cockroachdb.annotations.Retryable;
+import org.springframework.data.cockroachdb.annotations.SetVariable;
+import org.springframework.data.cockroachdb.annotations.TimeTravel;
+import org.springframework.data.cockroachdb.annotations.TransactionBoundary;
+import org.springframework.data.cockroachdb.annotations.Variable;
+
+@Tag("unit-test")
+public class MethodMetadataRegistryTest {
+    @Retryable(retryAttempts = 5)
+    @TransactionBoundary
+    public static class AccountService {
+        @TransactionBoundary(readOnly = true, applicationName = "o'brien",
+                timeTravel = @TimeTravel(mode = TimeTravelMode.HISTORICAL_READ, interval = "-10s"),
+                variables = @SetVariable(variable = Variable.statement_timeout, intValue = 1000))
+        public void findAccounts() {
+        }
+
+        public void transfer() {
+        }
+
+        @TransactionBoundary(variables = @SetVariable(variable = Variable.avoid_buffering, value = "on"))
+        public void immutable() {
+        }
+    }
+
+    public interface TransferService {
+        void transfer();
+    }
+
+    public static class DefaultTransferService implements TransferService {
+        @Retryable(retryAttempts = 7)
+        @TransactionBoundary(readOnly = true)
+        @Override
+        public void transfer() {
+        }
+    }
+
+    @Test
+    public void whenInterfaceMethod_expectAnnotationsOfTargetClassMethod() throws Exception {
+        MethodMetadataRegistry registry = new MethodMetadataRegistry();
+
+        // As seen by the join point of a JDK dynamic proxy
+        Method method = TransferService.class.getMethod("transfer");
+
+        MethodMetadata metadata = registry.getMetadata(method, DefaultTransferService.class);
+
+        Assertions.assertSame(metadata, registry.getMetadata(method, DefaultTransferService.class));
+        Assertions.assertEquals(DefaultTransferService.class.getMethod("transfer"), metadata.getMethod());
+        Assertions.assertEquals(7, metadata.getRetryable().retryAttempts());
+        Assertions.assertTrue(metadata.isReadOnly());
+    }
+
+    @Test
+    public void whenMethodAnnotated_expectPrecompiledStatements() throws Exception {
+        MethodMetadataRegistry registry = new MethodMetadataRegistry();
+        Method method = AccountService.class.getMethod("findAccounts");
+
+        MethodMetadata metadata = registry.register(method);
+
+        Assertions.assertSame(metadata, registry.register(method));
+        Assertions.assertEquals("AccountService.findAccounts(..)", metadata.getMethodName());
+        Assertions.assertEquals(5, metadata.getRetryable().retryAttempts());
+        Assertions.assertNotNull(metadata.getBackoffPolicy());
+        Assertions.assertNull(metadata.getRetryBudget());
+        Assertions.assertEquals(List.of(
+                "SET application_name = 'o''brien'",
+                "SET TRANSACTION READ ONLY, AS OF SYSTEM TIME INTERVAL '-10s'",
+                "SET local statement_timeout = 1000"), metadata.getTransactionAttributeStatements());
+    }
+
+    @Test
+    public void whenSessionVariableHeld_expectPrecompiledSqlWithoutIt() throws Exception {
+        MethodMetadata metadata = new MethodMetadataRegistry()
+                .register(AccountService.class.getMethod("findAccounts"));
+
+        SessionState sessionState = new SessionState();
+
+        String sql = metadata.getTransactionAttributeSql(sessionState);
+        Assertions.assertEquals("SET TRANSACTION READ ONLY, AS OF SYSTEM TIME INTERVAL '-10s'; "
+                + "SET local statement_timeout = 1000; SET application_name = 'o''brien'", sql);
+        Assertions.assertSame(sql, metadata.getTransactionAttributeSql(sessionState));
+
+        metadata.updateSessionState(sessionState);
+
+        Assertions.assertEquals(metadata.getTransactionScopedSql(), metadata.getTransactionAttributeSql(sessionState));
+    }
+
+    @Test
+    public void whenTypeAnnotated_expectTypeLevelFallback() throws Exception {
+        MethodMetadata metadata = new MethodMetadataRegistry()
+                .register(AccountService.class.getMethod("transfer"));
+
+        Assertions.assertNotNull(metadata.getRetryable());
+        Assertions.assertNotNull(metadata.getTransactionBoundary());
+        Assertions.assertFalse(metadata.isAsynchronous());
+        Assertions.assertTrue(metadata.getTransactionAttributeStatements().isEmpty());
+    }
+
+    @Test
+    public void whenImmutableVariable_expectFailure() throws Exception {
+        Method method = AccountService.class.getMethod("immutable");
+
+        Assertions.assertThrows(InvalidDataAccessApiUsageException.class,
+                () -> new MethodMetadataRegistry().register(method));
+    }
+}
@@ -0,0 +1,61 @@
+package org.springframework.data.cockroachdb.aspect;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Tag("unit-test")
+public class RetryBudgetTest {
+    @Test
+    public void whenBudgetSpent_expectRetriesRejectedUntilReplenished() {
+        RetryBudget budget = new RetryBudget(0.5, 2);
+
+        Assertions.assertTrue(budget.tryAcquireRetry());
+        Assertions.assertTrue(budget.tryAcquireRetry());
+        Assertions.assertFalse(budget.tryAcquireRetry());
+
+        budget.recordAttempt();
+        Assertions.assertFalse(budget.tryAcquireRetry());
+
+        budget.recordAttempt();
+        Assertions.assertTrue(budget.tryAcquireRetry());
+
+        Assertions.assertEquals(2, budget.getNumAttempts());
+        Assertions.assertEquals(3, budget.getNumRetries());
+        Assertions.assertEquals(2, budget.getNumRejected());
+    }
+
+    @Test
+    public void whenDepositingBeyondCapacity_expectCappedBalance() {
+        RetryBudget budget = new RetryBudget(1.0, 5);
+        IntStream.range(0, 100).forEach(value -> budget.recordAttempt());
+        Assertions.assertEquals(5.0, budget.getAvailableTokens());
+    }
+
+    @Test
+    public void whenRetryingConcurrently_expectRetriesCappedByRatio() throws InterruptedException {
+        RetryBudget budget = new RetryBudget(0.1, 10);
+        AtomicInteger granted = new AtomicInteger();
+
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        IntStream.range(0, 10_000).forEach(value -> executorService.submit(() -> {
+            budget.recordAttempt();
+            if (budget.tryAcquireRetry()) {
+                granted.incrementAndGet();
+            }
+        }));
+        executorService.shutdown();
+        Assertions.assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Initial burst capacity plus 10% of first attempts
+        Assertions.assertTrue(granted.get() <= 10 + 1000, "Granted: " + granted.get());
+        Assertions.assertEquals(granted.get(), budget.getNumRetries());
+        Assertions.assertEquals(10_000 - granted.get(), budget.getNumRejected());
+    }
+}
@@ -0,0 +1,81 @@
+package org.springframework.data.cockroachdb.aspect;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.cockroachdb.annotations.SerializeOn;
+
+@Tag("unit-test")
+public class SerializeOnAspectTest {
+    public static class TransferService {
+        final AtomicInteger inFlight = new AtomicInteger();
+
+        final AtomicInteger maxInFlight = new AtomicInteger();
+
+        @SerializeOn(key = "#p0")
+        public void transfer(List<Long> accountIds) throws InterruptedException {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(1);
+            inFlight.decrementAndGet();
+        }
+
+        @SerializeOn(key = "#p0")
+        public CompletableFuture<Void> transferAsync(List<Long> accountIds) {
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    @Test
+    public void whenOverlappingKeys_expectSerializedExecution() throws Exception {
+        StripedKeyLock keyLock = new StripedKeyLock(64);
+
+        AspectJProxyFactory factory = new AspectJProxyFactory(new TransferService());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new SerializeOnAspect(keyLock));
+        TransferService proxy = factory.getProxy();
+
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = IntStream.range(0, 200)
+                .mapToObj(value -> executorService.submit(() -> {
+                    // Every key set overlaps on key 1 but in different order
+                    proxy.transfer(value % 2 == 0 ? List.of(1L, 2L + value) : List.of(2L + value, 1L));
+                    return null;
+                }))
+                .collect(Collectors.toList());
+
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        executorService.shutdown();
+
+        Assertions.assertEquals(1, ((TransferService) factory.getTargetSource().getTarget()).maxInFlight.get());
+        Assertions.assertEquals(200, keyLock.getNumAcquired());
+        Assertions.assertEquals(0, keyLock.getNumTimeouts());
+    }
+
+    @Test
+    public void whenReturningCompletionStage_expectRejected() {
+        StripedKeyLock keyLock = new StripedKeyLock(64);
+
+        AspectJProxyFactory factory = new AspectJProxyFactory(new TransferService());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new SerializeOnAspect(keyLock));
+        TransferService proxy = factory.getProxy();
+
+        Assertions.assertThrows(InvalidDataAccessApiUsageException.class,
+                () -> proxy.transferAsync(List.of(1L)));
+        Assertions.assertEquals(0, keyLock.getNumAcquired());
+    }
+}
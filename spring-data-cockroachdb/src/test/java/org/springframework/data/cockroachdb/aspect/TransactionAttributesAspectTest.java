@@ -0,0 +1,120 @@
+package org.springframework.data.cockroachdb.aspect;
+
+import java.sql.Connection;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.cockroachdb.CountingDataSource;
+import org.springframework.data.cockroachdb.SessionStateDataSource;
+import org.springframework.data.cockroachdb.annotations.SetVariable;
+import org.springframework.data.cockroachdb.annotations.TimeTravel;
+import org.springframework.data.cockroachdb.annotations.TransactionBoundary;
+import org.springframework.data.cockroachdb.annotations.Variable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Tag("unit-test")
+public class TransactionAttributesAspectTest {
+    public static class ReportService {
+        @TransactionBoundary(readOnly = true, priority = TransactionBoundary.Priority.low,
+                applicationName = "reports", idleTimeout = "10s",
+                timeTravel = @TimeTravel(mode = TimeTravelMode.FOLLOWER_READ),
+                variables = @SetVariable(variable = Variable.statement_timeout, intValue = 1000))
+        public void report() {
+        }
+
+        @TransactionBoundary
+        public void plain() {
+        }
+
+        @TransactionBoundary(timeTravel = @TimeTravel(mode = TimeTravelMode.MAX_STALENESS))
+        public void boundedStaleness() {
+        }
+
+        @TransactionBoundary(priority = TransactionBoundary.Priority.high,
+                variables = @SetVariable(variable = Variable.enable_implicit_select_for_update,
+                        scope = SetVariable.Scope.session, value = "on"))
+        public void update() {
+        }
+    }
+
+    private final CountingDataSource dataSource = new CountingDataSource();
+
+    private ReportService proxy;
+
+    @BeforeEach
+    public void setup() {
+        AspectJProxyFactory factory = new AspectJProxyFactory(new ReportService());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new TransactionAttributesAspect(new JdbcTemplate(dataSource)));
+        proxy = factory.getProxy();
+
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+    }
+
+    @AfterEach
+    public void teardown() {
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    @Test
+    public void whenManyAttributes_expectSingleRoundTrip() {
+        proxy.report();
+
+        Assertions.assertEquals(1, dataSource.getRoundTrips());
+        Assertions.assertEquals(1, dataSource.getStatements().size());
+        Assertions.assertEquals("SET application_name = 'reports'; "
+                        + "SET TRANSACTION PRIORITY low, READ ONLY, AS OF SYSTEM TIME follower_read_timestamp(); "
+                        + "SET idle_in_transaction_session_timeout = '10s'; "
+                        + "SET local statement_timeout = 1000",
+                dataSource.getStatements().get(0));
+    }
+
+    @Test
+    public void whenSessionVariableUnchanged_expectSkippedSet() throws Exception {
+        SingleConnectionDataSource connectionDataSource = new SingleConnectionDataSource(
+                new SessionStateDataSource(dataSource).getConnection(), true);
+
+        AspectJProxyFactory factory = new AspectJProxyFactory(new ReportService());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new TransactionAttributesAspect(new JdbcTemplate(connectionDataSource)));
+        ReportService proxy = factory.getProxy();
+
+        proxy.update();
+        proxy.update();
+
+        Assertions.assertEquals(List.of(
+                "SET TRANSACTION PRIORITY high; SET session enable_implicit_select_for_update = 'on'",
+                "SET TRANSACTION PRIORITY high"), dataSource.getStatements());
+
+        Connection connection = connectionDataSource.getConnection();
+        connection.setAutoCommit(false);
+        connection.rollback();
+        connection.setAutoCommit(true);
+        proxy.update();
+
+        Assertions.assertEquals(
+                "SET TRANSACTION PRIORITY high; SET session enable_implicit_select_for_update = 'on'",
+                dataSource.getStatements().get(2));
+    }
+
+    @Test
+    public void whenBoundedStalenessInExplicitTransaction_expectFailure() {
+        Assertions.assertThrows(InvalidDataAccessApiUsageException.class, () -> proxy.boundedStaleness());
+        Assertions.assertEquals(0, dataSource.getRoundTrips());
+    }
+
+    @Test
+    public void whenNoAttributes_expectNoRoundTrip() {
+        proxy.plain();
+
+        Assertions.assertEquals(0, dataSource.getRoundTrips());
+    }
+}
@@ -0,0 +1,191 @@
+package org.springframework.data.cockroachdb.aspect;
+
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.postgresql.util.PSQLState;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.data.cockroachdb.annotations.Retryable;
+
+@Tag("unit-test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class TransactionRetryAspectTest {
+    public interface TransferService {
+        String transfer() throws SQLException;
+    }
+
+    public static class FlakyService implements TransferService {
+        final AtomicInteger calls = new AtomicInteger();
+
+        int failures;
+
+        @Retryable(retryAttempts = 5, backoffMode = BackoffMode.FIXED, initialBackoff = 5)
+        @Override
+        public String transfer() throws SQLException {
+            if (calls.incrementAndGet() <= failures) {
+                throw new SQLException("restart transaction", PSQLState.SERIALIZATION_FAILURE.getState());
+            }
+            return "ok";
+        }
+
+        @Retryable(retryAttempts = 5, backoffMode = BackoffMode.FIXED, initialBackoff = 5)
+        public CompletableFuture<String> transferAsync() {
+            if (calls.incrementAndGet() <= failures) {
+                return CompletableFuture.failedFuture(
+                        new SQLException("restart transaction", PSQLState.SERIALIZATION_FAILURE.getState()));
+            }
+            return CompletableFuture.completedFuture("ok");
+        }
+    }
+
+    private ScheduledExecutorService scheduler;
+
+    @BeforeAll
+    public void setupTest() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @AfterAll
+    public void teardownTest() {
+        scheduler.shutdownNow();
+    }
+
+    private FlakyService createProxy(FlakyService target, TransactionRetryAspect aspect) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        return factory.getProxy();
+    }
+
+    @Test
+    public void whenTransientErrors_expectRetryAndRecovery() throws Exception {
+        FlakyService target = new FlakyService();
+        target.failures = 3;
+
+        Assertions.assertEquals("ok", createProxy(target, new TransactionRetryAspect()).transfer());
+        Assertions.assertEquals(4, target.calls.get());
+    }
+
+    @Test
+    public void whenTransientErrors_expectOverridableBackoff() throws Exception {
+        FlakyService target = new FlakyService();
+        target.failures = 2;
+
+        List<Long> backoffs = new ArrayList<>();
+
+        TransactionRetryAspect aspect = new TransactionRetryAspect() {
+            @Override
+            protected void handleTransientException(SQLException sqlException, int numCalls, String methodName,
+                                                    long backoffMillis) {
+                backoffs.add(backoffMillis);
+            }
+        };
+
+        Assertions.assertEquals("ok", createProxy(target, aspect).transfer());
+        Assertions.assertEquals(List.of(5L, 5L), backoffs);
+    }
+
+    @Test
+    public void whenJdkProxy_expectAnnotationOfTargetClassMethod() throws Exception {
+        FlakyService target = new FlakyService();
+        target.failures = 3;
+
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setInterfaces(TransferService.class);
+        factory.addAspect(new TransactionRetryAspect());
+        TransferService proxy = factory.getProxy();
+
+        Assertions.assertTrue(Proxy.isProxyClass(proxy.getClass()));
+        Assertions.assertEquals("ok", proxy.transfer());
+        Assertions.assertEquals(4, target.calls.get());
+    }
+
+    @Test
+    public void whenRetryBudgetExhausted_expectFailFast() {
+        FlakyService target = new FlakyService();
+        target.failures = 3;
+
+        RetryBudget retryBudget = new RetryBudget(0, 1);
+
+        TransactionRetryAspect aspect = new TransactionRetryAspect();
+        aspect.setRetryBudget(retryBudget);
+
+        RetryBudgetExhaustedException ex = Assertions.assertThrows(RetryBudgetExhaustedException.class,
+                () -> createProxy(target, aspect).transfer());
+        Assertions.assertSame(retryBudget, ex.getRetryBudget());
+        Assertions.assertEquals(2, target.calls.get());
+        Assertions.assertEquals(1, retryBudget.getNumRetries());
+        Assertions.assertEquals(1, retryBudget.getNumRejected());
+    }
+
+    @Test
+    public void whenRecoveredWithRetryBudget_expectOverridableRecoveryAndBudgetInEvent() throws Exception {
+        FlakyService target = new FlakyService();
+        target.failures = 2;
+
+        RetryBudget retryBudget = new RetryBudget(0.1, 10);
+        List<Integer> recoveries = new ArrayList<>();
+        List<RetryEvent> events = new ArrayList<>();
+
+        TransactionRetryAspect aspect = new TransactionRetryAspect() {
+            @Override
+            protected void handleRecovery(List<SQLException> sqlExceptions, int numCalls, String methodName,
+                                          Duration elapsedTime, RetryBudget retryBudget) {
+                recoveries.add(numCalls);
+                super.handleRecovery(sqlExceptions, numCalls, methodName, elapsedTime, retryBudget);
+            }
+        };
+        aspect.setRetryBudget(retryBudget);
+        aspect.setRetryEventConsumer(events::add);
+
+        Assertions.assertEquals("ok", createProxy(target, aspect).transfer());
+        Assertions.assertEquals(List.of(3), recoveries);
+        Assertions.assertEquals(1, events.size());
+        Assertions.assertSame(retryBudget, events.get(0).getRetryBudget());
+        Assertions.assertEquals(2, events.get(0).getTransientExceptions().size());
+    }
+
+    @Test
+    public void whenTransientErrorsAsync_expectRetryOnScheduler() throws Exception {
+        FlakyService target = new FlakyService();
+        target.failures = 3;
+
+        TransactionRetryAspect aspect = new TransactionRetryAspect();
+        aspect.setRetryScheduler(scheduler);
+
+        CompletableFuture<String> future = createProxy(target, aspect).transferAsync();
+        Assertions.assertEquals("ok", future.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(4, target.calls.get());
+    }
+
+    @Test
+    public void whenTooManyTransientErrorsAsync_expectConcurrencyFailure() {
+        FlakyService target = new FlakyService();
+        target.failures = 10;
+
+        TransactionRetryAspect aspect = new TransactionRetryAspect();
+        aspect.setRetryScheduler(scheduler);
+
+        CompletableFuture<String> future = createProxy(target, aspect).transferAsync();
+        ExecutionException ex = Assertions.assertThrows(ExecutionException.class,
+                () -> future.get(5, TimeUnit.SECONDS));
+        Assertions.assertInstanceOf(ConcurrencyFailureException.class, ex.getCause());
+        Assertions.assertEquals(5, target.calls.get());
+    }
+}